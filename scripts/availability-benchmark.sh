@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+#
+# Compara a latência de montar uma página de catálogo consultando
+# GET /api/books/{id}/loans livro a livro com uma única chamada a
+# POST /api/books/availability. Requer a aplicação em execução.
+#
+# Uso: scripts/availability-benchmark.sh [primeiro_id] [quantidade] [repeticoes]
+
+set -euo pipefail
+
+FIRST_ID=${1:-1}
+COUNT=${2:-100}
+RUNS=${3:-20}
+BASE_URL=${BASE_URL:-http://localhost:8080/api/books}
+
+IDS=$(seq -s, "$FIRST_ID" $(( FIRST_ID + COUNT - 1 )))
+
+elapsed_ms() {
+	local start=$(date +%s%N)
+	"$@" > /dev/null
+	echo $(( ($(date +%s%N) - start) / 1000000 ))
+}
+
+fan_out() {
+	for id in ${IDS//,/ }; do
+		curl -s "$BASE_URL/$id/loans?page=0&size=20" > /dev/null
+	done
+}
+
+batch() {
+	curl -s -H 'Content-Type: application/json' -d "{\"ids\":[$IDS]}" "$BASE_URL/availability"
+}
+
+total_fan_out=0
+total_batch=0
+for _ in $(seq "$RUNS"); do
+	total_fan_out=$(( total_fan_out + $(elapsed_ms fan_out) ))
+	total_batch=$(( total_batch + $(elapsed_ms batch) ))
+done
+
+printf 'livros=%d  por_livro=%d ms  lote=%d ms (media de %d execucoes)\n' \
+	"$COUNT" $(( total_fan_out / RUNS )) $(( total_batch / RUNS )) "$RUNS"
@@ -0,0 +1,36 @@
+-- Planos das consultas mais frequentes, para comparar antes e depois da migração
+-- V2__hot_path_indexes (rodar com a base populada, ex. por loan-history-benchmark.sql):
+-- (isbn_key é o ISBN-13 normalizado, ver V4__Book_isbn_key):
+--   psql -d library -v isbn_key=9780000000422 -v book=42 -v customer="'Cliente 42'" -f scripts/hot-path-plans.sql
+
+\set ON_ERROR_STOP on
+
+ANALYZE book;
+ANALYZE customer;
+ANALYZE loan;
+
+-- BookRepository.existsByIsbnKey / findByIsbnKey
+EXPLAIN (ANALYZE, BUFFERS) SELECT b.id FROM book b WHERE b.isbn_key = :isbn_key LIMIT 1;
+
+-- BookRepository.findAvailableCopies (disponibilidade com o BookAvailabilityIndex desligado)
+EXPLAIN (ANALYZE, BUFFERS) SELECT b.available_copies FROM book b WHERE b.id = :book;
+
+-- BookWriteRepository.takeCopies (empréstimo; em transação desfeita para não consumir o exemplar)
+BEGIN;
+EXPLAIN (ANALYZE, BUFFERS) UPDATE book SET available_copies = available_copies - 1
+WHERE id IN (:book) AND available_copies >= 1;
+ROLLBACK;
+
+-- LoanRepository.findByBook
+EXPLAIN (ANALYZE, BUFFERS) SELECT l.* FROM loan l WHERE l.id_book = :book ORDER BY l.id LIMIT 20;
+
+-- LoanRepository.findByBookIsbnOrCustomer
+EXPLAIN (ANALYZE, BUFFERS) SELECT l.* FROM loan l
+JOIN book b ON b.id = l.id_book
+JOIN customer c ON c.id = l.id_customer
+WHERE b.isbn_key = :isbn_key OR c.name = :customer
+LIMIT 20;
+
+-- LoanRepository.findByLoanDateLessThanAndNotReturned
+EXPLAIN (ANALYZE, BUFFERS) SELECT l.* FROM loan l
+WHERE l.loan_date <= current_date - 4 AND (l.returned IS NULL OR l.returned IS FALSE);
@@ -0,0 +1,47 @@
+-- Compara o índice do ISBN em texto com o da chave numérica (isbn_key, bigint):
+-- tamanho dos índices e latência de consultas pontuais. Usa uma tabela temporária
+-- com :rows ISBN-13 sintéticos e não altera a base.
+--   psql -d library -v rows=1000000 -f scripts/isbn-key-index.sql
+
+\set ON_ERROR_STOP on
+\timing on
+
+CREATE TEMP TABLE isbn_bench AS
+SELECT g AS id,
+       '978-' || lpad(g::text, 9, '0') AS isbn,
+       9780000000000 + g * 10 AS isbn_key
+FROM generate_series(1, :rows) AS g;
+
+CREATE UNIQUE INDEX isbn_bench_text ON isbn_bench (isbn);
+CREATE UNIQUE INDEX isbn_bench_key ON isbn_bench (isbn_key);
+ANALYZE isbn_bench;
+
+SELECT 'texto' AS indice, pg_size_pretty(pg_relation_size('isbn_bench_text')) AS tamanho,
+       round(pg_relation_size('isbn_bench_text')::numeric / :rows, 1) AS bytes_por_isbn
+UNION ALL
+SELECT 'bigint', pg_size_pretty(pg_relation_size('isbn_bench_key')),
+       round(pg_relation_size('isbn_bench_key')::numeric / :rows, 1);
+
+EXPLAIN (ANALYZE, BUFFERS) SELECT id FROM isbn_bench WHERE isbn = '978-000500000';
+EXPLAIN (ANALYZE, BUFFERS) SELECT id FROM isbn_bench WHERE isbn_key = 9780000000000 + 500000 * 10;
+
+-- 10 mil consultas pontuais em cada índice
+DO $$
+DECLARE
+	found bigint;
+BEGIN
+	FOR i IN 1..10000 LOOP
+		SELECT id INTO found FROM isbn_bench WHERE isbn = '978-' || lpad((i * 97 % 1000000 + 1)::text, 9, '0');
+	END LOOP;
+END $$;
+
+DO $$
+DECLARE
+	found bigint;
+BEGIN
+	FOR i IN 1..10000 LOOP
+		SELECT id INTO found FROM isbn_bench WHERE isbn_key = 9780000000000 + (i * 97 % 1000000 + 1) * 10;
+	END LOOP;
+END $$;
+
+DROP TABLE isbn_bench;
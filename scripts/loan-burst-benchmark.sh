@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+#
+# Compara vazão e p99 da criação síncrona de empréstimos (POST /api/loans)
+# com o modo write-behind (POST /api/loans/reservations). Cada rodada cadastra
+# livros novos e dispara um empréstimo por livro com a concorrência informada.
+# Requer a aplicação em execução com writebehind.enabled=true.
+#
+# Uso: scripts/loan-burst-benchmark.sh [emprestimos] [concorrencia]
+
+set -euo pipefail
+
+LOANS=${1:-2000}
+CONCURRENCY=${2:-100}
+BASE_URL=${BASE_URL:-http://localhost:8080/api}
+RUN_ID=$(date +%s)
+
+create_books() {
+	local prefix=$1
+	seq "$LOANS" | xargs -P "$CONCURRENCY" -I{} curl -s -o /dev/null \
+		-H 'Content-Type: application/json' \
+		-d "{\"title\":\"Livro {}\",\"author\":\"Autor\",\"isbn\":\"$prefix-{}\"}" "$BASE_URL/books"
+}
+
+burst() {
+	local endpoint=$1 prefix=$2
+	local times=$(mktemp)
+	local start=$(date +%s%N)
+	seq "$LOANS" | xargs -P "$CONCURRENCY" -I{} curl -s -o /dev/null -w "%{http_code} %{time_total}\n" \
+		-H 'Content-Type: application/json' \
+		-d "{\"isbn\":\"$prefix-{}\",\"customer\":\"Cliente {}\",\"email\":\"cliente{}@email.com\"}" \
+		"$BASE_URL/$endpoint" > "$times"
+	local elapsed_ms=$(( ($(date +%s%N) - start) / 1000000 ))
+	local ok=$(grep -cE '^20[12] ' "$times" || true)
+	local p99=$(awk '{print $2}' "$times" | sort -n | awk '{v[NR]=$1} END {print v[int(NR*0.99)]}')
+	printf '%-20s sucesso=%d/%d  vazao=%d req/s  p99=%.1f ms\n' \
+		"$endpoint" "$ok" "$LOANS" $(( ok * 1000 / (elapsed_ms > 0 ? elapsed_ms : 1) )) "$(echo "$p99 * 1000" | bc)"
+	rm -f "$times"
+}
+
+create_books "SYNC-$RUN_ID"
+create_books "ASYNC-$RUN_ID"
+burst loans "SYNC-$RUN_ID"
+burst loans/reservations "ASYNC-$RUN_ID"
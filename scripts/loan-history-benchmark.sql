@@ -0,0 +1,64 @@
+-- Gera um histórico sintético de empréstimos e mede as consultas do
+-- LoanRepository antes e depois do arquivamento dos devolvidos.
+-- Execute sobre uma base migrada pelo Flyway (tabelas book, customer, loan e loan_archive):
+--   psql -d library -v rows=100000000 -v books=1000000 -f scripts/loan-history-benchmark.sql
+
+\set ON_ERROR_STOP on
+\timing on
+
+-- isbn_key recebe um ISBN-13 válido (prefixo 978 e dígito verificador), como grava o BookService;
+-- o livro g tem isbn_key 978000000000g seguido do dígito, ex. 9780000000422 para g = 42
+INSERT INTO book (title, author, isbn, isbn_key)
+SELECT 'Livro ' || g, 'Autor ' || (g % 5000), k.isbn, k.isbn::bigint
+FROM generate_series(1, :books) g
+CROSS JOIN LATERAL (
+	SELECT s || (10 - (SELECT sum(substr(s, i, 1)::int * (CASE WHEN i % 2 = 0 THEN 3 ELSE 1 END))
+			FROM generate_series(1, 12) i) % 10) % 10 AS isbn
+	FROM (SELECT (978000000000 + g)::text AS s) p
+) k;
+
+SELECT id AS first_book FROM book WHERE isbn_key = 9780000000019 \gset
+
+INSERT INTO customer (name, email)
+SELECT 'Cliente ' || g, 'cliente' || g || '@email.com'
+FROM generate_series(0, 199999) g;
+
+SELECT min(id) AS first_customer FROM customer WHERE email = 'cliente0@email.com' \gset
+
+INSERT INTO loan (id_customer, id_book, loan_date, returned)
+SELECT :first_customer + (g % 200000),
+       :first_book + (g % :books),
+       current_date - (g % 3650),
+       g % 3650 > 7
+FROM generate_series(1, :rows) g;
+
+-- Livros com empréstimo em aberto ficam sem exemplar livre (um exemplar por livro)
+UPDATE book b SET available_copies = 0
+WHERE b.id >= :first_book
+  AND EXISTS (SELECT 1 FROM loan l WHERE l.id_book = b.id AND (l.returned IS NULL OR l.returned IS FALSE));
+
+ANALYZE book;
+ANALYZE customer;
+ANALYZE loan;
+
+\echo '=== Antes do arquivamento'
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM loan WHERE loan_date <= current_date - 4 AND (returned IS NULL OR returned IS FALSE);
+EXPLAIN (ANALYZE, BUFFERS) SELECT l.* FROM loan l JOIN book b ON b.id = l.id_book JOIN customer c ON c.id = l.id_customer
+WHERE b.isbn_key = 9780000000422 OR c.name = 'Cliente 42' LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM loan WHERE id_book = (SELECT id FROM book WHERE isbn_key = 9780000000422) LIMIT 20;
+
+-- Equivalente ao LoanServiceImpl.archiveReturnedLoans com retenção de 12 meses
+BEGIN;
+INSERT INTO loan_archive (id, id_customer, id_book, loan_date, returned, archived_at)
+SELECT id, id_customer, id_book, loan_date, returned, current_date
+FROM loan WHERE returned IS TRUE AND loan_date < current_date - interval '12 months';
+DELETE FROM loan WHERE returned IS TRUE AND loan_date < current_date - interval '12 months';
+COMMIT;
+
+VACUUM ANALYZE loan;
+
+\echo '=== Depois do arquivamento'
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM loan WHERE loan_date <= current_date - 4 AND (returned IS NULL OR returned IS FALSE);
+EXPLAIN (ANALYZE, BUFFERS) SELECT l.* FROM loan l JOIN book b ON b.id = l.id_book JOIN customer c ON c.id = l.id_customer
+WHERE b.isbn_key = 9780000000422 OR c.name = 'Cliente 42' LIMIT 20;
+EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM loan WHERE id_book = (SELECT id FROM book WHERE isbn_key = 9780000000422) LIMIT 20;
@@ -0,0 +1,45 @@
+#!/usr/bin/env bash
+#
+# Reproduz a disputa por conexões entre o scheduler de empréstimos atrasados e
+# o tráfego da API. Executa o jar com o perfil padrão e com o perfil "prod",
+# disparando o scheduler a cada 5 segundos enquanto requisições concorrentes
+# consultam livros. Requer PostgreSQL local (ver application.yml).
+#
+# Uso: scripts/pool-starvation.sh [requisicoes] [concorrencia]
+
+set -euo pipefail
+
+REQUESTS=${1:-5000}
+CONCURRENCY=${2:-50}
+PORT=8080
+JAR=$(ls target/library-api-*.jar 2>/dev/null | head -n 1)
+
+if [ -z "$JAR" ]; then
+	mvn -B -q package -DskipTests
+	JAR=$(ls target/library-api-*.jar | head -n 1)
+fi
+
+run_scenario() {
+	local profile=$1
+	java -jar "$JAR" --spring.profiles.active="$profile" --server.port=$PORT \
+		--lateloans.cron="*/5 * * * * *" > "target/pool-$profile.log" 2>&1 &
+	local pid=$!
+	trap "kill $pid 2>/dev/null" RETURN
+
+	until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do sleep 0.5; done
+
+	local start=$(date +%s.%N)
+	local failures=$(seq "$REQUESTS" | xargs -P "$CONCURRENCY" -I{} \
+		curl -s -o /dev/null -w "%{http_code}\n" --max-time 5 "http://localhost:$PORT/api/books?page=0&size=20" \
+		| grep -vc '^200$' || true)
+	local end=$(date +%s.%N)
+
+	local pending=$(curl -s "http://localhost:$PORT/actuator/metrics/hikaricp.connections.pending" \
+		| grep -o '"value":[0-9.]*' | head -n 1 | cut -d: -f2)
+
+	printf '%-8s requisicoes=%s falhas=%s tempo=%.2fs conexoes_pendentes=%s\n' \
+		"$profile" "$REQUESTS" "$failures" "$(echo "$end - $start" | bc)" "${pending:-n/a}"
+}
+
+run_scenario default
+run_scenario prod
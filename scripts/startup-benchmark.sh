@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+#
+# Mede tempo até a primeira requisição à API, RSS e quantidade de beans
+# definidos/instanciados em quatro modos: jar padrão, jar com perfil "prod"
+# (inicialização lazy, OpenAPI estático, actuator restrito), JVM com arquivo
+# AppCDS e imagem nativa (quando target/library-api existir, gerada por
+# mvn -Pnative native:compile). Requer PostgreSQL local (ver application.yml).
+#
+# Uso: scripts/startup-benchmark.sh [execucoes] [argumentos da aplicacao...]
+
+set -euo pipefail
+
+RUNS=${1:-5}
+shift || true
+APP_ARGS=("$@")
+PORT=8080
+EXPLODED=target/exploded
+CDS_ARCHIVE=target/application.jsa
+
+JAR=$(ls target/library-api-*.jar 2>/dev/null | head -n 1)
+if [ -z "$JAR" ]; then
+	mvn -B -q package -DskipTests
+	JAR=$(ls target/library-api-*.jar | head -n 1)
+fi
+
+# AppCDS exige classpath de arquivos jar, não os jars aninhados do fat jar
+rm -rf "$EXPLODED" && mkdir -p "$EXPLODED"
+(cd "$EXPLODED" && jar -xf "../$(basename "$JAR")")
+CLASSPATH="$EXPLODED/BOOT-INF/classes:$EXPLODED/BOOT-INF/lib/*"
+MAIN_CLASS=com.libraryapi.Application
+
+# Execução de treino: o contexto é encerrado logo após o refresh
+java -XX:ArchiveClassesAtExit="$CDS_ARCHIVE" -Dspring.context.exit=onRefresh \
+	-cp "$CLASSPATH" "$MAIN_CLASS" "${APP_ARGS[@]}" > target/cds-training.log 2>&1
+
+measure() {
+	local mode=$1
+	shift
+	local total_ms=0 total_rss=0 beans=""
+	for _ in $(seq "$RUNS"); do
+		local log="target/startup-$mode.log"
+		local start=$(date +%s%N)
+		"$@" --server.port=$PORT "${APP_ARGS[@]}" > "$log" 2>&1 &
+		local pid=$!
+		until curl -sf "http://localhost:$PORT/api/books?page=0&size=1" > /dev/null; do sleep 0.05; done
+		local end=$(date +%s%N)
+		local rss=$(ps -o rss= -p "$pid" | tr -d ' ')
+		beans=$(grep -o '[0-9]* beans definidos, [0-9]* instanciados' "$log" || echo "n/a")
+		kill "$pid" && wait "$pid" 2>/dev/null || true
+		total_ms=$(( total_ms + (end - start) / 1000000 ))
+		total_rss=$(( total_rss + rss ))
+	done
+	printf '%-7s primeira_requisicao=%5d ms  rss=%6d KiB  %s\n' \
+		"$mode" $(( total_ms / RUNS )) $(( total_rss / RUNS )) "$beans"
+}
+
+measure jar java -jar "$JAR"
+measure prod java -jar "$JAR" --spring.profiles.active=prod
+measure cds java -XX:SharedArchiveFile="$CDS_ARCHIVE" -cp "$CLASSPATH" "$MAIN_CLASS"
+if [ -x target/library-api ]; then
+	measure native target/library-api
+fi
@@ -2,13 +2,17 @@ package com.libraryapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import com.libraryapi.config.NativeRuntimeHints;
+
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.info.Info;
 
 @SpringBootApplication
 @EnableScheduling
+@ImportRuntimeHints(NativeRuntimeHints.class)
 @OpenAPIDefinition(info = @Info(title = "Library API", version = "v1.0", description = "API para controle de aluguel de livros"))
 public class Application {
 	
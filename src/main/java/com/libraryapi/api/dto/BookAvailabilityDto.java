@@ -0,0 +1,23 @@
+package com.libraryapi.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookAvailabilityDto {
+
+    private Long id;
+    private String isbn;
+    private boolean available;
+    private Long openLoans;
+    private Integer availableCopies;
+
+}
@@ -0,0 +1,56 @@
+package com.libraryapi.api.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de requisições simultâneas ajustado pela latência observada (AIMD):
+ * cresce aditivamente enquanto as respostas ficam abaixo da latência alvo e é
+ * reduzido multiplicativamente quando a ultrapassam, descartando o excedente
+ * antes que ele se acumule nas threads do Tomcat e no pool de conexões.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	private static final double BACKOFF_RATIO = 0.9;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final long targetLatencyNanos;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private volatile double limit;
+
+	public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit, long targetLatencyNanos) {
+		this.minLimit = Math.max(1, minLimit);
+		this.maxLimit = Math.max(this.minLimit, maxLimit);
+		this.targetLatencyNanos = targetLatencyNanos;
+		this.limit = this.maxLimit;
+	}
+
+	public boolean tryAcquire() {
+		if (inFlight.incrementAndGet() > (int) limit) {
+			inFlight.decrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	/** Libera a vaga e ajusta o limite com a latência da requisição concluída. */
+	public void release(long latencyNanos) {
+		int concurrent = inFlight.getAndDecrement();
+		synchronized (this) {
+			if (latencyNanos > targetLatencyNanos) {
+				limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+			} else if (concurrent * 2 >= limit) {
+				limit = Math.min(maxLimit, limit + 1 / limit);
+			}
+		}
+	}
+
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+}
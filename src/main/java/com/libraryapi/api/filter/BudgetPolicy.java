@@ -0,0 +1,66 @@
+package com.libraryapi.api.filter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cota de uma {@link RequestBudget}: um token bucket por cliente e um limite
+ * adaptativo de concorrência compartilhado por todos os clientes. Com
+ * {@code maxClients} clientes acompanhados, os ociosos são removidos no máximo
+ * uma vez por tempo de recarga do bucket; enquanto não houver vaga, os clientes
+ * novos dividem um único bucket.
+ */
+public class BudgetPolicy {
+
+	private final double requestsPerSecond;
+	private final double burst;
+	private final int maxClients;
+	private final AdaptiveConcurrencyLimiter limiter;
+	private final long refillNanos;
+	private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+	private final TokenBucket overflow;
+	private final AtomicLong nextEviction = new AtomicLong(Long.MIN_VALUE);
+
+	public BudgetPolicy(double requestsPerSecond, double burst, int maxClients, AdaptiveConcurrencyLimiter limiter) {
+		this.requestsPerSecond = requestsPerSecond;
+		this.burst = burst;
+		this.maxClients = maxClients;
+		this.limiter = limiter;
+		this.refillNanos = (long) Math.ceil(burst / requestsPerSecond * TimeUnit.SECONDS.toNanos(1));
+		this.overflow = new TokenBucket(burst, requestsPerSecond, System.nanoTime());
+	}
+
+	/** Retorna 0 se o cliente está dentro da cota ou o tempo de espera em nanossegundos. */
+	public long tryConsume(String client, long now) {
+		TokenBucket bucket = buckets.get(client);
+		if (bucket == null) {
+			if (buckets.size() >= maxClients) {
+				evictIdle(now);
+			}
+			bucket = buckets.size() < maxClients
+					? buckets.computeIfAbsent(client, key -> new TokenBucket(burst, requestsPerSecond, now))
+					: overflow;
+		}
+		return bucket.tryConsume(now);
+	}
+
+	public AdaptiveConcurrencyLimiter getLimiter() {
+		return limiter;
+	}
+
+	int getTrackedClients() {
+		return buckets.size();
+	}
+
+	private void evictIdle(long now) {
+		long next = nextEviction.get();
+		// um bucket só volta a ficar cheio depois de um tempo de recarga; varrer antes disso é trabalho perdido
+		if (now - next < 0 || !nextEviction.compareAndSet(next, now + refillNanos)) {
+			return;
+		}
+		buckets.values().removeIf(bucket -> bucket.isFull(now));
+	}
+
+}
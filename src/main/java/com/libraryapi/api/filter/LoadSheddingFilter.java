@@ -0,0 +1,106 @@
+package com.libraryapi.api.filter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libraryapi.exception.ApiErros;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Aplica, antes dos controllers, a cota por cliente (429) e o limite
+ * adaptativo de concorrência (503) de cada {@link RequestBudget}. O cliente é
+ * identificado pelo IP de origem; o cabeçalho {@code X-API-Key} só ganha cota
+ * própria quando a chave está entre as configuradas, para que um cliente não
+ * consiga uma cota nova a cada chave inventada.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+	public static final String API_KEY_HEADER = "X-API-Key";
+
+	private final Map<RequestBudget, BudgetPolicy> policies;
+	private final Set<String> apiKeys;
+	private final ObjectMapper mapper;
+	private final Map<RequestBudget, Counter> rateLimited = new EnumMap<>(RequestBudget.class);
+	private final Map<RequestBudget, Counter> shed = new EnumMap<>(RequestBudget.class);
+
+	public LoadSheddingFilter(Map<RequestBudget, BudgetPolicy> policies, Set<String> apiKeys, ObjectMapper mapper,
+			MeterRegistry registry) {
+		this.policies = new EnumMap<>(policies);
+		this.apiKeys = Set.copyOf(apiKeys);
+		this.mapper = mapper;
+		this.policies.forEach((budget, policy) -> {
+			String tag = budget.name().toLowerCase();
+			rateLimited.put(budget, Counter.builder("api.requests.rejected")
+					.tag("budget", tag).tag("reason", "rate_limit").register(registry));
+			shed.put(budget, Counter.builder("api.requests.rejected")
+					.tag("budget", tag).tag("reason", "concurrency").register(registry));
+			Gauge.builder("api.concurrency.limit", policy.getLimiter(), AdaptiveConcurrencyLimiter::getLimit)
+					.tag("budget", tag).register(registry);
+		});
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		RequestBudget budget = RequestBudget.classify(request.getMethod(), request.getRequestURI());
+		BudgetPolicy policy = policies.get(budget);
+		if (policy == null) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		long waitNanos = policy.tryConsume(clientKey(request), System.nanoTime());
+		if (waitNanos > 0) {
+			rateLimited.get(budget).increment();
+			reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "Limite de requisições excedido.");
+			return;
+		}
+
+		AdaptiveConcurrencyLimiter limiter = policy.getLimiter();
+		if (!limiter.tryAcquire()) {
+			shed.get(budget).increment();
+			reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1),
+					"Servidor sobrecarregado, tente novamente.");
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			limiter.release(System.nanoTime() - start);
+		}
+	}
+
+	private String clientKey(HttpServletRequest request) {
+		String apiKey = request.getHeader(API_KEY_HEADER);
+		return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+	}
+
+	private void reject(HttpServletResponse response, HttpStatus status, long waitNanos, String message)
+			throws IOException {
+		long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+		response.setStatus(status.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		mapper.writeValue(response.getOutputStream(), new ApiErros(message));
+	}
+
+}
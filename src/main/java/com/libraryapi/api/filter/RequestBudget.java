@@ -0,0 +1,27 @@
+package com.libraryapi.api.filter;
+
+import java.util.regex.Pattern;
+
+/**
+ * Classes de custo das requisições da API, cada uma com cota e limite de
+ * concorrência próprios: consultas pontuais são baratas, listagens paginadas e
+ * consultas em lote são caras e escritas ficam em uma cota separada.
+ */
+public enum RequestBudget {
+
+	READ, SEARCH, WRITE;
+
+	private static final Pattern SEARCH_PATHS = Pattern.compile("/api/(books|loans)/?|/api/books/\\d+/loans/?");
+	private static final String BATCH_AVAILABILITY = "/api/books/availability";
+
+	public static RequestBudget classify(String method, String path) {
+		if ("GET".equals(method) || "HEAD".equals(method)) {
+			return SEARCH_PATHS.matcher(path).matches() ? SEARCH : READ;
+		}
+		if ("POST".equals(method) && BATCH_AVAILABILITY.equals(path)) {
+			return SEARCH;
+		}
+		return WRITE;
+	}
+
+}
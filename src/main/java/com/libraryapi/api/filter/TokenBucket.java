@@ -0,0 +1,47 @@
+package com.libraryapi.api.filter;
+
+/**
+ * Token bucket de um cliente: acumula até {@code capacity} fichas, repostas à
+ * taxa de {@code tokensPerSecond}.
+ */
+public class TokenBucket {
+
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	private final double capacity;
+	private final double tokensPerNano;
+	private double tokens;
+	private long lastRefill;
+
+	public TokenBucket(double capacity, double tokensPerSecond, long now) {
+		this.capacity = capacity;
+		this.tokensPerNano = tokensPerSecond / NANOS_PER_SECOND;
+		this.tokens = capacity;
+		this.lastRefill = now;
+	}
+
+	/**
+	 * Consome uma ficha. Retorna 0 quando a requisição foi aceita ou, caso
+	 * contrário, quantos nanossegundos faltam para a próxima ficha.
+	 */
+	public synchronized long tryConsume(long now) {
+		refill(now);
+		if (tokens >= 1) {
+			tokens -= 1;
+			return 0;
+		}
+		return (long) Math.ceil((1 - tokens) / tokensPerNano);
+	}
+
+	/** Indica se o bucket está cheio, ou seja, se o cliente está ocioso. */
+	public synchronized boolean isFull(long now) {
+		refill(now);
+		return tokens >= capacity;
+	}
+
+	private void refill(long now) {
+		tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+		lastRefill = now;
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.libraryapi.api.payload;
+
+import java.util.List;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookAvailabilityRequest {
+
+	@Size(max = 200, message = "Informe no máximo 200 ids.")
+	private List<Long> ids;
+
+	@Size(max = 200, message = "Informe no máximo 200 ISBNs.")
+	private List<String> isbns;
+
+}
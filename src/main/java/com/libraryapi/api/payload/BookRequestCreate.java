@@ -1,5 +1,6 @@
 package com.libraryapi.api.payload;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Builder;
 import lombok.Getter;
@@ -17,4 +18,8 @@ public class BookRequestCreate {
 	@NotBlank(message = "O ISBN deve ser informado.")
     private String isbn;
 
+	/** Exemplares do acervo; um quando não informado. */
+	@Min(value = 1, message = "Informe ao menos um exemplar.")
+    private Integer copies;
+
 }
@@ -0,0 +1,31 @@
+package com.libraryapi.api.payload;
+
+import java.util.List;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanBatchRequest {
+
+    @NotEmpty(message = "Informe os ISBNs dos livros.")
+    @Size(max = 20, message = "Informe no máximo 20 ISBNs.")
+    private List<String> isbns;
+
+    @NotBlank(message = "O cliente deve ser informado.")
+    private String customer;
+
+    @NotBlank(message = "O e-mail deve ser informado.")
+    @Email(message = "O e-mail deve ser válido.")
+    private String email;
+
+}
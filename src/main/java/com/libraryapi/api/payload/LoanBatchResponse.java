@@ -0,0 +1,32 @@
+package com.libraryapi.api.payload;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.libraryapi.api.dto.BookDto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class LoanBatchResponse {
+
+    private String customer;
+    private String email;
+    private List<Item> items;
+
+    /** Resultado de um ISBN: EMPRESTADO, INDISPONIVEL, NAO_ENCONTRADO ou REPETIDO. */
+    @Getter
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Item {
+
+        private String isbn;
+        private String status;
+        private Long loan;
+        private BookDto book;
+
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.libraryapi.api.payload;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WaitlistResponse {
+
+    private Long reservation;
+    private String status;
+    private Long position;
+    private Long loan;
+
+}
@@ -13,11 +13,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.libraryapi.api.dto.BookAvailabilityDto;
 import com.libraryapi.api.dto.BookDto;
+import com.libraryapi.api.payload.BookAvailabilityRequest;
 import com.libraryapi.api.payload.BookRequestCreate;
 import com.libraryapi.api.payload.BookRequestUpdate;
 import com.libraryapi.api.payload.LoanResponse;
@@ -26,6 +29,7 @@ import com.libraryapi.model.entity.Loan;
 import com.libraryapi.service.BookService;
 import com.libraryapi.service.LoanService;
 
+import io.micrometer.observation.annotation.Observed;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
@@ -34,6 +38,7 @@ import lombok.extern.slf4j.Slf4j;
 @RequestMapping("/api/books")
 @Slf4j
 @Tag(name = "Book")
+@Observed(name = "book.controller")
 public class BookController {
 	
 	private BookService service;
@@ -53,6 +58,9 @@ public class BookController {
 				.title(request.getTitle())
 				.isbn(request.getIsbn())
 				.build();
+		if (request.getCopies() != null) {
+			entity.setCopies(request.getCopies());
+		}
 		
 		entity = service.save(entity);
 		
@@ -88,18 +96,19 @@ public class BookController {
 	
 	@PutMapping("{id}")
 	public BookDto update(@PathVariable Long id, @RequestBody @Valid BookRequestUpdate request) {
-		return service.getById(id).map(book -> {
-			book.setAuthor(request.getAuthor());
-			book.setTitle(request.getTitle());
-			book = service.update(book);
-			
-			return BookDto.builder()
+		Book changes = Book.builder()
+				.id(id)
+				.author(request.getAuthor())
+				.title(request.getTitle())
+				.build();
+		return service.update(changes).map(book ->
+				BookDto.builder()
 					.id(book.getId())
 					.author(book.getAuthor())
 					.title(book.getTitle())
 					.isbn(book.getIsbn())
-					.build();
-		}).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Livro não encontrado."));
+					.build())
+						.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Livro não encontrado."));
 	}
 	
 	@GetMapping
@@ -122,6 +131,50 @@ public class BookController {
 	   return bookList;
 	}
 	
+	@GetMapping("suggest")
+	public List<BookDto> suggest(@RequestParam("q") String query,
+			@RequestParam(name = "limit", defaultValue = "10") int limit) {
+		if (limit < 1 || limit > 50) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe um limite entre 1 e 50.");
+		}
+		return service.suggest(query, limit)
+				.stream()
+				.map(book -> BookDto.builder()
+						.id(book.getId())
+						.author(book.getAuthor())
+						.title(book.getTitle())
+						.isbn(book.getIsbn())
+						.build())
+				.collect(Collectors.toList());
+	}
+	
+	@GetMapping("{id}/availability")
+	public BookAvailabilityDto availability(@PathVariable Long id) {
+		return loanService.isBookAvailable(id).map(available ->
+				BookAvailabilityDto.builder()
+					.id(id)
+					.available(available)
+					.build())
+						.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Livro não encontrado."));
+	}
+	
+	@PostMapping("availability")
+	public List<BookAvailabilityDto> availability(@RequestBody @Valid BookAvailabilityRequest request) {
+		if (isEmpty(request.getIds()) && isEmpty(request.getIsbns())) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Informe os ids ou os ISBNs dos livros.");
+		}
+		return service.getAvailability(request.getIds(), request.getIsbns())
+				.stream()
+				.map(availability -> BookAvailabilityDto.builder()
+						.id(availability.getId())
+						.isbn(availability.getIsbn())
+						.openLoans(availability.getOpenLoans())
+						.availableCopies(availability.getAvailableCopies())
+						.available(availability.getAvailableCopies() > 0)
+						.build())
+				.collect(Collectors.toList());
+	}
+	
 	@GetMapping("{id}/loans")
 	public List<LoanResponse> loansByBook(@PathVariable Long id, Pageable pageable) {
 		Book book = service.getById(id).orElseThrow(() 
@@ -139,8 +192,8 @@ public class BookController {
 											.build();
 					LoanResponse loanResponse = LoanResponse.builder()
 											.loan(loan.getId())
-											.customer(loan.getCustomer())
-											.email(loan.getCustomerEmail())
+											.customer(loan.getCustomer().getName())
+											.email(loan.getCustomer().getEmail())
 											.returned(loan.getReturned())
 											.build();
 					loanResponse.setBook(bookDTO);
@@ -148,5 +201,9 @@ public class BookController {
 				}).collect(Collectors.toList());
         return loanList;
 	}
+	
+	private static boolean isEmpty(List<?> values) {
+		return values == null || values.isEmpty();
+	}
 
 }
@@ -1,12 +1,21 @@
 package com.libraryapi.api.resource;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -20,13 +29,21 @@ import org.springframework.web.server.ResponseStatusException;
 import com.libraryapi.api.dto.BookDto;
 import com.libraryapi.api.dto.LoanFilterDto;
 import com.libraryapi.api.dto.ReturnedLoanDto;
+import com.libraryapi.api.payload.LoanBatchRequest;
+import com.libraryapi.api.payload.LoanBatchResponse;
 import com.libraryapi.api.payload.LoanRequest;
+import com.libraryapi.api.payload.LoanReservationResponse;
 import com.libraryapi.api.payload.LoanResponse;
+import com.libraryapi.model.Isbn;
 import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.Customer;
 import com.libraryapi.model.entity.Loan;
 import com.libraryapi.service.BookService;
+import com.libraryapi.service.CustomerService;
 import com.libraryapi.service.LoanService;
+import com.libraryapi.service.writebehind.LoanWriteBehindQueue;
 
+import io.micrometer.observation.annotation.Observed;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -35,10 +52,13 @@ import lombok.RequiredArgsConstructor;
 @RequestMapping("/api/loans")
 @RequiredArgsConstructor
 @Tag(name = "Loan")
+@Observed(name = "loan.controller")
 public class LoanController {
 
 	private final LoanService service;
 	private final BookService bookService;
+	private final CustomerService customerService;
+	private final LoanWriteBehindQueue writeBehindQueue;
 	
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -47,10 +67,10 @@ public class LoanController {
                 .getBookByIsbn(request.getIsbn())
                 .orElseThrow(() ->
                         new ResponseStatusException(HttpStatus.BAD_REQUEST, "Livro não encontrado para o ISBN informado."));
+        Customer customer = customerService.getOrCreate(request.getCustomer(), request.getEmail());
         Loan entity = Loan.builder()
                 .book(book)
-                .customer(request.getCustomer())
-                .customerEmail(request.getEmail())
+                .customer(customer)
                 .loanDate(LocalDate.now())
                 .returned(false)
                 .build();
@@ -59,8 +79,8 @@ public class LoanController {
         
 		return LoanResponse.builder()
 				.loan(entity.getId())
-				.customer(entity.getCustomer())
-				.email(entity.getCustomerEmail())
+				.customer(entity.getCustomer().getName())
+				.email(entity.getCustomer().getEmail())
 				.book(BookDto.builder()
 						.author(book.getAuthor())
 						.title(book.getTitle())
@@ -70,6 +90,106 @@ public class LoanController {
 				.build();
     }
     
+    /** Empréstimo de vários livros ao mesmo cliente: uma consulta dos livros, uma transação e um insert em lote. */
+    @PostMapping("batch")
+    public LoanBatchResponse createBatch(@RequestBody @Valid LoanBatchRequest request) {
+        Map<Long, Book> booksByIsbnKey = bookService.getBooksByIsbn(request.getIsbns())
+                .stream()
+                .collect(Collectors.toMap(Book::getIsbnKey, Function.identity()));
+        Customer customer = customerService.getOrCreate(request.getCustomer(), request.getEmail());
+
+        Map<String, Book> requested = new LinkedHashMap<>();
+        Set<Long> bookIds = new HashSet<>();
+        List<Loan> loans = new ArrayList<>();
+        for (String isbn : request.getIsbns()) {
+            OptionalLong isbnKey = Isbn.toKey(isbn);
+            Book book = isbnKey.isPresent() ? booksByIsbnKey.get(isbnKey.getAsLong()) : null;
+            if (book != null && bookIds.add(book.getId())) {
+                loans.add(Loan.builder()
+                        .book(book)
+                        .customer(customer)
+                        .loanDate(LocalDate.now())
+                        .returned(false)
+                        .build());
+            }
+            requested.putIfAbsent(isbn, book);
+        }
+        Map<Long, Loan> saved = service.saveAll(loans)
+                .stream()
+                .collect(Collectors.toMap(loan -> loan.getBook().getId(), Function.identity()));
+
+        List<LoanBatchResponse.Item> items = new ArrayList<>();
+        Set<Long> answered = new HashSet<>();
+        for (String isbn : request.getIsbns()) {
+            Book book = requested.get(isbn);
+            LoanBatchResponse.Item.ItemBuilder item = LoanBatchResponse.Item.builder().isbn(isbn);
+            if (book == null) {
+                item.status("NAO_ENCONTRADO");
+            } else if (!answered.add(book.getId())) {
+                item.status("REPETIDO");
+            } else {
+                Loan loan = saved.get(book.getId());
+                item.status(loan != null ? "EMPRESTADO" : "INDISPONIVEL")
+                        .loan(loan != null ? loan.getId() : null)
+                        .book(BookDto.builder()
+                                .id(book.getId())
+                                .title(book.getTitle())
+                                .author(book.getAuthor())
+                                .isbn(book.getIsbn())
+                                .build());
+            }
+            items.add(item.build());
+        }
+        return LoanBatchResponse.builder()
+                .customer(customer.getName())
+                .email(customer.getEmail())
+                .items(items)
+                .build();
+    }
+
+    @PostMapping("reservations")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public LoanReservationResponse reserve(@RequestBody @Valid LoanRequest request) {
+        if (!writeBehindQueue.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Empréstimo assíncrono desabilitado.");
+        }
+        Book book = bookService
+                .getBookByIsbn(request.getIsbn())
+                .orElseThrow(() ->
+                        new ResponseStatusException(HttpStatus.BAD_REQUEST, "Livro não encontrado para o ISBN informado."));
+        String reference = writeBehindQueue.reserve(book, request.getCustomer(), request.getEmail())
+                .orElseThrow(() ->
+                        new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Fila de empréstimos cheia, tente novamente."));
+
+        return LoanReservationResponse.builder()
+                .reference(reference)
+                .status("PENDENTE")
+                .build();
+    }
+
+    @GetMapping("reservations/{reference}")
+    public ResponseEntity<LoanReservationResponse> reservation(@PathVariable String reference) {
+        if (writeBehindQueue.isPending(reference)) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(LoanReservationResponse.builder().reference(reference).status("PENDENTE").build());
+        }
+        Optional<String> discardReason = writeBehindQueue.discardReason(reference);
+        if (discardReason.isPresent()) {
+            return ResponseEntity.ok(LoanReservationResponse.builder()
+                    .reference(reference)
+                    .status("DESCARTADO")
+                    .reason(discardReason.get())
+                    .build());
+        }
+        Loan loan = service.getByReference(reference).orElseThrow(()
+                -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Reserva não encontrada."));
+        return ResponseEntity.ok(LoanReservationResponse.builder()
+                .reference(reference)
+                .status("PERSISTIDO")
+                .loan(loan.getId())
+                .build());
+    }
+    
     @PatchMapping("{id}")
     public void returnBook(@PathVariable Long id, @RequestBody @Valid ReturnedLoanDto dto) {
         Loan loan = service.getById(id).orElseThrow(() 
@@ -97,8 +217,8 @@ public class LoanController {
 
                     LoanResponse loanResponse = LoanResponse.builder()
                             .loan(entity.getId())
-                            .customer(entity.getCustomer())
-                            .email(entity.getCustomerEmail())
+                            .customer(entity.getCustomer().getName())
+                            .email(entity.getCustomer().getEmail())
                             .returned(entity.getReturned())
                             .build();
                     loanResponse.setBook(bookDTO);
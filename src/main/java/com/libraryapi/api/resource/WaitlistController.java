@@ -0,0 +1,99 @@
+package com.libraryapi.api.resource;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.libraryapi.api.payload.LoanRequest;
+import com.libraryapi.api.payload.WaitlistResponse;
+import com.libraryapi.api.sse.WaitlistEmitters;
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.BookReservation;
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.service.BookService;
+import com.libraryapi.service.CustomerService;
+import com.libraryapi.service.ReservationPromotedEvent;
+import com.libraryapi.service.ReservationService;
+
+import io.micrometer.observation.annotation.Observed;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/waitlist")
+@RequiredArgsConstructor
+@Tag(name = "Waitlist")
+@Observed(name = "waitlist.controller")
+public class WaitlistController {
+
+    private final ReservationService service;
+    private final BookService bookService;
+    private final CustomerService customerService;
+    private final WaitlistEmitters emitters;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public WaitlistResponse reserve(@RequestBody @Valid LoanRequest request) {
+        Book book = bookService
+                .getBookByIsbn(request.getIsbn())
+                .orElseThrow(() ->
+                        new ResponseStatusException(HttpStatus.BAD_REQUEST, "Livro não encontrado para o ISBN informado."));
+        Customer customer = customerService.getOrCreate(request.getCustomer(), request.getEmail());
+        BookReservation reservation = service.reserve(book, customer);
+        return toResponse(reservation);
+    }
+
+    @GetMapping("{id}")
+    public WaitlistResponse get(@PathVariable Long id) {
+        return toResponse(getReservation(id));
+    }
+
+    /** Aguarda a vez da reserva: um único evento "emprestimo" quando o livro é emprestado ao cliente. */
+    @GetMapping(path = "{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable Long id) {
+        SseEmitter emitter = emitters.subscribe(id);
+        BookReservation reservation;
+        try {
+            reservation = getReservation(id);
+        } catch (ResponseStatusException ex) {
+            emitters.unsubscribe(id, emitter);
+            throw ex;
+        }
+        // a vez pode ter chegado antes da inscrição
+        if (reservation.getLoan() != null) {
+            emitters.onPromoted(new ReservationPromotedEvent(id, reservation.getLoan().getId(),
+                    reservation.getBook().getId()));
+        }
+        return emitter;
+    }
+
+    private BookReservation getReservation(Long id) {
+        return service.getById(id).orElseThrow(()
+                -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Reserva não encontrada."));
+    }
+
+    private WaitlistResponse toResponse(BookReservation reservation) {
+        if (reservation.getLoan() != null) {
+            return WaitlistResponse.builder()
+                    .reservation(reservation.getId())
+                    .status("EMPRESTADO")
+                    .loan(reservation.getLoan().getId())
+                    .build();
+        }
+        return WaitlistResponse.builder()
+                .reservation(reservation.getId())
+                .status("AGUARDANDO")
+                .position(service.position(reservation) + 1)
+                .build();
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.libraryapi.api.sse;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.libraryapi.api.payload.WaitlistResponse;
+import com.libraryapi.service.ReservationPromotedEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Conexões SSE de quem aguarda na fila de espera. Quando a vez de uma reserva
+ * chega, o evento "emprestimo" é enviado depois do commit da devolução e a
+ * conexão é encerrada; o cliente não precisa consultar o livro repetidamente.
+ */
+@Component
+public class WaitlistEmitters {
+
+	private final long timeoutMillis;
+	private final Map<Long, Set<SseEmitter>> byReservation = new ConcurrentHashMap<>();
+
+	public WaitlistEmitters(@Value("${waitlist.sse-timeout:1800000}") long timeoutMillis, MeterRegistry registry) {
+		this.timeoutMillis = timeoutMillis;
+		Gauge.builder("waitlist.subscribers", byReservation, Map::size).register(registry);
+	}
+
+	public SseEmitter subscribe(Long reservationId) {
+		SseEmitter emitter = new SseEmitter(timeoutMillis);
+		byReservation.computeIfAbsent(reservationId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+		Runnable remove = () -> unsubscribe(reservationId, emitter);
+		emitter.onCompletion(remove);
+		emitter.onTimeout(remove);
+		emitter.onError(ex -> remove.run());
+		return emitter;
+	}
+
+	public void unsubscribe(Long reservationId, SseEmitter emitter) {
+		byReservation.computeIfPresent(reservationId, (id, emitters) -> {
+			emitters.remove(emitter);
+			return emitters.isEmpty() ? null : emitters;
+		});
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onPromoted(ReservationPromotedEvent event) {
+		Set<SseEmitter> emitters = byReservation.remove(event.reservationId());
+		if (emitters == null) {
+			return;
+		}
+		WaitlistResponse payload = WaitlistResponse.builder()
+				.reservation(event.reservationId())
+				.status("EMPRESTADO")
+				.loan(event.loanId())
+				.build();
+		for (SseEmitter emitter : emitters) {
+			try {
+				emitter.send(SseEmitter.event().name("emprestimo").data(payload));
+				emitter.complete();
+			} catch (IOException | IllegalStateException ex) {
+				emitter.completeWithError(ex);
+			}
+		}
+	}
+
+}
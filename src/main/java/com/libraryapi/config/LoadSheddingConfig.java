@@ -0,0 +1,58 @@
+package com.libraryapi.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libraryapi.api.filter.AdaptiveConcurrencyLimiter;
+import com.libraryapi.api.filter.BudgetPolicy;
+import com.libraryapi.api.filter.LoadSheddingFilter;
+import com.libraryapi.api.filter.RequestBudget;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Registra o {@link LoadSheddingFilter} em /api/* com as cotas configuradas em
+ * {@code ratelimit.<read|search|write>.*}. Só as chaves listadas em
+ * {@code ratelimit.api-keys} recebem cota própria; os demais clientes são
+ * identificados pelo IP.
+ */
+@Configuration
+@ConditionalOnProperty(name = "ratelimit.enabled", havingValue = "true")
+public class LoadSheddingConfig {
+
+	@Bean
+	public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilter(Environment env, ObjectMapper mapper,
+			MeterRegistry registry) {
+		Set<String> apiKeys = Set.of(env.getProperty("ratelimit.api-keys", String[].class, new String[0]));
+		int maxClients = env.getProperty("ratelimit.max-clients", Integer.class, 10000);
+		Map<RequestBudget, BudgetPolicy> policies = new EnumMap<>(RequestBudget.class);
+		for (RequestBudget budget : RequestBudget.values()) {
+			String prefix = "ratelimit." + budget.name().toLowerCase() + ".";
+			AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+					env.getProperty(prefix + "min-concurrency", Integer.class, 1),
+					env.getProperty(prefix + "max-concurrency", Integer.class, 20),
+					TimeUnit.MILLISECONDS.toNanos(env.getProperty(prefix + "target-latency", Long.class, 200L)));
+			policies.put(budget, new BudgetPolicy(
+					env.getProperty(prefix + "requests-per-second", Double.class, 50d),
+					env.getProperty(prefix + "burst", Double.class, 100d),
+					maxClients, limiter));
+		}
+
+		FilterRegistrationBean<LoadSheddingFilter> registration =
+				new FilterRegistrationBean<>(new LoadSheddingFilter(policies, apiKeys, mapper, registry));
+		registration.addUrlPatterns("/api/*");
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+		return registration;
+	}
+
+}
@@ -0,0 +1,30 @@
+package com.libraryapi.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import com.libraryapi.api.dto.BookDto;
+import com.libraryapi.api.dto.LoanFilterDto;
+import com.libraryapi.api.dto.ReturnedLoanDto;
+import com.libraryapi.exception.ApiErros;
+
+/**
+ * Registra para a imagem nativa os tipos vinculados por query string ou
+ * serializados pelo tratamento de erros, que o processamento AOT dos
+ * controllers não detecta sozinho.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+	private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+	@Override
+	public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+		bindingRegistrar.registerReflectionHints(hints.reflection(),
+				BookDto.class,
+				LoanFilterDto.class,
+				ReturnedLoanDto.class,
+				ApiErros.class);
+	}
+
+}
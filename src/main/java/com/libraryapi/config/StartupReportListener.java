@@ -0,0 +1,30 @@
+package com.libraryapi.config;
+
+import java.lang.management.ManagementFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registra, ao final da inicialização, quantos beans foram definidos e quantos
+ * já foram instanciados, permitindo acompanhar o efeito da inicialização lazy.
+ */
+@Component
+public class StartupReportListener implements ApplicationListener<ApplicationReadyEvent> {
+
+	private static final Logger log = LoggerFactory.getLogger(StartupReportListener.class);
+
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		ConfigurableListableBeanFactory beanFactory = event.getApplicationContext().getBeanFactory();
+		log.info("Aplicação pronta em {} ms: {} beans definidos, {} instanciados",
+				ManagementFactory.getRuntimeMXBean().getUptime(),
+				beanFactory.getBeanDefinitionCount(),
+				beanFactory.getSingletonCount());
+	}
+
+}
@@ -0,0 +1,31 @@
+package com.libraryapi.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+
+/**
+ * Habilita os spans dos métodos anotados com {@code @Observed} (controllers e
+ * serviços) e, com {@code tracing.logging-exporter=true}, escreve os spans no
+ * log para uso sem coletor. O exportador OTLP é criado pelo Spring Boot quando
+ * {@code management.otlp.tracing.endpoint} está definido.
+ */
+@Configuration
+public class TracingConfig {
+
+	@Bean
+	public ObservedAspect observedAspect(ObservationRegistry registry) {
+		return new ObservedAspect(registry);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "tracing.logging-exporter", havingValue = "true")
+	public LoggingSpanExporter loggingSpanExporter() {
+		return LoggingSpanExporter.create();
+	}
+
+}
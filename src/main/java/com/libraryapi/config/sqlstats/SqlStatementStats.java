@@ -0,0 +1,77 @@
+package com.libraryapi.config.sqlstats;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contagem, tempo total, máximo e histograma de latência de um comando SQL
+ * normalizado. Os buckets são fixos (em ms) para manter o registro sem locks.
+ */
+public class SqlStatementStats {
+
+	static final long[] BUCKETS_MS = { 1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500 };
+
+	private final String sql;
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+	private final LongAdder[] histogram = new LongAdder[BUCKETS_MS.length + 1];
+
+	public SqlStatementStats(String sql) {
+		this.sql = sql;
+		for (int i = 0; i < histogram.length; i++) {
+			histogram[i] = new LongAdder();
+		}
+	}
+
+	public void record(long elapsedNanos) {
+		count.increment();
+		totalNanos.add(elapsedNanos);
+		maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+		histogram[bucket(elapsedNanos)].increment();
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public double getTotalMs() {
+		return totalNanos.sum() / 1e6;
+	}
+
+	public double getMeanMs() {
+		long calls = count.sum();
+		return calls == 0 ? 0 : totalNanos.sum() / 1e6 / calls;
+	}
+
+	public double getMaxMs() {
+		return maxNanos.get() / 1e6;
+	}
+
+	/** Quantidade de execuções por faixa de latência, com chaves "<=Nms" e "+Inf". */
+	public Map<String, Long> getHistogram() {
+		Map<String, Long> buckets = new LinkedHashMap<>();
+		for (int i = 0; i < BUCKETS_MS.length; i++) {
+			buckets.put("<=" + BUCKETS_MS[i] + "ms", histogram[i].sum());
+		}
+		buckets.put("+Inf", histogram[BUCKETS_MS.length].sum());
+		return buckets;
+	}
+
+	private static int bucket(long elapsedNanos) {
+		for (int i = 0; i < BUCKETS_MS.length; i++) {
+			if (elapsedNanos <= TimeUnit.MILLISECONDS.toNanos(BUCKETS_MS[i])) {
+				return i;
+			}
+		}
+		return BUCKETS_MS.length;
+	}
+
+}
@@ -0,0 +1,168 @@
+package com.libraryapi.config.sqlstats;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * Listener do datasource-proxy que agrega as estatísticas por comando SQL
+ * normalizado, guarda os últimos comandos lentos com seus parâmetros e, dentro
+ * de uma requisição HTTP, aponta SELECTs repetidos (padrão N+1).
+ */
+public class SqlStatsCollector implements QueryExecutionListener {
+
+	private static final Logger log = LoggerFactory.getLogger(SqlStatsCollector.class);
+
+	private static final String START = SqlStatsCollector.class.getName() + ".start";
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])\\d+(?:\\.\\d+)?\\b");
+	private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+	private final long slowThresholdNanos;
+	private final int nPlusOneThreshold;
+	private final int historySize;
+	private final Map<String, SqlStatementStats> statements = new ConcurrentHashMap<>();
+	private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+	private final Deque<NPlusOne> nPlusOneSuspects = new ArrayDeque<>();
+	private final ThreadLocal<Map<String, Integer>> requestSelects = new ThreadLocal<>();
+
+	public SqlStatsCollector(long slowThresholdMs, int nPlusOneThreshold, int historySize) {
+		this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+		this.nPlusOneThreshold = nPlusOneThreshold;
+		this.historySize = historySize;
+	}
+
+	@Override
+	public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		execInfo.addCustomValue(START, System.nanoTime());
+	}
+
+	@Override
+	public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		Long start = execInfo.getCustomValue(START, Long.class);
+		long elapsed = start != null
+				? System.nanoTime() - start
+				: TimeUnit.MILLISECONDS.toNanos(execInfo.getElapsedTime());
+		for (QueryInfo query : queryInfoList) {
+			String sql = normalize(query.getQuery());
+			statements.computeIfAbsent(sql, SqlStatementStats::new).record(elapsed);
+			if (elapsed >= slowThresholdNanos) {
+				registerSlowQuery(query, sql, elapsed);
+			}
+			Map<String, Integer> selects = requestSelects.get();
+			if (selects != null && sql.regionMatches(true, 0, "select", 0, 6)) {
+				selects.merge(sql, 1, Integer::sum);
+			}
+		}
+	}
+
+	/** Inicia a contagem de SELECTs da requisição atual. */
+	public void beginRequest() {
+		requestSelects.set(new HashMap<>());
+	}
+
+	/** Encerra a requisição e registra os SELECTs repetidos acima do limite. */
+	public void endRequest(String request) {
+		Map<String, Integer> selects = requestSelects.get();
+		requestSelects.remove();
+		if (selects == null) {
+			return;
+		}
+		selects.forEach((sql, executions) -> {
+			if (executions >= nPlusOneThreshold) {
+				log.warn("Possível N+1 em {}: {} execuções de {}", request, executions, sql);
+				append(nPlusOneSuspects, new NPlusOne(request, sql, executions, LocalDateTime.now()));
+			}
+		});
+	}
+
+	public Collection<SqlStatementStats> getStatements() {
+		return statements.values();
+	}
+
+	public List<SlowQuery> getSlowQueries() {
+		return snapshot(slowQueries);
+	}
+
+	public List<NPlusOne> getNPlusOneSuspects() {
+		return snapshot(nPlusOneSuspects);
+	}
+
+	public void reset() {
+		statements.clear();
+		synchronized (slowQueries) {
+			slowQueries.clear();
+		}
+		synchronized (nPlusOneSuspects) {
+			nPlusOneSuspects.clear();
+		}
+	}
+
+	/**
+	 * Agrupa comandos que diferem apenas em literais, espaços ou na quantidade
+	 * de parâmetros de uma lista IN.
+	 */
+	static String normalize(String sql) {
+		String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+		normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+		normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+		return IN_LIST.matcher(normalized).replaceAll("(?...)");
+	}
+
+	private void registerSlowQuery(QueryInfo query, String sql, long elapsed) {
+		List<List<Object>> parameters = query.getParametersList().stream()
+				.map(SqlStatsCollector::parameterValues)
+				.collect(Collectors.toList());
+		double elapsedMs = elapsed / 1e6;
+		log.warn("Comando SQL lento ({} ms): {} parâmetros={}", elapsedMs, sql, parameters);
+		append(slowQueries, new SlowQuery(sql, parameters, elapsedMs, LocalDateTime.now()));
+	}
+
+	private static List<Object> parameterValues(List<ParameterSetOperation> operations) {
+		return operations.stream()
+				.map(ParameterSetOperation::getArgs)
+				.map(args -> args.length > 1 ? String.valueOf(args[1]) : Arrays.toString(args))
+				.collect(Collectors.toList());
+	}
+
+	private <T> void append(Deque<T> history, T entry) {
+		synchronized (history) {
+			if (history.size() >= historySize) {
+				history.removeFirst();
+			}
+			history.addLast(entry);
+		}
+	}
+
+	private static <T> List<T> snapshot(Deque<T> history) {
+		synchronized (history) {
+			return new ArrayList<>(history);
+		}
+	}
+
+	public record SlowQuery(String sql, List<List<Object>> parameters, double elapsedMs, LocalDateTime executedAt) {
+	}
+
+	public record NPlusOne(String request, String sql, int executions, LocalDateTime detectedAt) {
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.libraryapi.config.sqlstats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Ativa a coleta de estatísticas SQL com {@code sqlstats.enabled=true}. O
+ * coletor é registrado como listener do datasource-proxy; desabilitado, nenhum
+ * bean é criado e não há custo por comando.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sqlstats.enabled", havingValue = "true")
+public class SqlStatsConfig {
+
+	@Bean
+	public SqlStatsCollector sqlStatsCollector(@Value("${sqlstats.slow-threshold:200}") long slowThresholdMs,
+			@Value("${sqlstats.n-plus-one-threshold:5}") int nPlusOneThreshold,
+			@Value("${sqlstats.history-size:100}") int historySize) {
+		return new SqlStatsCollector(slowThresholdMs, nPlusOneThreshold, historySize);
+	}
+
+	@Bean
+	public SqlStatsEndpoint sqlStatsEndpoint(SqlStatsCollector collector) {
+		return new SqlStatsEndpoint(collector);
+	}
+
+	@Bean
+	public FilterRegistrationBean<SqlStatsRequestFilter> sqlStatsRequestFilter(SqlStatsCollector collector) {
+		FilterRegistrationBean<SqlStatsRequestFilter> registration =
+				new FilterRegistrationBean<>(new SqlStatsRequestFilter(collector));
+		registration.addUrlPatterns("/api/*");
+		return registration;
+	}
+
+}
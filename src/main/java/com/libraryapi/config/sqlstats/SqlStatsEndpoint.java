@@ -0,0 +1,43 @@
+package com.libraryapi.config.sqlstats;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * {@code /actuator/sqlstats}: comandos SQL ordenados pelo tempo total, últimos
+ * comandos lentos e suspeitas de N+1. {@code DELETE} zera as estatísticas.
+ */
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+	private final SqlStatsCollector collector;
+
+	public SqlStatsEndpoint(SqlStatsCollector collector) {
+		this.collector = collector;
+	}
+
+	@ReadOperation
+	public Map<String, Object> sqlStats() {
+		List<SqlStatementStats> statements = collector.getStatements().stream()
+				.sorted(Comparator.comparingDouble(SqlStatementStats::getTotalMs).reversed())
+				.collect(Collectors.toList());
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("statements", statements);
+		stats.put("slowQueries", collector.getSlowQueries());
+		stats.put("nPlusOne", collector.getNPlusOneSuspects());
+		return stats;
+	}
+
+	@DeleteOperation
+	public void reset() {
+		collector.reset();
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.libraryapi.config.sqlstats;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/** Delimita cada requisição da API para a detecção de N+1 do {@link SqlStatsCollector}. */
+public class SqlStatsRequestFilter extends OncePerRequestFilter {
+
+	private final SqlStatsCollector collector;
+
+	public SqlStatsRequestFilter(SqlStatsCollector collector) {
+		this.collector = collector;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		collector.beginRequest();
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			collector.endRequest(request.getMethod() + " " + request.getRequestURI());
+		}
+	}
+
+}
@@ -24,6 +24,10 @@ public class ApiErros {
     public ApiErros(ResponseStatusException ex) {
         this.errors = Arrays.asList(ex.getReason());
     }
+    
+    public ApiErros(String message) {
+        this.errors = Arrays.asList(message);
+    }
 	
 	public List<String> getErrors(){
 		return errors;
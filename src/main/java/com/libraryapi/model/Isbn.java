@@ -0,0 +1,100 @@
+package com.libraryapi.model;
+
+import java.util.OptionalLong;
+
+/**
+ * Normalização de ISBN: aceita ISBN-10 ou ISBN-13 com ou sem hífens e espaços,
+ * valida o dígito verificador e converte ISBN-10 para ISBN-13. A chave é o
+ * ISBN-13 como número, que cabe em um {@code bigint}.
+ */
+public final class Isbn {
+
+	private static final long PREFIX_978 = 978_000_000_000_0L;
+
+	private Isbn() {
+	}
+
+	/** Chave numérica do ISBN; vazio quando o valor não é um ISBN válido. */
+	public static OptionalLong toKey(String value) {
+		if (value == null) {
+			return OptionalLong.empty();
+		}
+		int[] digits = new int[13];
+		int length = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '-' || c == ' ') {
+				continue;
+			}
+			if (length == 13) {
+				return OptionalLong.empty();
+			}
+			if (c >= '0' && c <= '9') {
+				digits[length++] = c - '0';
+			} else if ((c == 'X' || c == 'x') && length == 9) {
+				// X (10) só é válido como dígito verificador do ISBN-10
+				digits[length++] = 10;
+			} else {
+				return OptionalLong.empty();
+			}
+		}
+		if (length == 10) {
+			return fromIsbn10(digits);
+		}
+		if (length == 13 && digits[9] != 10) {
+			return fromIsbn13(digits);
+		}
+		return OptionalLong.empty();
+	}
+
+	public static boolean isValid(String value) {
+		return toKey(value).isPresent();
+	}
+
+	/** ISBN-13 sem hífens correspondente à chave. */
+	public static String format(long key) {
+		return Long.toString(key);
+	}
+
+	private static OptionalLong fromIsbn10(int[] digits) {
+		int sum = 0;
+		long body = 0;
+		for (int i = 0; i < 10; i++) {
+			sum += (10 - i) * digits[i];
+			if (i < 9) {
+				body = body * 10 + digits[i];
+			}
+		}
+		if (sum % 11 != 0) {
+			return OptionalLong.empty();
+		}
+		long withoutCheck = PREFIX_978 + body * 10;
+		return OptionalLong.of(withoutCheck + isbn13CheckDigit(withoutCheck / 10));
+	}
+
+	private static OptionalLong fromIsbn13(int[] digits) {
+		int sum = 0;
+		long key = 0;
+		for (int i = 0; i < 13; i++) {
+			sum += digits[i] * (i % 2 == 0 ? 1 : 3);
+			key = key * 10 + digits[i];
+		}
+		long prefix = key / 10_000_000_000L;
+		if (sum % 10 != 0 || (prefix != 978 && prefix != 979)) {
+			return OptionalLong.empty();
+		}
+		return OptionalLong.of(key);
+	}
+
+	/** Dígito verificador dos 12 primeiros dígitos do ISBN-13. */
+	private static int isbn13CheckDigit(long first12) {
+		int sum = 0;
+		for (int i = 11; i >= 0; i--) {
+			int digit = (int) (first12 % 10);
+			first12 /= 10;
+			sum += digit * (i % 2 == 0 ? 1 : 3);
+		}
+		return (10 - sum % 10) % 10;
+	}
+
+}
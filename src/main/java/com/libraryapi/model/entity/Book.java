@@ -8,16 +8,21 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity(name = "book")
+@Table(name = "book", uniqueConstraints = @UniqueConstraint(name = "uk_book_isbn_key", columnNames = "isbn_key"))
 public class Book {
 
     @Id
@@ -34,7 +39,39 @@ public class Book {
     @Column
     private String isbn;
 
+    /** ISBN-13 normalizado como número (ver {@link com.libraryapi.model.Isbn}); usado nas consultas por ISBN. */
+    @Column
+    private Long isbnKey;
+
+    /** Exemplares do acervo. */
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    private Integer copies = 1;
+
+    /**
+     * Exemplares livres; alterado apenas pelos comandos condicionais de
+     * {@link com.libraryapi.model.repository.BookWriteRepository}.
+     */
+    @Builder.Default
+    @Column(nullable = false, updatable = false)
+    private Integer availableCopies = 1;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @OneToMany(mappedBy = "book")
     private List<Loan> loans;
+
+    /** Cópia com as colunas do livro e sem os empréstimos, para compartilhar fora da sessão que o carregou. */
+    public Book detachedCopy() {
+        return Book.builder()
+                .id(id)
+                .title(title)
+                .author(author)
+                .isbn(isbn)
+                .isbnKey(isbnKey)
+                .copies(copies)
+                .availableCopies(availableCopies)
+                .build();
+    }
 	
 }
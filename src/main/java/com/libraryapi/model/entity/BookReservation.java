@@ -0,0 +1,48 @@
+package com.libraryapi.model.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Lugar na fila de espera de um livro; recebe o empréstimo ao chegar a vez do cliente. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "book_reservation")
+public class BookReservation {
+
+    @Id
+    @Column
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JoinColumn(name = "id_book", nullable = false)
+    @ManyToOne
+    private Book book;
+
+    @JoinColumn(name = "id_customer", nullable = false)
+    @ManyToOne
+    private Customer customer;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @JoinColumn(name = "id_loan")
+    @OneToOne
+    private Loan loan;
+
+}
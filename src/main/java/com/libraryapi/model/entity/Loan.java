@@ -23,11 +23,9 @@ public class Loan {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(length = 100)
-    private String customer;
-
-    @Column(name = "customer_email")
-    private String customerEmail;
+    @JoinColumn(name = "id_customer")
+    @ManyToOne
+    private Customer customer;
 
     @JoinColumn(name = "id_book")
     @ManyToOne
@@ -38,5 +36,8 @@ public class Loan {
 
     @Column
     private Boolean returned;
+
+    @Column(length = 36, unique = true)
+    private String reference;
 	
 }
@@ -0,0 +1,38 @@
+package com.libraryapi.model.entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.*;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "loan_archive")
+public class LoanArchive {
+
+    @Id
+    @Column
+    private Long id;
+
+    @Column(name = "id_customer")
+    private Long customerId;
+
+    @Column(name = "id_book")
+    private Long bookId;
+
+    @Column
+    private LocalDate loanDate;
+
+    @Column
+    private Boolean returned;
+
+    @Column
+    private LocalDate archivedAt;
+
+}
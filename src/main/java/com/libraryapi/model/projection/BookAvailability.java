@@ -0,0 +1,10 @@
+package com.libraryapi.model.projection;
+
+public interface BookAvailability {
+
+	Long getId();
+	String getIsbn();
+	Long getOpenLoans();
+	Integer getAvailableCopies();
+
+}
@@ -0,0 +1,10 @@
+package com.libraryapi.model.projection;
+
+public interface BookSummary {
+
+	Long getId();
+	String getTitle();
+	String getAuthor();
+	String getIsbn();
+
+}
@@ -1,16 +1,41 @@
 package com.libraryapi.model.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.projection.BookAvailability;
+import com.libraryapi.model.projection.BookSummary;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long>{
+public interface BookRepository extends JpaRepository<Book, Long>, BookWriteRepository {
+
+	boolean existsByIsbnKey(Long isbnKey);
+	Optional<Book> findByIsbnKey(Long isbnKey);
+	List<Book> findByIsbnKeyIn(Collection<Long> isbnKeys);
+
+	@Query("SELECT b.id AS id, b.isbn AS isbn, CAST(b.copies - b.availableCopies AS Long) AS openLoans, " +
+			" b.availableCopies AS availableCopies FROM book b WHERE b.id IN :ids OR b.isbnKey IN :isbnKeys")
+	List<BookAvailability> findAvailability(@Param("ids") Collection<Long> ids, @Param("isbnKeys") Collection<Long> isbnKeys);
+
+	@Query("SELECT b.availableCopies FROM book b WHERE b.id = :id")
+	Optional<Integer> findAvailableCopies(@Param("id") Long id);
+
+	@Query("SELECT b.id FROM book b WHERE b.availableCopies = 0")
+	List<Long> findBookIdsWithoutAvailableCopies();
 
-	boolean existsByIsbn(String isbn);
-	Optional<Book> findByIsbn(String isbn);
+	@Query("SELECT b.id AS id, b.title AS title, b.author AS author, b.isbn AS isbn FROM book b")
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+	Stream<BookSummary> streamSummaries();
 
 }
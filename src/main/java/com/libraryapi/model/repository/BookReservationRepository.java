@@ -0,0 +1,28 @@
+package com.libraryapi.model.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.libraryapi.model.entity.BookReservation;
+
+@Repository
+public interface BookReservationRepository extends JpaRepository<BookReservation, Long> {
+
+	Optional<BookReservation> findFirstByBookIdAndLoanIsNullOrderByCreatedAtAscIdAsc(Long bookId);
+
+	boolean existsByBookIdAndCustomerIdAndLoanIsNull(Long bookId, Long customerId);
+
+	@Query("SELECT COUNT(r) FROM BookReservation r WHERE r.book.id = :bookId AND r.loan IS NULL " +
+			" AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id))")
+	long countAhead(@Param("bookId") Long bookId, @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id);
+
+	@Query("SELECT DISTINCT r.book.id FROM BookReservation r WHERE r.loan IS NULL")
+	List<Long> findBookIdsWithWaitlist();
+
+}
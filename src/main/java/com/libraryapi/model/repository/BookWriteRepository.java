@@ -0,0 +1,38 @@
+package com.libraryapi.model.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import com.libraryapi.model.entity.Book;
+
+/**
+ * Escritas de livro em um único comando SQL, sem consulta prévia: a unicidade do
+ * ISBN fica a cargo do índice único {@code uk_book_isbn_key} e o controle de
+ * exemplares livres, da condição do próprio {@code UPDATE}.
+ */
+public interface BookWriteRepository {
+
+	/** Insere o livro; vazio quando o ISBN já está cadastrado. */
+	Optional<Book> insertIfAbsent(Book book);
+
+	/** Atualiza título e autor; vazio quando o livro não existe. */
+	Optional<Book> updateDetails(Long id, String title, String author);
+
+	/** Retira um exemplar livre; devolve quantos restam, vazio quando não há exemplar livre. */
+	OptionalInt takeCopy(Long id);
+
+	/** Retira um exemplar livre de cada livro; devolve quantos restam nos livros atendidos, por id. */
+	Map<Long, Integer> takeCopies(Collection<Long> ids);
+
+	/**
+	 * Retira de cada livro a quantidade de exemplares indicada, tudo ou nada por
+	 * livro; devolve quantos restam nos livros atendidos, por id.
+	 */
+	Map<Long, Integer> takeCopies(Map<Long, Integer> countByBook);
+
+	/** Devolve um exemplar; devolve quantos ficam livres, vazio quando todos já estavam livres. */
+	OptionalInt returnCopy(Long id);
+
+}
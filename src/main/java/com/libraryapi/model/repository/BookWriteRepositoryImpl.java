@@ -0,0 +1,142 @@
+package com.libraryapi.model.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.libraryapi.model.entity.Book;
+
+/**
+ * No PostgreSQL usa {@code INSERT ... ON CONFLICT (isbn_key) DO NOTHING RETURNING} e
+ * {@code UPDATE ... RETURNING}. O H2 dos testes não aceita essas formas; nele as
+ * mesmas escritas são feitas com {@code SELECT ... FROM FINAL TABLE (...)}, também
+ * em um único comando. Os exemplares livres são retirados e devolvidos por
+ * {@code UPDATE} condicional: a linha fica bloqueada até o fim da transação e a
+ * condição é reavaliada sobre o valor confirmado, de modo que empréstimos
+ * concorrentes nunca levam o contador abaixo de zero.
+ */
+public class BookWriteRepositoryImpl implements BookWriteRepository {
+
+	private static final String INSERT_POSTGRES = "INSERT INTO book (title, author, isbn, isbn_key, copies, available_copies) "
+			+ "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (isbn_key) DO NOTHING RETURNING id";
+	private static final String INSERT_STANDARD = "SELECT id FROM FINAL TABLE ("
+			+ "INSERT INTO book (title, author, isbn, isbn_key, copies, available_copies) VALUES (?, ?, ?, ?, ?, ?))";
+	private static final String UPDATE_POSTGRES = "UPDATE book SET title = ?, author = ? WHERE id = ? "
+			+ "RETURNING id, title, author, isbn, isbn_key, copies, available_copies";
+	private static final String UPDATE_STANDARD = "SELECT id, title, author, isbn, isbn_key, copies, available_copies "
+			+ "FROM FINAL TABLE (UPDATE book SET title = ?, author = ? WHERE id = ?)";
+	private static final String TAKE_COPIES = "UPDATE book SET available_copies = available_copies - ? "
+			+ "WHERE id IN (%s) AND available_copies >= ?";
+	private static final String RETURN_COPY = "UPDATE book SET available_copies = available_copies + 1 "
+			+ "WHERE id = ? AND available_copies < copies";
+
+	private static final RowMapper<Book> BOOK_MAPPER = (rs, rowNum) -> Book.builder()
+			.id(rs.getLong("id"))
+			.title(rs.getString("title"))
+			.author(rs.getString("author"))
+			.isbn(rs.getString("isbn"))
+			.isbnKey(rs.getObject("isbn_key", Long.class))
+			.copies(rs.getInt("copies"))
+			.availableCopies(rs.getInt("available_copies"))
+			.build();
+
+	private final JdbcTemplate jdbcTemplate;
+	private volatile Boolean postgres;
+
+	public BookWriteRepositoryImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public Optional<Book> insertIfAbsent(Book book) {
+		List<Long> ids;
+		try {
+			ids = jdbcTemplate.queryForList(isPostgres() ? INSERT_POSTGRES : INSERT_STANDARD, Long.class,
+					book.getTitle(), book.getAuthor(), book.getIsbn(), book.getIsbnKey(), book.getCopies(),
+					book.getCopies());
+		} catch (DuplicateKeyException ex) {
+			return Optional.empty();
+		}
+		return ids.stream().findFirst().map(id -> Book.builder()
+				.id(id)
+				.title(book.getTitle())
+				.author(book.getAuthor())
+				.isbn(book.getIsbn())
+				.isbnKey(book.getIsbnKey())
+				.copies(book.getCopies())
+				.availableCopies(book.getCopies())
+				.build());
+	}
+
+	@Override
+	public Optional<Book> updateDetails(Long id, String title, String author) {
+		return jdbcTemplate.query(isPostgres() ? UPDATE_POSTGRES : UPDATE_STANDARD, BOOK_MAPPER, title, author, id)
+				.stream().findFirst();
+	}
+
+	@Override
+	public OptionalInt takeCopy(Long id) {
+		Integer remaining = takeCopies(List.of(id)).get(id);
+		return remaining == null ? OptionalInt.empty() : OptionalInt.of(remaining);
+	}
+
+	@Override
+	public Map<Long, Integer> takeCopies(Collection<Long> ids) {
+		Map<Long, Integer> countByBook = new HashMap<>();
+		ids.forEach(id -> countByBook.put(id, 1));
+		return takeCopies(countByBook);
+	}
+
+	/** Um comando por quantidade distinta: em geral só uma, um exemplar de cada livro. */
+	@Override
+	public Map<Long, Integer> takeCopies(Map<Long, Integer> countByBook) {
+		Map<Integer, List<Long>> idsByCount = new TreeMap<>();
+		countByBook.forEach((id, count) -> idsByCount.computeIfAbsent(count, key -> new ArrayList<>()).add(id));
+		Map<Long, Integer> remaining = new HashMap<>();
+		idsByCount.forEach((count, ids) -> {
+			String update = String.format(TAKE_COPIES, String.join(", ", Collections.nCopies(ids.size(), "?")));
+			List<Object> args = new ArrayList<>(ids.size() + 2);
+			args.add(count);
+			args.addAll(ids);
+			args.add(count);
+			jdbcTemplate.query(returning(update, "id, available_copies"), (RowCallbackHandler) rs -> {
+				remaining.put(rs.getLong("id"), rs.getInt("available_copies"));
+			}, args.toArray());
+		});
+		return remaining;
+	}
+
+	@Override
+	public OptionalInt returnCopy(Long id) {
+		return jdbcTemplate.queryForList(returning(RETURN_COPY, "available_copies"), Integer.class, id)
+				.stream().mapToInt(Integer::intValue).findFirst();
+	}
+
+	private String returning(String update, String columns) {
+		return isPostgres() ? update + " RETURNING " + columns
+				: "SELECT " + columns + " FROM FINAL TABLE (" + update + ")";
+	}
+
+	private boolean isPostgres() {
+		Boolean current = postgres;
+		if (current == null) {
+			current = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+					"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()));
+			postgres = current;
+		}
+		return current;
+	}
+
+}
@@ -0,0 +1,15 @@
+package com.libraryapi.model.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.libraryapi.model.entity.Customer;
+
+@Repository
+public interface CustomerRepository extends JpaRepository<Customer, Long>{
+
+	Optional<Customer> findByEmail(String email);
+
+}
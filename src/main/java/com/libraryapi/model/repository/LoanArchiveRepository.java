@@ -0,0 +1,22 @@
+package com.libraryapi.model.repository;
+
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.libraryapi.model.entity.LoanArchive;
+
+@Repository
+public interface LoanArchiveRepository extends JpaRepository<LoanArchive, Long>{
+
+    @Modifying
+    @Query("INSERT INTO LoanArchive (id, customerId, bookId, loanDate, returned, archivedAt) " +
+            " SELECT l.id, l.customer.id, l.book.id, l.loanDate, l.returned, CURRENT_DATE " +
+            " FROM Loan l WHERE l.returned is true AND l.loanDate < :before")
+    int copyReturnedLoansBefore(@Param("before") LocalDate before);
+
+}
@@ -0,0 +1,22 @@
+package com.libraryapi.model.repository;
+
+import java.util.List;
+
+import com.libraryapi.model.entity.Loan;
+
+/**
+ * Escritas de empréstimo em JDBC: inclusão em lote, em um único comando em
+ * batch, e mudança de situação condicional ao estado gravado.
+ */
+public interface LoanWriteRepository {
+
+	/** Insere os empréstimos e devolve os ids gerados, na mesma ordem. */
+	List<Long> insertAll(List<Loan> loans);
+
+	/**
+	 * Marca o empréstimo como devolvido ou reaberto; falso quando ele já estava
+	 * nessa situação, para que o exemplar seja devolvido ou retirado uma única vez.
+	 */
+	boolean updateReturned(Long id, boolean returned);
+
+}
@@ -0,0 +1,72 @@
+package com.libraryapi.model.repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import com.libraryapi.model.entity.Loan;
+
+public class LoanWriteRepositoryImpl implements LoanWriteRepository {
+
+	private static final String INSERT = "INSERT INTO loan (id_customer, id_book, loan_date, returned, reference) "
+			+ "VALUES (?, ?, ?, ?, ?)";
+	private static final String MARK_RETURNED = "UPDATE loan SET returned = true "
+			+ "WHERE id = ? AND (returned IS NULL OR returned = false)";
+	private static final String MARK_OPEN = "UPDATE loan SET returned = false WHERE id = ? AND returned = true";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public LoanWriteRepositoryImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public List<Long> insertAll(List<Loan> loans) {
+		if (loans.isEmpty()) {
+			return Collections.emptyList();
+		}
+		KeyHolder keys = new GeneratedKeyHolder();
+		jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT, new String[] { "id" }),
+				new BatchPreparedStatementSetter() {
+
+					@Override
+					public void setValues(PreparedStatement statement, int i) throws SQLException {
+						Loan loan = loans.get(i);
+						statement.setLong(1, loan.getCustomer().getId());
+						statement.setLong(2, loan.getBook().getId());
+						statement.setDate(3, Date.valueOf(loan.getLoanDate()));
+						if (loan.getReturned() == null) {
+							statement.setNull(4, Types.BOOLEAN);
+						} else {
+							statement.setBoolean(4, loan.getReturned());
+						}
+						statement.setString(5, loan.getReference());
+					}
+
+					@Override
+					public int getBatchSize() {
+						return loans.size();
+					}
+
+				}, keys);
+		return keys.getKeyList().stream()
+				.map(Map::values)
+				.map(values -> ((Number) values.iterator().next()).longValue())
+				.toList();
+	}
+
+	@Override
+	public boolean updateReturned(Long id, boolean returned) {
+		return jdbcTemplate.update(returned ? MARK_RETURNED : MARK_OPEN, id) == 1;
+	}
+
+}
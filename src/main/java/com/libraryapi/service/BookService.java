@@ -4,7 +4,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.projection.BookAvailability;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface BookService {
@@ -12,8 +15,11 @@ public interface BookService {
 	Book save(Book any);
 	Optional<Book> getById(Long id);
 	void delete(Book book);
-	Book update(Book book);
+	Optional<Book> update(Book book);
     Page<Book> find(Book filter, Pageable pageRequest);
     Optional<Book> getBookByIsbn(String isbn);
+    List<Book> getBooksByIsbn(Collection<String> isbns);
+    List<BookAvailability> getAvailability(List<Long> ids, List<String> isbns);
+    List<Book> suggest(String query, int limit);
 
 }
@@ -0,0 +1,9 @@
+package com.libraryapi.service;
+
+import com.libraryapi.model.entity.Customer;
+
+public interface CustomerService {
+
+	Customer getOrCreate(String name, String email);
+
+}
@@ -1,5 +1,6 @@
 package com.libraryapi.service;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,15 +9,22 @@ import org.springframework.data.domain.Pageable;
 
 import com.libraryapi.api.dto.LoanFilterDto;
 import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.Customer;
 import com.libraryapi.model.entity.Loan;
 
 public interface LoanService {
 	
 	Loan save(Loan loan);
+	/** Salva em uma transação os empréstimos de livros disponíveis; devolve só os salvos. */
+	List<Loan> saveAll(List<Loan> loans);
     Optional<Loan> getById(Long id);
+    Optional<Loan> getByReference(String reference);
     Loan update(Loan loan);
     Page<Loan> find(LoanFilterDto filterDTO, Pageable pageable);
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
     List<Loan> getAllLateLoans();
+    List<Customer> getCustomersWithLateLoans();
+    Optional<Boolean> isBookAvailable(Long bookId);
+    int archiveReturnedLoans(LocalDate before);
 
 }
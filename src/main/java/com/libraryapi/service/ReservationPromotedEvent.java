@@ -0,0 +1,5 @@
+package com.libraryapi.service;
+
+/** Publicado quando a vez de uma reserva chega e o empréstimo é criado para o cliente. */
+public record ReservationPromotedEvent(Long reservationId, Long loanId, Long bookId) {
+}
@@ -0,0 +1,22 @@
+package com.libraryapi.service;
+
+import java.util.Optional;
+
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.BookReservation;
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.model.entity.Loan;
+
+public interface ReservationService {
+
+	BookReservation reserve(Book book, Customer customer);
+	Optional<BookReservation> getById(Long id);
+	/** Quantas reservas estão à frente na fila do livro. */
+	long position(BookReservation reservation);
+	/**
+	 * Empresta o exemplar devolvido ao próximo da fila, sem que ele volte aos
+	 * exemplares livres; deve rodar na transação da devolução.
+	 */
+	Optional<Loan> promoteNext(Book book);
+
+}
@@ -1,5 +1,6 @@
 package com.libraryapi.service;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -10,17 +11,21 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import com.libraryapi.model.entity.Loan;
+import com.libraryapi.model.entity.Customer;
 
 @Service
 public class ScheduleService {
 	
-	private static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
-	
 	private static final Logger log = LoggerFactory.getLogger(ScheduleService.class);
 	
     @Value("${lateloans.message}")
 	private String message;
+
+    @Value("${loanarchive.enabled:false}")
+    private boolean archiveEnabled;
+
+    @Value("${loanarchive.retention-months:12}")
+    private int archiveRetentionMonths;
 	
     @Autowired
     private LoanService loanService;
@@ -28,15 +33,26 @@ public class ScheduleService {
     @Autowired
     private EmailService emailService;
 
-    @Scheduled(cron = CRON_LATE_LOANS)
+    @Scheduled(cron = "${lateloans.cron:0 0 0 1/1 * ?}")
     public void sendMailToLateLoans(){
     	log.info("Iniciando scheduled...");
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> mailsList = allLateLoans.stream()
-                .map(loan -> loan.getCustomerEmail())
+        List<Customer> lateCustomers = loanService.getCustomersWithLateLoans();
+        List<String> mailsList = lateCustomers.stream()
+                .map(Customer::getEmail)
                 .collect(Collectors.toList());
 
         emailService.sendMails(message, mailsList);
     }
 
+    @Scheduled(cron = "${loanarchive.cron:0 30 0 1/1 * ?}")
+    public void archiveReturnedLoans(){
+    	if (!archiveEnabled) {
+    		return;
+    	}
+    	LocalDate before = LocalDate.now().minusMonths(archiveRetentionMonths);
+    	log.info("Arquivando empréstimos devolvidos anteriores a {}...", before);
+    	int archived = loanService.archiveReturnedLoans(before);
+    	log.info("{} empréstimos arquivados.", archived);
+    }
+
 }
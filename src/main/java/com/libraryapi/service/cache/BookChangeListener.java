@@ -0,0 +1,211 @@
+package com.libraryapi.service.cache;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.libraryapi.service.index.BookSuggestIndex;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Invalidação dos caches de livros entre instâncias pelo próprio PostgreSQL: o
+ * gatilho da migração V6 avisa cada alteração em book no canal book_changes e
+ * esta classe mantém uma conexão dedicada escutando o canal. A cada aviso o
+ * cache da busca é esvaziado e o livro é relido no índice de sugestões.
+ * Avisos só se perdem com a conexão fora do ar; por isso, ao reconectar, e
+ * quando a versão em book_change_version (V9) segue à frente do último aviso
+ * recebido por duas verificações seguidas, os caches são refeitos por inteiro.
+ * A versão é desfeita junto com um rollback, então só avança com avisos que
+ * de fato saem.
+ */
+@Component
+public class BookChangeListener {
+
+	private static final Logger log = LoggerFactory.getLogger(BookChangeListener.class);
+
+	static final String CHANNEL = "book_changes";
+	private static final int POLL_MILLIS = 500;
+	private static final long RETRY_DELAY_MS = 1000;
+
+	private final DataSourceProperties dataSource;
+	private final BookSearchCache searchCache;
+	private final BookSuggestIndex suggestIndex;
+	private final boolean enabled;
+	private final long checkIntervalMillis;
+	private final Counter received;
+	private final Counter resyncs;
+
+	private volatile boolean running;
+	private volatile boolean listening;
+	private Thread worker;
+	private long lastSeen;
+	private long suspectedGap;
+
+	public BookChangeListener(DataSourceProperties dataSource, BookSearchCache searchCache,
+			BookSuggestIndex suggestIndex, MeterRegistry registry,
+			@Value("${invalidation.enabled:false}") boolean enabled,
+			@Value("${invalidation.check-interval:5000}") long checkIntervalMillis) {
+		this.dataSource = dataSource;
+		this.searchCache = searchCache;
+		this.suggestIndex = suggestIndex;
+		this.enabled = enabled;
+		this.checkIntervalMillis = checkIntervalMillis;
+		this.received = Counter.builder("book.changes").tag("source", "notify").register(registry);
+		this.resyncs = Counter.builder("book.changes").tag("source", "resync").register(registry);
+	}
+
+	/** Indica se a conexão de escuta está ativa. */
+	public boolean isListening() {
+		return listening;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!enabled) {
+			return;
+		}
+		String url = dataSource.determineUrl();
+		if (url == null || !url.startsWith("jdbc:postgresql:")) {
+			log.warn("Invalidação por LISTEN/NOTIFY requer PostgreSQL; desligada para {}", url);
+			return;
+		}
+		running = true;
+		worker = new Thread(this::listen, "book-change-listener");
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		if (worker != null) {
+			worker.join();
+		}
+	}
+
+	private void listen() {
+		boolean reconnecting = false;
+		while (running) {
+			try (Connection connection = DriverManager.getConnection(dataSource.determineUrl(),
+					dataSource.determineUsername(), dataSource.determinePassword())) {
+				try (Statement statement = connection.createStatement()) {
+					statement.execute("LISTEN " + CHANNEL);
+				}
+				long current = currentVersion(connection);
+				if (reconnecting) {
+					resync(current);
+				} else {
+					lastSeen = current;
+				}
+				listening = true;
+				log.info("Escutando alterações de livros no canal {} (versão {})", CHANNEL, current);
+
+				PGConnection pgConnection = connection.unwrap(PGConnection.class);
+				long nextCheck = System.currentTimeMillis() + checkIntervalMillis;
+				while (running) {
+					PGNotification[] notifications = pgConnection.getNotifications(POLL_MILLIS);
+					if (notifications != null && notifications.length > 0) {
+						String[] payloads = new String[notifications.length];
+						for (int i = 0; i < notifications.length; i++) {
+							payloads[i] = notifications[i].getParameter();
+						}
+						apply(payloads);
+					}
+					if (System.currentTimeMillis() >= nextCheck) {
+						checkVersion(currentVersion(connection));
+						nextCheck = System.currentTimeMillis() + checkIntervalMillis;
+					}
+				}
+			} catch (SQLException | RuntimeException ex) {
+				listening = false;
+				reconnecting = true;
+				if (!running) {
+					return;
+				}
+				log.warn("Conexão de escuta de livros perdida ({}), nova tentativa em {} ms", ex.getMessage(),
+						RETRY_DELAY_MS);
+				try {
+					Thread.sleep(RETRY_DELAY_MS);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+		listening = false;
+	}
+
+	/** Aplica um lote de avisos no formato "sequência:operação:id". */
+	void apply(String[] payloads) {
+		searchCache.invalidate();
+		for (String payload : payloads) {
+			String[] parts = payload.split(":");
+			if (parts.length != 3) {
+				log.warn("Aviso de alteração de livro ignorado: {}", payload);
+				continue;
+			}
+			lastSeen = Math.max(lastSeen, Long.parseLong(parts[0]));
+			Long bookId = Long.valueOf(parts[2]);
+			if ("D".equals(parts[1])) {
+				suggestIndex.remove(bookId);
+			} else {
+				suggestIndex.refresh(bookId);
+			}
+			received.increment();
+		}
+	}
+
+	/**
+	 * Compara a versão do banco com o último aviso recebido. Uma diferença
+	 * isolada pode ser uma transação ainda não confirmada (o aviso só sai no
+	 * commit); se persistir na verificação seguinte, o aviso foi perdido.
+	 */
+	void checkVersion(long current) {
+		if (current <= lastSeen) {
+			suspectedGap = 0;
+			return;
+		}
+		if (suspectedGap != 0 && suspectedGap > lastSeen) {
+			resync(current);
+			return;
+		}
+		suspectedGap = current;
+	}
+
+	private void resync(long current) {
+		log.warn("Avisos de alteração de livros perdidos (versão {}, último aviso {}); recarregando caches", current,
+				lastSeen);
+		resyncs.increment();
+		searchCache.invalidate();
+		if (suggestIndex.isEnabled()) {
+			suggestIndex.reload();
+		}
+		lastSeen = current;
+		suspectedGap = 0;
+	}
+
+	private static long currentVersion(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet result = statement.executeQuery(
+						"SELECT version FROM book_change_version WHERE id = 1")) {
+			result.next();
+			return result.getLong(1);
+		}
+	}
+
+}
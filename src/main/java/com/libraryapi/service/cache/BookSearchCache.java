@@ -0,0 +1,163 @@
+package com.libraryapi.service.cache;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.libraryapi.model.entity.Book;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Cache das páginas da busca do catálogo, com chave no filtro normalizado
+ * (minúsculas, já que a busca ignora maiúsculas) e na página pedida. Guarda
+ * cópias dos livros da página e o total; a memória é limitada pelo número de
+ * livros guardados, descartando as páginas usadas há mais tempo.
+ * Qualquer cadastro, alteração ou exclusão incrementa a versão do catálogo e
+ * esvazia o cache; uma consulta iniciada antes da alteração não guarda o
+ * resultado, pois a versão mudou enquanto ela rodava.
+ */
+@Component
+public class BookSearchCache implements MeterBinder {
+
+	private final boolean enabled;
+	private final int maxBooks;
+	private final AtomicLong version = new AtomicLong();
+	private final Map<Key, CachedPage> pages = new LinkedHashMap<>(256, 0.75f, true);
+	private int cachedBooks;
+	private final Counter hits;
+	private final Counter misses;
+	private final Timer hitLatency;
+	private final Timer missLatency;
+
+	public BookSearchCache(@Value("${search-cache.enabled:false}") boolean enabled,
+			@Value("${search-cache.max-books:100000}") int maxBooks, MeterRegistry registry) {
+		this.enabled = enabled;
+		this.maxBooks = maxBooks;
+		this.hits = Counter.builder("book.search.cache").tag("result", "hit").register(registry);
+		this.misses = Counter.builder("book.search.cache").tag("result", "miss").register(registry);
+		this.hitLatency = Timer.builder("book.search.latency").tag("cache", "hit")
+				.publishPercentiles(0.5, 0.99).register(registry);
+		this.missLatency = Timer.builder("book.search.latency").tag("cache", "miss")
+				.publishPercentiles(0.5, 0.99).register(registry);
+	}
+
+	/** Os gauges referenciam o cache, por isso são registrados depois de construído (o Spring chama este método). */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder("book.search.cache.hit.ratio", this, BookSearchCache::hitRatio).register(registry);
+		Gauge.builder("book.search.cache.books", this, BookSearchCache::cachedBooks).register(registry);
+	}
+
+	public Page<Book> find(Book filter, Pageable pageable, Supplier<Page<Book>> query) {
+		if (!enabled || pageable.isUnpaged()) {
+			return query.get();
+		}
+
+		long start = System.nanoTime();
+		Key key = Key.of(filter, pageable);
+		CachedPage cached;
+		synchronized (this) {
+			cached = pages.get(key);
+		}
+		if (cached != null) {
+			Page<Book> page = cached.toPage(pageable);
+			hits.increment();
+			hitLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			return page;
+		}
+
+		long startVersion = version.get();
+		Page<Book> page = query.get();
+		store(key, startVersion, page);
+		misses.increment();
+		missLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		return page;
+	}
+
+	/** Chamado após cada escrita no catálogo. */
+	public void invalidate() {
+		if (!enabled) {
+			return;
+		}
+		synchronized (this) {
+			version.incrementAndGet();
+			pages.clear();
+			cachedBooks = 0;
+		}
+	}
+
+	private void store(Key key, long startVersion, Page<Book> page) {
+		int weight = page.getNumberOfElements() + 1;
+		if (weight > maxBooks) {
+			return;
+		}
+		CachedPage cached = new CachedPage(page.getContent().stream().map(Book::detachedCopy).toList(),
+				page.getTotalElements());
+		synchronized (this) {
+			if (version.get() != startVersion) {
+				return;
+			}
+			CachedPage previous = pages.put(key, cached);
+			if (previous != null) {
+				cachedBooks -= previous.weight();
+			}
+			cachedBooks += weight;
+			var eldest = pages.values().iterator();
+			while (cachedBooks > maxBooks && eldest.hasNext()) {
+				cachedBooks -= eldest.next().weight();
+				eldest.remove();
+			}
+		}
+	}
+
+	private double hitRatio() {
+		double total = hits.count() + misses.count();
+		return total == 0 ? 0 : hits.count() / total;
+	}
+
+	private synchronized int cachedBooks() {
+		return cachedBooks;
+	}
+
+	private record Key(Long id, String title, String author, String isbn, Long isbnKey, Pageable pageable) {
+
+		static Key of(Book filter, Pageable pageable) {
+			return new Key(filter.getId(), normalize(filter.getTitle()), normalize(filter.getAuthor()),
+					normalize(filter.getIsbn()), filter.getIsbnKey(), pageable);
+		}
+
+		private static String normalize(String value) {
+			return value == null ? null : value.toLowerCase(Locale.ROOT);
+		}
+
+	}
+
+	private record CachedPage(List<Book> books, long total) {
+
+		int weight() {
+			return books.size() + 1;
+		}
+
+		/** Devolve cópias, para que quem recebe a página possa alterá-la sem afetar o cache. */
+		Page<Book> toPage(Pageable pageable) {
+			return new PageImpl<>(books.stream().map(Book::detachedCopy).toList(), pageable, total);
+		}
+
+	}
+
+}
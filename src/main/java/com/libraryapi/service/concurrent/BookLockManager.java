@@ -0,0 +1,70 @@
+package com.libraryapi.service.concurrent;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Locks por livro com quantidade fixa de faixas (stripes): operações sobre o
+ * mesmo livro são serializadas, livros diferentes raramente disputam o mesmo
+ * lock e a memória não cresce com a quantidade de livros.
+ */
+@Component
+public class BookLockManager {
+
+	private final ReentrantLock[] stripes;
+	private final int mask;
+
+	public BookLockManager(@Value("${booklock.stripes:256}") int stripes) {
+		int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+		this.stripes = new ReentrantLock[size];
+		this.mask = size - 1;
+		for (int i = 0; i < size; i++) {
+			this.stripes[i] = new ReentrantLock();
+		}
+	}
+
+	public <T> T withLock(Long bookId, Supplier<T> action) {
+		ReentrantLock lock = lockFor(bookId);
+		lock.lock();
+		try {
+			return action.get();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/** Trava vários livros; as faixas são tomadas em ordem crescente para não haver deadlock. */
+	public <T> T withLocks(Collection<Long> bookIds, Supplier<T> action) {
+		int[] indexes = bookIds.stream().mapToInt(this::stripeIndex).distinct().sorted().toArray();
+		int locked = 0;
+		try {
+			for (int index : indexes) {
+				stripes[index].lock();
+				locked++;
+			}
+			return action.get();
+		} finally {
+			for (int i = locked - 1; i >= 0; i--) {
+				stripes[indexes[i]].unlock();
+			}
+		}
+	}
+
+	public ReentrantLock lockFor(Long bookId) {
+		return stripes[stripeIndex(bookId)];
+	}
+
+	private int stripeIndex(Long bookId) {
+		long hash = bookId * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	public int getStripeCount() {
+		return stripes.length;
+	}
+
+}
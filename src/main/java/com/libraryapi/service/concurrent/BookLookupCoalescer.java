@@ -0,0 +1,79 @@
+package com.libraryapi.service.concurrent;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.libraryapi.model.entity.Book;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Single-flight das consultas de livro por id ou ISBN: enquanto uma consulta
+ * está em andamento, as chamadas concorrentes com a mesma chave aguardam o
+ * resultado dela em vez de irem ao banco. Quem aguarda recebe uma cópia
+ * desanexada do livro, pois a entidade original pertence ao contexto de
+ * persistência da requisição que executou a consulta.
+ */
+@Component
+public class BookLookupCoalescer {
+
+	private final boolean enabled;
+	private final Map<Long, CompletableFuture<Optional<Book>>> byIdInFlight = new ConcurrentHashMap<>();
+	private final Map<Long, CompletableFuture<Optional<Book>>> byIsbnInFlight = new ConcurrentHashMap<>();
+	private final Counter executed;
+	private final Counter coalesced;
+
+	public BookLookupCoalescer(@Value("${singleflight.enabled:false}") boolean enabled, MeterRegistry registry) {
+		this.enabled = enabled;
+		this.executed = Counter.builder("book.lookup.calls").tag("result", "executed").register(registry);
+		this.coalesced = Counter.builder("book.lookup.calls").tag("result", "coalesced").register(registry);
+	}
+
+	public Optional<Book> byId(Long id, Supplier<Optional<Book>> query) {
+		return execute(byIdInFlight, id, query);
+	}
+
+	/** Consulta pela chave numérica do ISBN ({@link com.libraryapi.model.Isbn#toKey}). */
+	public Optional<Book> byIsbn(long isbnKey, Supplier<Optional<Book>> query) {
+		return execute(byIsbnInFlight, isbnKey, query);
+	}
+
+	private Optional<Book> execute(Map<Long, CompletableFuture<Optional<Book>>> inFlight, Long key,
+			Supplier<Optional<Book>> query) {
+		if (!enabled || key == null) {
+			return query.get();
+		}
+
+		CompletableFuture<Optional<Book>> call = new CompletableFuture<>();
+		CompletableFuture<Optional<Book>> running = inFlight.putIfAbsent(key, call);
+		if (running != null) {
+			coalesced.increment();
+			try {
+				return running.join().map(Book::detachedCopy);
+			} catch (CompletionException ex) {
+				throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+			}
+		}
+
+		executed.increment();
+		try {
+			Optional<Book> result = query.get();
+			call.complete(result);
+			return result;
+		} catch (RuntimeException ex) {
+			call.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			inFlight.remove(key, call);
+		}
+	}
+
+}
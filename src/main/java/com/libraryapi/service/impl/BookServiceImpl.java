@@ -1,38 +1,61 @@
 package com.libraryapi.service.impl;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import com.libraryapi.exception.BusinessException;
+import com.libraryapi.model.Isbn;
 import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.projection.BookAvailability;
 import com.libraryapi.model.repository.BookRepository;
 import com.libraryapi.service.BookService;
+import com.libraryapi.service.cache.BookSearchCache;
+import com.libraryapi.service.concurrent.BookLookupCoalescer;
+import com.libraryapi.service.index.BookSuggestIndex;
+
+import io.micrometer.observation.annotation.Observed;
 
 @Service
+@Observed(name = "book.service")
 public class BookServiceImpl implements BookService {
 
 	private BookRepository repository;
+	private BookLookupCoalescer lookupCoalescer;
+	private BookSuggestIndex suggestIndex;
+	private BookSearchCache searchCache;
 	
-	public BookServiceImpl(BookRepository repository) {
+	public BookServiceImpl(BookRepository repository, BookLookupCoalescer lookupCoalescer, BookSuggestIndex suggestIndex,
+			BookSearchCache searchCache) {
 		this.repository = repository;
+		this.lookupCoalescer = lookupCoalescer;
+		this.suggestIndex = suggestIndex;
+		this.searchCache = searchCache;
 	}
 	
     @Override
     public Book save(Book book) {
-    	if(repository.existsByIsbn(book.getIsbn())) {
-    		throw new BusinessException("ISBN já cadastrado.");
-    	}
-        return repository.save(book);
+        book.setIsbnKey(Isbn.toKey(book.getIsbn())
+                .orElseThrow(() -> new BusinessException("ISBN inválido.")));
+        Book saved = repository.insertIfAbsent(book)
+                .orElseThrow(() -> new BusinessException("ISBN já cadastrado."));
+        searchCache.invalidate();
+        suggestIndex.put(saved);
+        return saved;
     }
 
 	@Override
 	public Optional<Book> getById(Long id) {
-		return this.repository.findById(id);
+		return lookupCoalescer.byId(id, () -> this.repository.findById(id));
 	}
 
 	@Override
@@ -41,15 +64,21 @@ public class BookServiceImpl implements BookService {
 			throw new IllegalArgumentException("Book ID can't be null.");
 		}
 		this.repository.delete(book);
-		
+		searchCache.invalidate();
+		suggestIndex.remove(book.getId());
 	}
 
 	@Override
-	public Book update(Book book) {
+	public Optional<Book> update(Book book) {
 		if (book == null || book.getId() == null) {
 			throw new IllegalArgumentException("Book ID can't be null.");
 		}
-		return this.repository.save(book);
+		Optional<Book> updated = this.repository.updateDetails(book.getId(), book.getTitle(), book.getAuthor());
+		if (updated.isPresent()) {
+			searchCache.invalidate();
+			suggestIndex.put(updated.get());
+		}
+		return updated;
 	}
 
     @Override
@@ -59,13 +88,52 @@ public class BookServiceImpl implements BookService {
                             .matching()
                             .withIgnoreCase()
                             .withIgnoreNullValues()
+                            // os exemplares têm valor padrão no builder e não fazem parte da busca
+                            .withIgnorePaths("copies", "availableCopies")
                             .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
-        return repository.findAll(example, pageRequest);
+        return searchCache.find(filter, pageRequest, () -> repository.findAll(example, pageRequest));
     }
 
     @Override
     public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        OptionalLong isbnKey = Isbn.toKey(isbn);
+        if (isbnKey.isEmpty()) {
+            return Optional.empty();
+        }
+        return lookupCoalescer.byIsbn(isbnKey.getAsLong(), () -> repository.findByIsbnKey(isbnKey.getAsLong()));
+    }
+
+    @Override
+    public List<Book> getBooksByIsbn(Collection<String> isbns) {
+        List<Long> isbnKeys = isbns.stream()
+                .map(Isbn::toKey)
+                .filter(OptionalLong::isPresent)
+                .map(OptionalLong::getAsLong)
+                .distinct()
+                .toList();
+        return isbnKeys.isEmpty() ? Collections.emptyList() : repository.findByIsbnKeyIn(isbnKeys);
+    }
+
+    @Override
+    public List<BookAvailability> getAvailability(List<Long> ids, List<String> isbns) {
+        List<Long> isbnKeys = isbns == null ? Collections.emptyList() : isbns.stream()
+                .map(Isbn::toKey)
+                .filter(OptionalLong::isPresent)
+                .map(OptionalLong::getAsLong)
+                .toList();
+        return repository.findAvailability(
+                ids == null ? Collections.emptyList() : ids,
+                isbnKeys);
+    }
+
+    @Override
+    public List<Book> suggest(String query, int limit) {
+        if (suggestIndex.isEnabled()) {
+            return suggestIndex.suggest(query, limit);
+        }
+        // sem o índice, busca só pelo título
+        Book filter = Book.builder().title(query).build();
+        return find(filter, PageRequest.of(0, limit)).getContent();
     }
     
 }
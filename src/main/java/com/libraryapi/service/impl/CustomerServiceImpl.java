@@ -0,0 +1,34 @@
+package com.libraryapi.service.impl;
+
+import java.util.Locale;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.model.repository.CustomerRepository;
+import com.libraryapi.service.CustomerService;
+
+@Service
+public class CustomerServiceImpl implements CustomerService {
+
+	private CustomerRepository repository;
+
+	public CustomerServiceImpl(CustomerRepository repository) {
+		this.repository = repository;
+	}
+
+	@Override
+	public Customer getOrCreate(String name, String email) {
+		String normalizedEmail = email.trim().toLowerCase(Locale.ROOT);
+		return repository.findByEmail(normalizedEmail).orElseGet(() -> {
+			try {
+				return repository.saveAndFlush(Customer.builder().name(name).email(normalizedEmail).build());
+			} catch (DataIntegrityViolationException ex) {
+				// outra requisição cadastrou o mesmo e-mail entre a consulta e a inserção
+				return repository.findByEmail(normalizedEmail).orElseThrow(() -> ex);
+			}
+		});
+	}
+
+}
@@ -11,6 +11,8 @@ import org.springframework.stereotype.Service;
 
 import com.libraryapi.service.EmailService;
 
+import io.micrometer.observation.annotation.Observed;
+
 import lombok.RequiredArgsConstructor;
 
 @Service
@@ -23,10 +25,17 @@ public class EmailServiceImpl implements EmailService {
     private final JavaMailSender javaMailSender;
     
     private static final Logger log = LoggerFactory.getLogger(EmailServiceImpl.class);
+    
+    private static final int LOGGED_RECIPIENTS_SAMPLE = 5;
 
     @Override
+    @Observed(name = "email.send", contextualName = "send-mails")
     public void sendMails(String message, List<String> mailsList) {
-    	log.info("Enviando e-mail...{}", mailsList);
+    	log.info("Enviando e-mail para {} destinatário(s)", mailsList.size());
+    	if (log.isDebugEnabled()) {
+    		log.debug("Amostra de destinatários: {}",
+    				mailsList.subList(0, Math.min(LOGGED_RECIPIENTS_SAMPLE, mailsList.size())));
+    	}
         String[] mails = mailsList.toArray(new String[mailsList.size()]);
 
         SimpleMailMessage mailMessage = new SimpleMailMessage();
@@ -1,35 +1,110 @@
 package com.libraryapi.service.impl;
 
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.libraryapi.api.dto.LoanFilterDto;
 import com.libraryapi.exception.BusinessException;
+import com.libraryapi.model.Isbn;
 import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.Customer;
 import com.libraryapi.model.entity.Loan;
+import com.libraryapi.model.repository.BookRepository;
+import com.libraryapi.model.repository.LoanArchiveRepository;
 import com.libraryapi.model.repository.LoanRepository;
 import com.libraryapi.service.LoanService;
+import com.libraryapi.service.ReservationService;
+import com.libraryapi.service.concurrent.BookLockManager;
+import com.libraryapi.service.index.BookAvailabilityIndex;
+
+import io.micrometer.observation.annotation.Observed;
 
 @Service
+@Observed(name = "loan.service")
 public class LoanServiceImpl implements LoanService {
 
 	private LoanRepository repository;
+	private BookRepository bookRepository;
+	private LoanArchiveRepository archiveRepository;
+	private BookAvailabilityIndex availabilityIndex;
+	private BookLockManager lockManager;
+	private TransactionTemplate transactionTemplate;
+	private ReservationService reservationService;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository, BookRepository bookRepository,
+            LoanArchiveRepository archiveRepository, BookAvailabilityIndex availabilityIndex,
+            BookLockManager lockManager, PlatformTransactionManager transactionManager,
+            ReservationService reservationService) {
         this.repository = repository;
+        this.bookRepository = bookRepository;
+        this.archiveRepository = archiveRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.lockManager = lockManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reservationService = reservationService;
     }
 
     @Override
     public Loan save(Loan loan) {
-        if(repository.existsByBookAndNotReturned(loan.getBook())){
-            throw new BusinessException("Livro já emprestado.");
-        }
-        return repository.save(loan);
+        Long bookId = loan.getBook().getId();
+        return lockManager.withLock(bookId, () -> {
+            if (availabilityIndex.isEnabled() && availabilityIndex.isLoaned(bookId)) {
+                throw new BusinessException("Livro já emprestado.");
+            }
+            // o decremento condicional do contador é a própria verificação, atômica também entre instâncias
+            AtomicInteger remaining = new AtomicInteger();
+            Loan saved;
+            try {
+                saved = transactionTemplate.execute(status -> {
+                    remaining.set(bookRepository.takeCopy(bookId)
+                            .orElseThrow(() -> new BusinessException("Livro já emprestado.")));
+                    return repository.save(loan);
+                });
+            } catch (BusinessException ex) {
+                availabilityIndex.markLoaned(bookId);
+                throw ex;
+            }
+            if (remaining.get() == 0) {
+                availabilityIndex.markLoaned(bookId);
+            }
+            return saved;
+        });
+    }
+
+    @Override
+    public List<Loan> saveAll(List<Loan> loans) {
+        List<Long> bookIds = loans.stream().map(loan -> loan.getBook().getId()).toList();
+        Map<Long, Integer> remaining = new HashMap<>();
+        // os locks ficam com a transação até o commit, como no empréstimo individual
+        List<Loan> saved = lockManager.withLocks(bookIds, () -> transactionTemplate.execute(status -> {
+            remaining.putAll(bookRepository.takeCopies(bookIds));
+            List<Loan> available = loans.stream()
+                    .filter(loan -> remaining.containsKey(loan.getBook().getId()))
+                    .toList();
+            List<Long> ids = repository.insertAll(available);
+            for (int i = 0; i < available.size(); i++) {
+                available.get(i).setId(ids.get(i));
+            }
+            return available;
+        }));
+        bookIds.stream()
+                .filter(bookId -> remaining.getOrDefault(bookId, 0) == 0)
+                .forEach(availabilityIndex::markLoaned);
+        return saved;
     }
 
     @Override
@@ -37,14 +112,47 @@ public class LoanServiceImpl implements LoanService {
         return repository.findById(id);
     }
 
+    @Override
+    public Optional<Loan> getByReference(String reference) {
+        return repository.findByReference(reference);
+    }
+
     @Override
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        Long bookId = loan.getBook().getId();
+        boolean returned = Boolean.TRUE.equals(loan.getReturned());
+        return lockManager.withLock(bookId, () -> {
+            AtomicReference<OptionalInt> remaining = new AtomicReference<>(OptionalInt.empty());
+            Loan updated = transactionTemplate.execute(status -> {
+                // só a mudança de situação mexe no contador, mesmo com devoluções repetidas ou concorrentes
+                boolean changed = repository.updateReturned(loan.getId(), returned);
+                if (changed && !returned) {
+                    remaining.set(OptionalInt.of(bookRepository.takeCopy(bookId)
+                            .orElseThrow(() -> new BusinessException("Livro já emprestado."))));
+                }
+                Loan saved = repository.save(loan);
+                // na devolução, o próximo da fila de espera recebe o exemplar na mesma transação
+                if (changed && returned && reservationService.promoteNext(loan.getBook()).isEmpty()) {
+                    remaining.set(bookRepository.returnCopy(bookId));
+                }
+                return saved;
+            });
+            remaining.get().ifPresent(copies -> {
+                if (copies > 0) {
+                    availabilityIndex.markAvailable(bookId);
+                } else {
+                    availabilityIndex.markLoaned(bookId);
+                }
+            });
+            return updated;
+        });
     }
 
     @Override
     public Page<Loan> find(LoanFilterDto filterDTO, Pageable pageable) {
-        return repository.findByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable);
+        OptionalLong isbnKey = Isbn.toKey(filterDTO.getIsbn());
+        return repository.findByBookIsbnOrCustomer(isbnKey.isPresent() ? isbnKey.getAsLong() : null,
+                filterDTO.getCustomer(), pageable);
     }
 
     @Override
@@ -54,9 +162,40 @@ public class LoanServiceImpl implements LoanService {
     
     @Override
     public List<Loan> getAllLateLoans() {
+        return repository.findByLoanDateLessThanAndNotReturned(lateLoanDate());
+    }
+
+    @Override
+    public List<Customer> getCustomersWithLateLoans() {
+        return repository.findCustomersWithLoanDateLessThanAndNotReturned(lateLoanDate());
+    }
+
+    @Override
+    public Optional<Boolean> isBookAvailable(Long bookId) {
+        if (availabilityIndex.isEnabled()) {
+            // Livro marcado no índice existe; livre ainda precisa ser confirmado pela chave primária
+            if (availabilityIndex.isLoaned(bookId)) {
+                return Optional.of(false);
+            }
+            return bookRepository.existsById(bookId) ? Optional.of(true) : Optional.empty();
+        }
+        return bookRepository.findAvailableCopies(bookId).map(copies -> copies > 0);
+    }
+
+    @Override
+    @Transactional
+    public int archiveReturnedLoans(LocalDate before) {
+        int archived = archiveRepository.copyReturnedLoansBefore(before);
+        int deleted = repository.deleteReturnedLoansBefore(before);
+        if (archived != deleted) {
+            throw new IllegalStateException("Arquivamento inconsistente: " + archived + " copiados, " + deleted + " removidos.");
+        }
+        return archived;
+    }
+
+    private LocalDate lateLoanDate() {
         final Integer loanDays = 4;
-        LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
-        return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
+        return LocalDate.now().minusDays(loanDays);
     }
     
 }
@@ -0,0 +1,141 @@
+package com.libraryapi.service.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.libraryapi.exception.BusinessException;
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.BookReservation;
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.model.entity.Loan;
+import com.libraryapi.model.repository.BookRepository;
+import com.libraryapi.model.repository.BookReservationRepository;
+import com.libraryapi.model.repository.LoanRepository;
+import com.libraryapi.service.ReservationPromotedEvent;
+import com.libraryapi.service.ReservationService;
+import com.libraryapi.service.concurrent.BookLockManager;
+import com.libraryapi.service.index.BookAvailabilityIndex;
+import com.libraryapi.service.index.WaitlistHeadIndex;
+
+import io.micrometer.observation.annotation.Observed;
+
+@Service
+@Observed(name = "reservation.service")
+public class ReservationServiceImpl implements ReservationService {
+
+	private BookReservationRepository repository;
+	private LoanRepository loanRepository;
+	private BookRepository bookRepository;
+	private BookAvailabilityIndex availabilityIndex;
+	private WaitlistHeadIndex headIndex;
+	private BookLockManager lockManager;
+	private ApplicationEventPublisher eventPublisher;
+
+	public ReservationServiceImpl(BookReservationRepository repository, LoanRepository loanRepository,
+			BookRepository bookRepository, BookAvailabilityIndex availabilityIndex, WaitlistHeadIndex headIndex,
+			BookLockManager lockManager, ApplicationEventPublisher eventPublisher) {
+		this.repository = repository;
+		this.loanRepository = loanRepository;
+		this.bookRepository = bookRepository;
+		this.availabilityIndex = availabilityIndex;
+		this.headIndex = headIndex;
+		this.lockManager = lockManager;
+		this.eventPublisher = eventPublisher;
+	}
+
+	@Override
+	public BookReservation reserve(Book book, Customer customer) {
+		// mesmo lock da devolução: a reserva não se perde entre a verificação e a promoção
+		return lockManager.withLock(book.getId(), () -> {
+			if (isAvailable(book.getId())) {
+				throw new BusinessException("Livro disponível para empréstimo.");
+			}
+			if (repository.existsByBookIdAndCustomerIdAndLoanIsNull(book.getId(), customer.getId())) {
+				throw new BusinessException("Cliente já está na fila deste livro.");
+			}
+			BookReservation saved = repository.save(BookReservation.builder()
+					.book(book)
+					.customer(customer)
+					// precisão da coluna timestamp, para que a posição na fila compare valores iguais
+					.createdAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS))
+					.build());
+			headIndex.enqueued(book.getId(), saved.getId());
+			return saved;
+		});
+	}
+
+	@Override
+	public Optional<BookReservation> getById(Long id) {
+		return repository.findById(id);
+	}
+
+	@Override
+	public long position(BookReservation reservation) {
+		return repository.countAhead(reservation.getBook().getId(), reservation.getCreatedAt(), reservation.getId());
+	}
+
+	@Override
+	public Optional<Loan> promoteNext(Book book) {
+		Long bookId = book.getId();
+		if (!headIndex.mayHaveWaitlist(bookId)) {
+			return Optional.empty();
+		}
+		Long knownHead = headIndex.knownHead(bookId);
+		Optional<BookReservation> next = knownHead == null ? Optional.empty()
+				: repository.findById(knownHead).filter(reservation -> reservation.getLoan() == null);
+		if (next.isEmpty()) {
+			next = repository.findFirstByBookIdAndLoanIsNullOrderByCreatedAtAscIdAsc(bookId);
+		}
+		if (next.isEmpty()) {
+			afterCommit(() -> headIndex.advanced(bookId, null));
+			return Optional.empty();
+		}
+
+		BookReservation reservation = next.get();
+		Loan loan = loanRepository.save(Loan.builder()
+				.book(book)
+				.customer(reservation.getCustomer())
+				.loanDate(LocalDate.now())
+				.returned(false)
+				.build());
+		reservation.setLoan(loan);
+		repository.save(reservation);
+
+		Long nextHead = repository.findFirstByBookIdAndLoanIsNullOrderByCreatedAtAscIdAsc(bookId)
+				.map(BookReservation::getId)
+				.orElse(null);
+		afterCommit(() -> headIndex.advanced(bookId, nextHead));
+		eventPublisher.publishEvent(new ReservationPromotedEvent(reservation.getId(), loan.getId(), bookId));
+		return Optional.of(loan);
+	}
+
+	private boolean isAvailable(Long bookId) {
+		if (availabilityIndex.isEnabled()) {
+			return !availabilityIndex.isLoaned(bookId);
+		}
+		return bookRepository.findAvailableCopies(bookId).map(copies -> copies > 0).orElse(false);
+	}
+
+	private static void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+
+		});
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.libraryapi.service.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.libraryapi.model.repository.BookRepository;
+
+/**
+ * Índice em memória dos livros sem exemplar livre: um bit por id de livro.
+ * As leituras não usam lock; as escritas são serializadas e uma reconciliação
+ * periódica com o banco corrige divergências (por exemplo, empréstimos feitos
+ * por outras instâncias).
+ */
+@Component
+public class BookAvailabilityIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(BookAvailabilityIndex.class);
+
+	private static final int INITIAL_WORDS = 1024;
+	private static final long MAX_BOOK_ID = ((long) Integer.MAX_VALUE << 6) - 1;
+
+	private final BookRepository repository;
+	private final boolean enabled;
+
+	private volatile AtomicLongArray words = new AtomicLongArray(INITIAL_WORDS);
+	private volatile boolean ready;
+	private List<long[]> pendingChanges;
+
+	public BookAvailabilityIndex(BookRepository repository,
+			@Value("${availability.index.enabled:false}") boolean enabled) {
+		this.repository = repository;
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return enabled && ready;
+	}
+
+	public boolean isLoaned(long bookId) {
+		if (!inRange(bookId)) {
+			return false;
+		}
+		AtomicLongArray current = words;
+		int word = wordIndex(bookId);
+		return word < current.length() && (current.get(word) & bitMask(bookId)) != 0;
+	}
+
+	public void markLoaned(long bookId) {
+		apply(bookId, true);
+	}
+
+	public void markAvailable(long bookId) {
+		apply(bookId, false);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		if (enabled) {
+			reconcile();
+			ready = true;
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${availability.index.reconcile-interval:300000}",
+			initialDelayString = "${availability.index.reconcile-interval:300000}")
+	public void scheduledReconcile() {
+		if (enabled) {
+			reconcile();
+		}
+	}
+
+	public void reconcile() {
+		synchronized (this) {
+			pendingChanges = new ArrayList<>();
+		}
+
+		List<Long> loanedBookIds = repository.findBookIdsWithoutAvailableCopies()
+				.stream()
+				.filter(BookAvailabilityIndex::inRange)
+				.collect(Collectors.toList());
+		long maxId = loanedBookIds.stream().mapToLong(Long::longValue).max().orElse(0);
+
+		synchronized (this) {
+			AtomicLongArray rebuilt = new AtomicLongArray(Math.max(words.length(), wordIndex(maxId) + 1));
+			loanedBookIds.forEach(id -> setBit(rebuilt, id, true));
+			pendingChanges.forEach(change -> setBit(rebuilt, change[0], change[1] == 1));
+			pendingChanges = null;
+			words = rebuilt;
+		}
+		log.info("Índice de disponibilidade reconciliado: {} livros sem exemplar livre", loanedBookIds.size());
+	}
+
+	private synchronized void apply(long bookId, boolean loaned) {
+		if (!enabled || !inRange(bookId)) {
+			return;
+		}
+		if (pendingChanges != null) {
+			pendingChanges.add(new long[] { bookId, loaned ? 1 : 0 });
+		}
+		int word = wordIndex(bookId);
+		if (word >= words.length()) {
+			AtomicLongArray grown = new AtomicLongArray(Math.max(word + 1, words.length() * 2));
+			for (int i = 0; i < words.length(); i++) {
+				grown.set(i, words.get(i));
+			}
+			words = grown;
+		}
+		setBit(words, bookId, loaned);
+	}
+
+	private static void setBit(AtomicLongArray target, long bookId, boolean loaned) {
+		int word = wordIndex(bookId);
+		long mask = bitMask(bookId);
+		long current;
+		do {
+			current = target.get(word);
+		} while (!target.compareAndSet(word, current, loaned ? current | mask : current & ~mask));
+	}
+
+	// Ids negativos ou além da capacidade de um AtomicLongArray não podem existir no índice
+	private static boolean inRange(long bookId) {
+		return bookId >= 0 && bookId <= MAX_BOOK_ID;
+	}
+
+	private static int wordIndex(long bookId) {
+		return (int) (bookId >>> 6);
+	}
+
+	private static long bitMask(long bookId) {
+		return 1L << bookId;
+	}
+
+}
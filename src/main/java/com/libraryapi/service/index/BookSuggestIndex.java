@@ -0,0 +1,460 @@
+package com.libraryapi.service.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.projection.BookSummary;
+import com.libraryapi.model.repository.BookRepository;
+
+/**
+ * Índice em memória para autocompletar títulos e autores. Os termos normalizados
+ * (minúsculas, sem acentos) ficam em um vetor ordenado, consultado por busca
+ * binária do prefixo; cada termo aponta para os ids dos livros que o contêm.
+ * Cadastros e alterações entram em um índice delta, incorporado ao vetor pela
+ * compactação periódica; entradas antigas do vetor são descartadas na consulta,
+ * que confere cada candidato contra o livro atual. A recarga periódica a partir
+ * do banco traz as alterações feitas por outras instâncias.
+ */
+@Component
+public class BookSuggestIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(BookSuggestIndex.class);
+
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private final BookRepository repository;
+	private final TransactionTemplate transactionTemplate;
+	private final boolean enabled;
+	private final int maxCandidates;
+	private final int compactThreshold;
+
+	private volatile Map<Long, Entry> books = new ConcurrentHashMap<>();
+	private volatile Snapshot snapshot = Snapshot.build(Collections.emptyList());
+	private volatile NavigableMap<String, Set<Long>> delta = new ConcurrentSkipListMap<>();
+	private volatile NavigableMap<String, Set<Long>> compacting = new ConcurrentSkipListMap<>();
+	private volatile boolean ready;
+	private List<Entry> pendingChanges;
+	private final Object compactionLock = new Object();
+	private final AtomicInteger deltaPostings = new AtomicInteger();
+
+	public BookSuggestIndex(BookRepository repository, PlatformTransactionManager transactionManager,
+			@Value("${suggest.enabled:false}") boolean enabled,
+			@Value("${suggest.max-candidates:5000}") int maxCandidates,
+			@Value("${suggest.compact-threshold:20000}") int compactThreshold) {
+		this.repository = repository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.enabled = enabled;
+		this.maxCandidates = maxCandidates;
+		this.compactThreshold = compactThreshold;
+	}
+
+	public boolean isEnabled() {
+		return enabled && ready;
+	}
+
+	/**
+	 * Até {@code limit} livros cujos títulos ou autores contêm palavras começando
+	 * com cada termo da consulta. Títulos que começam pela consulta vêm primeiro,
+	 * depois os que a contêm no título, depois os que a contêm só no autor; o
+	 * desempate é pelo título mais curto. Acima de {@code suggest.max-candidates}
+	 * candidatos o resultado é aproximado.
+	 */
+	public List<Book> suggest(String query, int limit) {
+		String[] terms = tokenize(query);
+		if (terms.length == 0 || limit <= 0) {
+			return Collections.emptyList();
+		}
+		String probe = terms[0];
+		for (String term : terms) {
+			if (term.length() > probe.length()) {
+				probe = term;
+			}
+		}
+		String phrase = String.join(" ", terms);
+
+		Map<Long, Entry> current = books;
+		Set<Long> seen = new HashSet<>();
+		List<Match> matches = new ArrayList<>();
+		LongPredicate consider = id -> {
+			if (seen.add(id)) {
+				Entry entry = current.get(id);
+				if (entry != null && entry.matchesAll(terms)) {
+					matches.add(new Match(entry, entry.score(terms, phrase)));
+				}
+			}
+			return seen.size() < maxCandidates;
+		};
+
+		// delta e compactação em andamento são pequenos e lidos por inteiro; o vetor é
+		// lido em ordem de relevância e para ao encontrar o suficiente
+		scan(delta, probe, consider);
+		scan(compacting, probe, consider);
+		int fromDelta = matches.size();
+		snapshot.scan(probe, id -> consider.test(id) && matches.size() - fromDelta < limit);
+
+		matches.sort(Comparator.comparingInt(Match::score));
+		List<Book> result = new ArrayList<>(Math.min(limit, matches.size()));
+		for (Match match : matches.subList(0, Math.min(limit, matches.size()))) {
+			result.add(match.entry().toBook());
+		}
+		return result;
+	}
+
+	public void put(Book book) {
+		if (!enabled || book == null || book.getId() == null) {
+			return;
+		}
+		Entry entry = Entry.of(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+		synchronized (this) {
+			if (pendingChanges != null) {
+				pendingChanges.add(entry);
+			}
+			books.put(entry.id(), entry);
+			for (String term : entry.terms()) {
+				delta.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(entry.id());
+			}
+			deltaPostings.addAndGet(entry.terms().length);
+		}
+	}
+
+	public void remove(Long bookId) {
+		if (!enabled || bookId == null) {
+			return;
+		}
+		synchronized (this) {
+			if (pendingChanges != null) {
+				pendingChanges.add(Entry.removed(bookId));
+			}
+			books.remove(bookId);
+		}
+	}
+
+	/** Relê um livro alterado fora desta instância e atualiza ou remove a entrada. */
+	public void refresh(Long bookId) {
+		if (!enabled || bookId == null) {
+			return;
+		}
+		Optional<Book> book = transactionTemplate.execute(status -> repository.findById(bookId));
+		if (book.isPresent()) {
+			put(book.get());
+		} else {
+			remove(bookId);
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		if (enabled) {
+			reload();
+			ready = true;
+		}
+	}
+
+	/** A compactação reconstrói o vetor inteiro; só compensa quando o delta já pesa nas consultas. */
+	@Scheduled(fixedDelayString = "${suggest.compact-interval:10000}",
+			initialDelayString = "${suggest.compact-interval:10000}")
+	public void scheduledCompact() {
+		if (enabled && deltaPostings.get() >= compactThreshold) {
+			compact();
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${suggest.reload-interval:600000}",
+			initialDelayString = "${suggest.reload-interval:600000}")
+	public void scheduledReload() {
+		if (enabled) {
+			reload();
+		}
+	}
+
+	/** Recarrega os livros do banco, reaplicando as alterações feitas durante a leitura. */
+	public void reload() {
+		synchronized (this) {
+			pendingChanges = new ArrayList<>();
+		}
+
+		Map<Long, Entry> loaded = new ConcurrentHashMap<>();
+		transactionTemplate.executeWithoutResult(status -> {
+			try (Stream<BookSummary> summaries = repository.streamSummaries()) {
+				summaries.forEach(book -> loaded.put(book.getId(),
+						Entry.of(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn())));
+			}
+		});
+
+		synchronized (this) {
+			for (Entry change : pendingChanges) {
+				if (change.normalized() == null) {
+					loaded.remove(change.id());
+				} else {
+					loaded.put(change.id(), change);
+				}
+			}
+			pendingChanges = null;
+			books = loaded;
+		}
+		compact();
+		log.info("Índice de sugestões recarregado: {} livros, {} termos, {} KB de termos e ids", loaded.size(),
+				snapshot.terms.length, snapshot.sizeInBytes() / 1024);
+	}
+
+	/** Reconstrói o vetor ordenado com todos os livros atuais e descarta o delta. */
+	public void compact() {
+		synchronized (compactionLock) {
+			synchronized (this) {
+				compacting = delta;
+				delta = new ConcurrentSkipListMap<>();
+				deltaPostings.set(0);
+			}
+			snapshot = Snapshot.build(new ArrayList<>(books.values()));
+			compacting = new ConcurrentSkipListMap<>();
+		}
+	}
+
+	public int size() {
+		return books.size();
+	}
+
+	static String[] tokenize(String text) {
+		if (text == null) {
+			return new String[0];
+		}
+		String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+		return Arrays.stream(SEPARATORS.split(normalized.toLowerCase(Locale.ROOT)))
+				.filter(term -> !term.isEmpty())
+				.toArray(String[]::new);
+	}
+
+	private static void scan(NavigableMap<String, Set<Long>> terms, String prefix, LongPredicate consider) {
+		for (Set<Long> ids : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+			for (Long id : ids) {
+				if (!consider.test(id)) {
+					return;
+				}
+			}
+		}
+	}
+
+	private record Match(Entry entry, int score) {
+	}
+
+	/**
+	 * Livro indexado. {@code normalized} tem os termos do título e do autor
+	 * separados por espaço, nessa ordem; {@code titleLength} marca onde termina o
+	 * título.
+	 */
+	record Entry(long id, String title, String author, String isbn, String normalized, int titleLength) {
+
+		static Entry of(long id, String title, String author, String isbn) {
+			String normalizedTitle = String.join(" ", tokenize(title));
+			String normalizedAuthor = String.join(" ", tokenize(author));
+			return new Entry(id, title, author, isbn, normalizedTitle + " " + normalizedAuthor,
+					normalizedTitle.length());
+		}
+
+		static Entry removed(long id) {
+			return new Entry(id, null, null, null, null, 0);
+		}
+
+		String[] terms() {
+			return Arrays.stream(normalized.split(" ")).filter(term -> !term.isEmpty()).distinct()
+					.toArray(String[]::new);
+		}
+
+		boolean matchesAll(String[] prefixes) {
+			for (String prefix : prefixes) {
+				if (!containsPrefix(prefix, 0, normalized.length())) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		int score(String[] prefixes, String phrase) {
+			int tier;
+			if (normalized.startsWith(phrase) && phrase.length() <= titleLength) {
+				tier = 0;
+			} else if (Arrays.stream(prefixes).allMatch(prefix -> containsPrefix(prefix, 0, titleLength))) {
+				tier = 1;
+			} else {
+				tier = 2;
+			}
+			return rank(tier, titleLength);
+		}
+
+		/** Relevância: menor é melhor. Mesma ordem das listas de ids do {@link Snapshot}. */
+		static int rank(int tier, int titleLength) {
+			return tier * 4096 + Math.min(titleLength, 4095);
+		}
+
+		Book toBook() {
+			return Book.builder().id(id).title(title).author(author).isbn(isbn).build();
+		}
+
+		boolean containsPrefix(String prefix, int from, int to) {
+			for (int i = from; i + prefix.length() <= to; i++) {
+				if ((i == 0 || normalized.charAt(i - 1) == ' ') && normalized.startsWith(prefix, i)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+	/**
+	 * Termos ordenados e, para cada um, os ids dos livros que o contêm
+	 * ({@code ids[offsets[i]] .. ids[offsets[i + 1] - 1]}) em ordem de relevância:
+	 * cada valor traz a relevância nos bits altos e o id nos 40 bits baixos.
+	 */
+	static final class Snapshot {
+
+		private static final int ID_BITS = 40;
+		private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+		final String[] terms;
+		final int[] offsets;
+		final long[] ids;
+
+		private Snapshot(String[] terms, int[] offsets, long[] ids) {
+			this.terms = terms;
+			this.offsets = offsets;
+			this.ids = ids;
+		}
+
+		static Snapshot build(Collection<Entry> entries) {
+			Map<String, long[]> postings = new HashMap<>();
+			Map<String, Integer> counts = new HashMap<>();
+			for (Entry entry : entries) {
+				for (String term : entry.terms()) {
+					counts.merge(term, 1, Integer::sum);
+				}
+			}
+			for (Entry entry : entries) {
+				for (String term : entry.terms()) {
+					long[] list = postings.computeIfAbsent(term, t -> new long[counts.get(t) + 1]);
+					int tier = entry.normalized().startsWith(term + " ") && term.length() <= entry.titleLength() ? 0
+							: entry.containsPrefix(term, 0, entry.titleLength()) ? 1 : 2;
+					long rank = Entry.rank(tier, entry.titleLength());
+					list[(int) ++list[0]] = rank << ID_BITS | entry.id();
+				}
+			}
+
+			String[] terms = postings.keySet().toArray(String[]::new);
+			Arrays.sort(terms);
+			int[] offsets = new int[terms.length + 1];
+			long total = counts.values().stream().mapToLong(Integer::longValue).sum();
+			long[] ids = new long[Math.toIntExact(total)];
+			int position = 0;
+			for (int i = 0; i < terms.length; i++) {
+				long[] list = postings.get(terms[i]);
+				int size = (int) list[0];
+				Arrays.sort(list, 1, size + 1);
+				offsets[i] = position;
+				System.arraycopy(list, 1, ids, position, size);
+				position += size;
+			}
+			offsets[terms.length] = position;
+			return new Snapshot(terms, offsets, ids);
+		}
+
+		/**
+		 * Percorre os ids dos termos que começam com {@code prefix} em ordem de
+		 * relevância, intercalando as listas de cada termo, até {@code consider}
+		 * retornar falso.
+		 */
+		void scan(String prefix, LongPredicate consider) {
+			int index = Arrays.binarySearch(terms, prefix);
+			int first = index >= 0 ? index : -index - 1;
+			int last = first;
+			while (last < terms.length && terms[last].startsWith(prefix)) {
+				last++;
+			}
+
+			int size = last - first;
+			int[] cursors = new int[size];
+			int[] heap = new int[size];
+			for (int i = 0; i < size; i++) {
+				cursors[i] = offsets[first + i];
+				heap[i] = i;
+			}
+			for (int i = size / 2 - 1; i >= 0; i--) {
+				siftDown(heap, size, i, cursors);
+			}
+			while (size > 0) {
+				int top = heap[0];
+				if (!consider.test(ids[cursors[top]] & ID_MASK)) {
+					return;
+				}
+				if (++cursors[top] == offsets[first + top + 1]) {
+					heap[0] = heap[--size];
+				}
+				siftDown(heap, size, 0, cursors);
+			}
+		}
+
+		private void siftDown(int[] heap, int size, int position, int[] cursors) {
+			if (position >= size) {
+				// heap vazio: a posição guarda um cursor já no fim da sua lista
+				return;
+			}
+			int item = heap[position];
+			long key = ids[cursors[item]];
+			while (true) {
+				int child = 2 * position + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && ids[cursors[heap[child + 1]]] < ids[cursors[heap[child]]]) {
+					child++;
+				}
+				if (key <= ids[cursors[heap[child]]]) {
+					break;
+				}
+				heap[position] = heap[child];
+				position = child;
+			}
+			heap[position] = item;
+		}
+
+		long sizeInBytes() {
+			long bytes = (long) ids.length * Long.BYTES + (long) offsets.length * Integer.BYTES;
+			for (String term : terms) {
+				bytes += 24 + 16 + term.length() + Integer.BYTES;
+			}
+			return bytes;
+		}
+
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.libraryapi.service.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.libraryapi.model.repository.BookReservationRepository;
+
+/**
+ * Cabeça da fila de espera de cada livro em memória: a devolução de um livro
+ * sem fila, o caso comum, não consulta a tabela de reservas, e a de um livro
+ * com fila vai direto à reserva da vez pela chave primária. Livros carregados
+ * do banco ficam com a cabeça {@link #UNKNOWN} até a primeira devolução. A
+ * reconciliação periódica corrige divergências, mas até lá uma reserva feita
+ * por outra instância fica invisível e o livro seria devolvido sem passar à
+ * fila; por isso o índice vem desligado e só deve ser ligado com uma única
+ * instância. Desligado, toda devolução consulta a fila no banco.
+ */
+@Component
+public class WaitlistHeadIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(WaitlistHeadIndex.class);
+
+	public static final long UNKNOWN = -1;
+
+	private final BookReservationRepository repository;
+	private final boolean enabled;
+
+	private volatile Map<Long, Long> heads = new ConcurrentHashMap<>();
+	private volatile boolean ready;
+	private List<Change> pendingChanges;
+
+	public WaitlistHeadIndex(BookReservationRepository repository,
+			@Value("${waitlist.head-index.enabled:false}") boolean enabled) {
+		this.repository = repository;
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return enabled && ready;
+	}
+
+	/** Falso só quando o índice garante que o livro não tem fila. */
+	public boolean mayHaveWaitlist(Long bookId) {
+		return !isEnabled() || heads.containsKey(bookId);
+	}
+
+	/** Id da reserva da vez, ou nulo quando não se sabe. */
+	public Long knownHead(Long bookId) {
+		Long head = isEnabled() ? heads.get(bookId) : null;
+		return head == null || head == UNKNOWN ? null : head;
+	}
+
+	public void enqueued(Long bookId, Long reservationId) {
+		apply(bookId, reservationId, true);
+	}
+
+	/** Registra a nova cabeça da fila depois de uma promoção; nula quando a fila acabou. */
+	public void advanced(Long bookId, Long nextHead) {
+		apply(bookId, nextHead, false);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		if (enabled) {
+			reconcile();
+			ready = true;
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${waitlist.head-index.reconcile-interval:300000}",
+			initialDelayString = "${waitlist.head-index.reconcile-interval:300000}")
+	public void scheduledReconcile() {
+		if (enabled) {
+			reconcile();
+		}
+	}
+
+	public void reconcile() {
+		synchronized (this) {
+			pendingChanges = new ArrayList<>();
+		}
+
+		List<Long> bookIds = repository.findBookIdsWithWaitlist();
+
+		synchronized (this) {
+			Map<Long, Long> rebuilt = new ConcurrentHashMap<>();
+			bookIds.forEach(bookId -> rebuilt.put(bookId, heads.getOrDefault(bookId, UNKNOWN)));
+			pendingChanges.forEach(change -> setHead(rebuilt, change.bookId(), change.head(), change.enqueue()));
+			pendingChanges = null;
+			heads = rebuilt;
+		}
+		log.info("Índice de filas de espera reconciliado: {} livros com fila", bookIds.size());
+	}
+
+	private synchronized void apply(Long bookId, Long head, boolean enqueue) {
+		if (!enabled) {
+			return;
+		}
+		if (pendingChanges != null) {
+			pendingChanges.add(new Change(bookId, head, enqueue));
+		}
+		setHead(heads, bookId, head, enqueue);
+	}
+
+	private static void setHead(Map<Long, Long> target, Long bookId, Long head, boolean enqueue) {
+		if (enqueue) {
+			target.putIfAbsent(bookId, head);
+		} else if (head == null) {
+			target.remove(bookId);
+		} else {
+			target.put(bookId, head);
+		}
+	}
+
+	private record Change(Long bookId, Long head, boolean enqueue) {
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.libraryapi.service.writebehind;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journal append-only das reservas ainda não persistidas. Cada reserva é
+ * gravada como uma linha "R" e sincronizada com {@link #sync(long)} antes de
+ * ser confirmada ao cliente, e marcada com uma linha "C" depois de salva no
+ * banco; na recuperação, as reservas sem confirmação são reenfileiradas (as
+ * que já estiverem no banco são reconhecidas pela referência, por isso as
+ * linhas "C" não precisam de fsync).
+ */
+public class LoanJournal implements AutoCloseable {
+
+	private static final String SEPARATOR = "\t";
+
+	private final Path path;
+	private final boolean fsync;
+	private FileChannel channel;
+	private long appended;
+	private volatile long synced;
+	private final Object syncLock = new Object();
+
+	public LoanJournal(Path path, boolean fsync) {
+		this.path = path;
+		this.fsync = fsync;
+	}
+
+	public synchronized List<PendingLoan> recover() {
+		Map<String, PendingLoan> pending = new LinkedHashMap<>();
+		try {
+			if (Files.exists(path)) {
+				for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+					String[] fields = line.split(SEPARATOR, -1);
+					if (fields[0].equals("R") && fields.length == 6) {
+						pending.put(fields[1], PendingLoan.builder()
+								.reference(fields[1])
+								.bookId(Long.valueOf(fields[2]))
+								.customer(fields[3])
+								.email(fields[4])
+								.loanDate(LocalDate.parse(fields[5]))
+								.build());
+					} else if (fields[0].equals("C") && fields.length == 2) {
+						pending.remove(fields[1]);
+					}
+				}
+			}
+			List<PendingLoan> recovered = new ArrayList<>(pending.values());
+			rewrite(recovered);
+			return recovered;
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/** Grava a reserva sem sincronizar o disco; devolve a sequência a informar em {@link #sync(long)}. */
+	public synchronized long append(PendingLoan loan) {
+		write(String.join(SEPARATOR, "R", loan.getReference(), loan.getBookId().toString(),
+				sanitize(loan.getCustomer()), sanitize(loan.getEmail()), loan.getLoanDate().toString()) + "\n");
+		return ++appended;
+	}
+
+	/**
+	 * Garante em disco as reservas gravadas até a sequência informada (group
+	 * commit): um único force cobre tudo o que foi gravado até ele começar, e
+	 * quem esperava por ele em geral já encontra a sua reserva sincronizada.
+	 * As gravações seguem em paralelo durante o force.
+	 */
+	public void sync(long sequence) {
+		if (!fsync) {
+			return;
+		}
+		synchronized (syncLock) {
+			if (synced >= sequence) {
+				return;
+			}
+			long target;
+			FileChannel current;
+			synchronized (this) {
+				target = appended;
+				current = channel;
+			}
+			try {
+				current.force(false);
+			} catch (ClosedChannelException ex) {
+				// compactado durante o force: a reescrita já sincronizou as reservas pendentes
+				if (synced < sequence) {
+					throw new UncheckedIOException(ex);
+				}
+				return;
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			synced = Math.max(synced, target);
+		}
+	}
+
+	public synchronized void commit(Collection<String> references) {
+		StringBuilder lines = new StringBuilder();
+		references.forEach(reference -> lines.append("C").append(SEPARATOR).append(reference).append("\n"));
+		write(lines.toString());
+	}
+
+	public synchronized void compact(Collection<PendingLoan> pending) {
+		try {
+			rewrite(pending);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (channel != null) {
+			channel.close();
+			channel = null;
+		}
+	}
+
+	private void write(String content) {
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private void rewrite(Collection<PendingLoan> pending) throws IOException {
+		close();
+		Path parent = path.toAbsolutePath().getParent();
+		Files.createDirectories(parent);
+		Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+		channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+		pending.forEach(this::append);
+		channel.force(false);
+		synced = appended;
+		channel.close();
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	private static String sanitize(String value) {
+		return value == null ? "" : value.replaceAll("[\\t\\r\\n]", " ");
+	}
+
+}
@@ -0,0 +1,386 @@
+package com.libraryapi.service.writebehind;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.libraryapi.exception.BusinessException;
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.model.entity.Loan;
+import com.libraryapi.model.repository.BookRepository;
+import com.libraryapi.model.repository.LoanRepository;
+import com.libraryapi.service.CustomerService;
+import com.libraryapi.service.concurrent.BookLockManager;
+import com.libraryapi.service.index.BookAvailabilityIndex;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolationException;
+
+/**
+ * Modo write-behind para criação de empréstimos em rajadas: a disponibilidade
+ * é reservada em memória sob o lock do livro, a reserva é registrada no
+ * journal e confirmada ao cliente, e uma thread dedicada persiste as reservas
+ * em lotes transacionais a partir de uma fila limitada.
+ */
+@Component
+public class LoanWriteBehindQueue {
+
+	private static final Logger log = LoggerFactory.getLogger(LoanWriteBehindQueue.class);
+
+	private static final long RETRY_DELAY_MS = 1000;
+	private static final int COMPACT_AFTER_COMMITS = 10_000;
+	private static final int MAX_DISCARDED = 10_000;
+
+	private final LoanRepository loanRepository;
+	private final BookRepository bookRepository;
+	private final CustomerService customerService;
+	private final BookAvailabilityIndex availabilityIndex;
+	private final BookLockManager lockManager;
+	private final TransactionTemplate transactionTemplate;
+	private final LoanJournal journal;
+	private final boolean enabled;
+	private final int batchSize;
+
+	private final BlockingQueue<PendingLoan> queue;
+	private final Semaphore capacity;
+	private final Map<String, PendingLoan> uncommitted = new ConcurrentHashMap<>();
+	/** Reservas ainda não persistidas por livro; cada uma ocupa um dos exemplares livres no banco. */
+	private final Map<Long, Integer> pendingByBook = new ConcurrentHashMap<>();
+	/** Motivo do descarte das últimas reservas descartadas, para a consulta do cliente. */
+	private final Map<String, String> discarded = Collections.synchronizedMap(new LinkedHashMap<>() {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+			return size() > MAX_DISCARDED;
+		}
+	});
+
+	private volatile boolean running;
+	/** Só aceita reservas depois de reenfileirar o journal, para que pendingByBook já conte as recuperadas. */
+	private volatile boolean accepting;
+	private Thread worker;
+	private int commitsSinceCompaction;
+
+	public LoanWriteBehindQueue(LoanRepository loanRepository, BookRepository bookRepository,
+			CustomerService customerService, BookAvailabilityIndex availabilityIndex,
+			BookLockManager lockManager, PlatformTransactionManager transactionManager,
+			@Value("${writebehind.enabled:false}") boolean enabled,
+			@Value("${writebehind.queue-capacity:10000}") int queueCapacity,
+			@Value("${writebehind.batch-size:200}") int batchSize,
+			@Value("${writebehind.journal:loan-journal.log}") String journalPath,
+			@Value("${writebehind.fsync:true}") boolean fsync) {
+		this.loanRepository = loanRepository;
+		this.bookRepository = bookRepository;
+		this.customerService = customerService;
+		this.availabilityIndex = availabilityIndex;
+		this.lockManager = lockManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.journal = new LoanJournal(Paths.get(journalPath), fsync);
+		this.enabled = enabled;
+		this.batchSize = batchSize;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.capacity = new Semaphore(queueCapacity);
+	}
+
+	public boolean isEnabled() {
+		return enabled && accepting;
+	}
+
+	public boolean isPending(String reference) {
+		return uncommitted.containsKey(reference);
+	}
+
+	/** Motivo do descarte, se a reserva foi descartada recentemente por esta instância. */
+	public Optional<String> discardReason(String reference) {
+		return Optional.ofNullable(discarded.get(reference));
+	}
+
+	public Optional<String> reserve(Book book, String customer, String email) {
+		if (!isEnabled()) {
+			throw new IllegalStateException("Modo write-behind não iniciado.");
+		}
+		Optional<Journaled> journaled = lockManager.withLock(book.getId(), () -> {
+			int free = freeCopies(book.getId()) - pendingByBook.getOrDefault(book.getId(), 0);
+			if (free <= 0) {
+				throw new BusinessException("Livro já emprestado.");
+			}
+			if (!capacity.tryAcquire()) {
+				return Optional.empty();
+			}
+			PendingLoan pending = PendingLoan.builder()
+					.reference(UUID.randomUUID().toString())
+					.bookId(book.getId())
+					.customer(customer)
+					.email(email)
+					.loanDate(LocalDate.now())
+					.build();
+			uncommitted.put(pending.getReference(), pending);
+			long sequence;
+			try {
+				sequence = journal.append(pending);
+			} catch (RuntimeException ex) {
+				uncommitted.remove(pending.getReference());
+				capacity.release();
+				throw ex;
+			}
+			pendingByBook.merge(book.getId(), 1, Integer::sum);
+			if (free == 1) {
+				// a reserva ocupa o último exemplar livre
+				availabilityIndex.markLoaned(book.getId());
+			}
+			return Optional.of(new Journaled(pending, sequence));
+		});
+		if (journaled.isEmpty()) {
+			return Optional.empty();
+		}
+
+		// o fsync fica fora do lock do livro e é compartilhado com as reservas concorrentes
+		PendingLoan pending = journaled.get().pending();
+		try {
+			journal.sync(journaled.get().sequence());
+		} catch (RuntimeException ex) {
+			abandon(pending);
+			throw ex;
+		}
+		queue.add(pending);
+		return Optional.of(pending.getReference());
+	}
+
+	/** Desfaz uma reserva gravada no journal que não chegou a ser confirmada ao cliente. */
+	private void abandon(PendingLoan pending) {
+		lockManager.withLock(pending.getBookId(), () -> {
+			uncommitted.remove(pending.getReference());
+			releasePending(pending.getBookId());
+			availabilityIndex.markAvailable(pending.getBookId());
+			return null;
+		});
+		capacity.release();
+		try {
+			journal.commit(List.of(pending.getReference()));
+		} catch (RuntimeException ex) {
+			log.warn("Reserva {} abandonada sem marcação no journal: {}", pending.getReference(), ex.getMessage());
+		}
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (!enabled) {
+			return;
+		}
+		List<PendingLoan> recovered = journal.recover();
+		// o worker já drena a fila durante a recuperação, que pode passar da capacidade
+		running = true;
+		worker = new Thread(this::drain, "loan-write-behind");
+		worker.setDaemon(true);
+		worker.start();
+
+		if (!recovered.isEmpty()) {
+			Set<String> persisted = new HashSet<>(loanRepository.findExistingReferences(
+					recovered.stream().map(PendingLoan::getReference).collect(Collectors.toList())));
+			journal.commit(persisted);
+			recovered.stream()
+					.filter(pending -> !persisted.contains(pending.getReference()))
+					.forEach(this::enqueueRecovered);
+			log.info("Journal recuperado: {} reservas reenfileiradas, {} já persistidas",
+					recovered.size() - persisted.size(), persisted.size());
+		}
+		accepting = true;
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException, IOException {
+		accepting = false;
+		running = false;
+		if (worker != null) {
+			worker.join();
+		}
+		journal.close();
+	}
+
+	private void enqueueRecovered(PendingLoan pending) {
+		capacity.acquireUninterruptibly();
+		uncommitted.put(pending.getReference(), pending);
+		pendingByBook.merge(pending.getBookId(), 1, Integer::sum);
+		availabilityIndex.markLoaned(pending.getBookId());
+		queue.add(pending);
+	}
+
+	private void drain() {
+		List<PendingLoan> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				PendingLoan first = queue.poll(200, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				if (!persistWithRetry(batch)) {
+					return;
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * Persiste o lote, tentando de novo enquanto a falha puder ser passageira
+	 * (conexão, timeout de lock, banco fora). Só uma recusa definitiva dos dados
+	 * descarta uma reserva; o lote é então persistido reserva a reserva para
+	 * descartar apenas as recusadas. Devolve false quando a aplicação está
+	 * parando com o banco ainda falhando: as reservas não persistidas continuam
+	 * no journal e são recuperadas na próxima inicialização.
+	 */
+	private boolean persistWithRetry(List<PendingLoan> batch) throws InterruptedException {
+		while (true) {
+			Map<Long, Integer> remaining;
+			try {
+				remaining = persist(batch);
+			} catch (BusinessException | DataIntegrityViolationException | ConstraintViolationException ex) {
+				return batch.size() == 1 ? discard(batch.get(0), ex) : persistIndividually(batch);
+			} catch (RuntimeException ex) {
+				if (!running) {
+					log.warn("Banco indisponível ao parar, {} reservas ficam no journal para a recuperação",
+							batch.size() + queue.size());
+					return false;
+				}
+				log.warn("Falha ao persistir {} reservas ({}), nova tentativa em {} ms",
+						batch.size(), ex.getMessage(), RETRY_DELAY_MS);
+				Thread.sleep(RETRY_DELAY_MS);
+				continue;
+			}
+			complete(batch);
+			remaining.forEach(this::updateAvailability);
+			return true;
+		}
+	}
+
+	private boolean persistIndividually(List<PendingLoan> batch) throws InterruptedException {
+		for (PendingLoan pending : batch) {
+			if (!persistWithRetry(List.of(pending))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean discard(PendingLoan pending, RuntimeException ex) {
+		log.error("Reserva {} descartada: {}", pending.getReference(), ex.getMessage());
+		discarded.put(pending.getReference(), ex instanceof BusinessException
+				? ex.getMessage() : "Reserva recusada pelo banco de dados.");
+		complete(List.of(pending));
+		try {
+			bookRepository.findAvailableCopies(pending.getBookId())
+					.ifPresent(copies -> updateAvailability(pending.getBookId(), copies));
+		} catch (RuntimeException lookupFailure) {
+			log.warn("Disponibilidade do livro {} fica para a reconciliação: {}", pending.getBookId(),
+					lookupFailure.getMessage());
+		}
+		return true;
+	}
+
+	/**
+	 * Persiste o lote retirando de cada livro um exemplar por reserva; devolve
+	 * quantos exemplares restam, por livro.
+	 */
+	private Map<Long, Integer> persist(List<PendingLoan> batch) {
+		Map<String, Customer> customers = new ConcurrentHashMap<>();
+		batch.forEach(pending -> customers.computeIfAbsent(pending.getEmail(),
+				email -> customerService.getOrCreate(pending.getCustomer(), email)));
+
+		return transactionTemplate.execute(status -> {
+			Map<Long, Integer> countByBook = batch.stream()
+					.collect(Collectors.toMap(PendingLoan::getBookId, pending -> 1, Integer::sum));
+			Map<Long, Integer> remaining = bookRepository.takeCopies(countByBook);
+			if (remaining.size() < countByBook.size()) {
+				// algum livro ficou sem exemplar (por exemplo, emprestado por outra instância);
+				// persistIndividually descarta só essas reservas
+				throw new BusinessException("Livro já emprestado.");
+			}
+			loanRepository.saveAll(batch.stream()
+					.map(pending -> Loan.builder()
+							.reference(pending.getReference())
+							.book(bookRepository.getReferenceById(pending.getBookId()))
+							.customer(customers.get(pending.getEmail()))
+							.loanDate(pending.getLoanDate())
+							.returned(false)
+							.build())
+					.collect(Collectors.toList()));
+			return remaining;
+		});
+	}
+
+	/**
+	 * Exemplares livres no banco, sem contar as reservas pendentes; o índice,
+	 * quando habilitado, evita a consulta para livros sem exemplar livre.
+	 */
+	private int freeCopies(Long bookId) {
+		if (availabilityIndex.isEnabled() && availabilityIndex.isLoaned(bookId)) {
+			return 0;
+		}
+		return bookRepository.findAvailableCopies(bookId).orElse(0);
+	}
+
+	private void releasePending(Long bookId) {
+		pendingByBook.computeIfPresent(bookId, (id, count) -> count > 1 ? count - 1 : null);
+	}
+
+	/**
+	 * A última reserva livre marcou o livro como emprestado; se ainda sobram
+	 * exemplares além dos já reservados, ele volta a ficar disponível.
+	 */
+	private void updateAvailability(Long bookId, Integer remaining) {
+		if (remaining > pendingByBook.getOrDefault(bookId, 0)) {
+			availabilityIndex.markAvailable(bookId);
+		}
+	}
+
+	private void complete(List<PendingLoan> batch) {
+		synchronized (journal) {
+			journal.commit(batch.stream().map(PendingLoan::getReference).collect(Collectors.toList()));
+			batch.forEach(pending -> {
+				uncommitted.remove(pending.getReference());
+				releasePending(pending.getBookId());
+			});
+			commitsSinceCompaction += batch.size();
+			if (commitsSinceCompaction >= COMPACT_AFTER_COMMITS) {
+				journal.compact(new ArrayList<>(uncommitted.values()));
+				commitsSinceCompaction = 0;
+			}
+		}
+		capacity.release(batch.size());
+	}
+
+	private record Journaled(PendingLoan pending, long sequence) {
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.libraryapi.service.writebehind;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class PendingLoan {
+
+	private String reference;
+	private Long bookId;
+	private String customer;
+	private String email;
+	private LocalDate loanDate;
+
+}
@@ -0,0 +1,71 @@
+package db.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.OptionalLong;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.libraryapi.model.Isbn;
+
+/**
+ * Adiciona {@code book.isbn_key} e preenche com o ISBN normalizado de cada livro,
+ * usando a mesma validação da aplicação ({@link Isbn}). ISBNs inválidos e
+ * duplicatas após a normalização (por exemplo, "978-..." e "978...") ficam sem
+ * chave e são listados no log; esses livros continuam acessíveis pelo id.
+ * O índice único é criado na V5, fora de transação.
+ */
+public class V4__Book_isbn_key extends BaseJavaMigration {
+
+	private static final Logger log = LoggerFactory.getLogger(V4__Book_isbn_key.class);
+
+	private static final int BATCH_SIZE = 1000;
+
+	@Override
+	public void migrate(Context context) throws Exception {
+		Connection connection = context.getConnection();
+		try (Statement ddl = connection.createStatement()) {
+			ddl.execute("ALTER TABLE book ADD COLUMN isbn_key bigint");
+		}
+
+		int invalid = 0;
+		try (Statement select = connection.createStatement();
+				PreparedStatement update = connection.prepareStatement("UPDATE book SET isbn_key = ? WHERE id = ?")) {
+			select.setFetchSize(BATCH_SIZE);
+			int pending = 0;
+			try (ResultSet books = select.executeQuery("SELECT id, isbn FROM book")) {
+				while (books.next()) {
+					OptionalLong isbnKey = Isbn.toKey(books.getString("isbn"));
+					if (isbnKey.isEmpty()) {
+						invalid++;
+						log.warn("Livro {} com ISBN inválido ficou sem isbn_key: {}", books.getLong("id"), books.getString("isbn"));
+						continue;
+					}
+					update.setLong(1, isbnKey.getAsLong());
+					update.setLong(2, books.getLong("id"));
+					update.addBatch();
+					if (++pending == BATCH_SIZE) {
+						update.executeBatch();
+						pending = 0;
+					}
+				}
+			}
+			if (pending > 0) {
+				update.executeBatch();
+			}
+		}
+
+		int duplicates;
+		try (Statement dedupe = connection.createStatement()) {
+			duplicates = dedupe.executeUpdate("UPDATE book SET isbn_key = NULL WHERE EXISTS ("
+					+ "SELECT 1 FROM book other WHERE other.isbn_key = book.isbn_key AND other.id < book.id)");
+		}
+		log.info("isbn_key preenchido; {} livros com ISBN inválido e {} duplicados ficaram sem chave", invalid, duplicates);
+	}
+
+}
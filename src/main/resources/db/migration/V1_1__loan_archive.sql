@@ -0,0 +1,12 @@
+-- Tabela fria para onde o job de arquivamento move os empréstimos devolvidos há mais de
+-- loanarchive.retention-months meses. IF NOT EXISTS: bases que rodaram com ddl-auto depois do
+-- arquivamento já têm a tabela.
+CREATE TABLE IF NOT EXISTS loan_archive (
+	id bigint PRIMARY KEY,
+	customer varchar(100),
+	customer_email varchar(255),
+	id_book bigint,
+	loan_date date,
+	returned boolean,
+	archived_at date
+);
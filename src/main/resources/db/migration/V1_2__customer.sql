@@ -0,0 +1,58 @@
+-- Normaliza os clientes a partir das colunas livres customer/customer_email de loan e loan_archive:
+-- um cliente por e-mail (o nome do empréstimo mais recente prevalece) e, sem e-mail, um por nome.
+-- Bases que já rodaram o antigo scripts/customer-migration.sql não têm mais as colunas de texto e
+-- só passam pelos comandos IF [NOT] EXISTS. Depois da migração, VACUUM FULL ANALYZE em loan e
+-- loan_archive devolve o espaço das colunas removidas (fora do Flyway, pois não roda em transação).
+CREATE TABLE IF NOT EXISTS customer (
+	id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	name varchar(100),
+	email varchar(255),
+	CONSTRAINT uk_customer_email UNIQUE (email)
+);
+CREATE INDEX IF NOT EXISTS idx_customer_name ON customer (name);
+
+ALTER TABLE loan ADD COLUMN IF NOT EXISTS id_customer bigint CONSTRAINT fk_loan_customer REFERENCES customer (id);
+ALTER TABLE loan_archive ADD COLUMN IF NOT EXISTS id_customer bigint;
+
+DO $$
+BEGIN
+	IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+			WHERE table_schema = current_schema() AND table_name = 'loan' AND column_name = 'customer_email') THEN
+		RETURN;
+	END IF;
+
+	INSERT INTO customer (name, email)
+	SELECT DISTINCT ON (lower(trim(customer_email))) customer, lower(trim(customer_email))
+	FROM (SELECT id, customer, customer_email FROM loan
+		UNION ALL SELECT id, customer, customer_email FROM loan_archive) l
+	WHERE customer_email IS NOT NULL
+	ORDER BY lower(trim(customer_email)), id DESC
+	ON CONFLICT (email) DO NOTHING;
+
+	INSERT INTO customer (name, email)
+	SELECT DISTINCT l.customer, NULL
+	FROM (SELECT customer, customer_email FROM loan
+		UNION ALL SELECT customer, customer_email FROM loan_archive) l
+	WHERE l.customer_email IS NULL
+	  AND NOT EXISTS (SELECT 1 FROM customer c WHERE c.email IS NULL AND c.name = l.customer);
+
+	UPDATE loan l SET id_customer = c.id
+	FROM customer c
+	WHERE l.customer_email IS NOT NULL AND c.email = lower(trim(l.customer_email));
+
+	UPDATE loan l SET id_customer = c.id
+	FROM customer c
+	WHERE l.customer_email IS NULL AND c.email IS NULL AND c.name = l.customer;
+
+	UPDATE loan_archive a SET id_customer = c.id
+	FROM customer c
+	WHERE a.customer_email IS NOT NULL AND c.email = lower(trim(a.customer_email));
+
+	UPDATE loan_archive a SET id_customer = c.id
+	FROM customer c
+	WHERE a.customer_email IS NULL AND c.email IS NULL AND c.name = a.customer;
+END
+$$;
+
+ALTER TABLE loan DROP COLUMN IF EXISTS customer, DROP COLUMN IF EXISTS customer_email;
+ALTER TABLE loan_archive DROP COLUMN IF EXISTS customer, DROP COLUMN IF EXISTS customer_email;
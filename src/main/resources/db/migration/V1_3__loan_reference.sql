@@ -0,0 +1,4 @@
+-- Referência pública do empréstimo criado pelo modo write-behind (POST /api/loans/reservations).
+-- IF NOT EXISTS: bases que rodaram com ddl-auto depois do write-behind já têm a coluna.
+ALTER TABLE loan ADD COLUMN IF NOT EXISTS reference varchar(36);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_loan_reference ON loan (reference);
@@ -0,0 +1,20 @@
+-- Esquema inicial, equivalente ao gerado pelo Hibernate (ddl-auto: update) antes da adoção do Flyway:
+-- apenas livros e empréstimos, com o cliente em colunas de texto livre. O que veio depois está nas
+-- migrações seguintes. Bases já existentes são marcadas nesta versão (spring.flyway.baseline-on-migrate)
+-- sem executar o script.
+
+CREATE TABLE book (
+	id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	title varchar(255),
+	author varchar(255),
+	isbn varchar(255)
+);
+
+CREATE TABLE loan (
+	id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	customer varchar(100),
+	customer_email varchar(255),
+	id_book bigint CONSTRAINT fk_loan_book REFERENCES book (id),
+	loan_date date,
+	returned boolean
+);
@@ -0,0 +1,16 @@
+-- Índices das consultas mais frequentes, criados sem bloquear escritas (CONCURRENTLY).
+-- O Flyway executa este script fora de transação, como o CONCURRENTLY exige.
+
+-- BookRepository.existsByIsbn/findByIsbn e LoanRepository.findByBookIsbnOrCustomer
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_book_isbn ON book (isbn);
+
+-- Empréstimos por livro (findByBook) e verificação de empréstimo em aberto; o predicado
+-- do índice parcial repete o das consultas para que o planejador possa usá-lo
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_loan_book ON loan (id_book);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_loan_book_open ON loan (id_book) WHERE returned IS NULL OR returned IS FALSE;
+
+-- Empréstimos por cliente (findByBookIsbnOrCustomer, FK sem índice)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_loan_customer ON loan (id_customer);
+
+-- Empréstimos atrasados e arquivamento por data
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_loan_loan_date ON loan (loan_date);
@@ -0,0 +1,8 @@
+-- Unicidade do ISBN garantida pelo banco: inserções concorrentes do mesmo ISBN passam a falhar no
+-- índice, e o cadastro de livros pode gravar com INSERT ... ON CONFLICT em vez de consultar existsByIsbn
+-- antes. Duplicatas existentes precisam ser resolvidas antes desta migração. A V5 leva a unicidade
+-- para a chave numérica isbn_key e remove este índice.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_book_isbn ON book (isbn);
+
+-- O índice único atende as mesmas consultas do índice simples criado na V2
+DROP INDEX CONCURRENTLY IF EXISTS idx_book_isbn;
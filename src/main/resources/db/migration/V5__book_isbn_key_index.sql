@@ -0,0 +1,5 @@
+-- Unicidade e consultas por ISBN passam a usar a chave numérica (8 bytes) em vez do texto.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_book_isbn_key ON book (isbn_key);
+
+-- O texto do ISBN agora é só a forma de exibição
+DROP INDEX CONCURRENTLY IF EXISTS uk_book_isbn;
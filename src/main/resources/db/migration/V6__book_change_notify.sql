@@ -0,0 +1,23 @@
+-- Cada alteração em book recebe um número da sequência e é avisada no canal book_changes
+-- ("<sequência>:<I|U|D>:<id>"); as instâncias escutam o canal para invalidar seus caches
+-- e comparam a sequência com o último aviso recebido para detectar avisos perdidos.
+CREATE SEQUENCE IF NOT EXISTS book_change_seq;
+
+CREATE OR REPLACE FUNCTION notify_book_change() RETURNS trigger AS $$
+DECLARE
+    changed_id bigint;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        changed_id := OLD.id;
+    ELSE
+        changed_id := NEW.id;
+    END IF;
+    PERFORM pg_notify('book_changes', nextval('book_change_seq') || ':' || left(TG_OP, 1) || ':' || changed_id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS book_change_notify ON book;
+CREATE TRIGGER book_change_notify
+    AFTER INSERT OR UPDATE OR DELETE ON book
+    FOR EACH ROW EXECUTE FUNCTION notify_book_change();
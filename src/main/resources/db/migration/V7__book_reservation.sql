@@ -0,0 +1,15 @@
+-- Fila de espera por livro: quem pede um livro emprestado entra na fila e, na devolução, o mais antigo
+-- ainda sem empréstimo (id_loan nulo) recebe o livro.
+CREATE TABLE book_reservation (
+	id bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+	id_book bigint NOT NULL CONSTRAINT fk_reservation_book REFERENCES book (id),
+	id_customer bigint NOT NULL CONSTRAINT fk_reservation_customer REFERENCES customer (id),
+	created_at timestamp NOT NULL,
+	id_loan bigint CONSTRAINT fk_reservation_loan REFERENCES loan (id)
+);
+
+-- Próximo da fila de um livro (BookReservationRepository.findFirstByBookIdAndLoanIsNull...)
+CREATE INDEX idx_reservation_queue ON book_reservation (id_book, created_at, id) WHERE id_loan IS NULL;
+
+-- Um cliente aguarda no máximo uma vez pelo mesmo livro
+CREATE UNIQUE INDEX uk_reservation_waiting ON book_reservation (id_book, id_customer) WHERE id_loan IS NULL;
@@ -0,0 +1,20 @@
+-- Exemplares por livro: copies é o acervo e available_copies o contador de exemplares livres. O empréstimo
+-- decrementa o contador com UPDATE ... WHERE available_copies > 0, atômico por si só, e a devolução o incrementa.
+ALTER TABLE book ADD COLUMN copies integer NOT NULL DEFAULT 1;
+ALTER TABLE book ADD COLUMN available_copies integer NOT NULL DEFAULT 1;
+
+-- Até aqui cada livro tinha um único exemplar: fica livre se não houver empréstimo em aberto
+UPDATE book b SET available_copies = 0
+	WHERE EXISTS (SELECT 1 FROM loan l WHERE l.id_book = b.id AND (l.returned IS NULL OR l.returned IS FALSE));
+
+ALTER TABLE book ADD CONSTRAINT ck_book_available_copies CHECK (available_copies >= 0 AND available_copies <= copies);
+
+-- Livros sem exemplar livre (carga do BookAvailabilityIndex)
+CREATE INDEX idx_book_unavailable ON book (id) WHERE available_copies = 0;
+
+-- O contador muda a cada empréstimo e devolução sem alterar o que os caches de livros guardam;
+-- só alterações do cadastro são avisadas no canal book_changes
+DROP TRIGGER IF EXISTS book_change_notify ON book;
+CREATE TRIGGER book_change_notify
+    AFTER INSERT OR DELETE OR UPDATE OF title, author, isbn, isbn_key, copies ON book
+    FOR EACH ROW EXECUTE FUNCTION notify_book_change();
@@ -0,0 +1,30 @@
+-- A sequência book_change_seq não volta atrás: uma alteração desfeita por rollback consome um número e não
+-- avisa ninguém, e as instâncias tomavam o buraco por aviso perdido e recarregavam os caches. A versão passa a
+-- ser uma linha atualizada pelo próprio gatilho, desfeita junto com a alteração. O lock dessa linha serializa
+-- as alterações do cadastro de livros até o commit; empréstimos e devoluções não passam pelo gatilho (V8).
+CREATE TABLE book_change_version (
+	id smallint PRIMARY KEY CONSTRAINT ck_book_change_version_single CHECK (id = 1),
+	version bigint NOT NULL
+);
+
+-- Continua de onde a sequência parou, para que instâncias já escutando não vejam a versão voltar
+INSERT INTO book_change_version (id, version)
+	SELECT 1, CASE WHEN is_called THEN last_value ELSE 0 END FROM book_change_seq;
+
+CREATE OR REPLACE FUNCTION notify_book_change() RETURNS trigger AS $$
+DECLARE
+    changed_id bigint;
+    change_version bigint;
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        changed_id := OLD.id;
+    ELSE
+        changed_id := NEW.id;
+    END IF;
+    UPDATE book_change_version SET version = version + 1 WHERE id = 1 RETURNING version INTO change_version;
+    PERFORM pg_notify('book_changes', change_version || ':' || left(TG_OP, 1) || ':' || changed_id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP SEQUENCE book_change_seq;
@@ -0,0 +1,92 @@
+package com.libraryapi.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springdoc.core.configuration.SpringDocConfiguration;
+import org.springdoc.core.configuration.SpringDocPageableConfiguration;
+import org.springdoc.core.configuration.SpringDocSortConfiguration;
+import org.springdoc.core.properties.SpringDocConfigProperties;
+import org.springdoc.webmvc.core.configuration.SpringDocWebMvcConfiguration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.libraryapi.api.sse.WaitlistEmitters;
+import com.libraryapi.service.BookService;
+import com.libraryapi.service.CustomerService;
+import com.libraryapi.service.LoanService;
+import com.libraryapi.service.ReservationService;
+import com.libraryapi.service.writebehind.LoanWriteBehindQueue;
+
+/**
+ * Mantém o documento OpenAPI servido estaticamente em produção
+ * (static/openapi.json) sincronizado com os controllers. Para regenerá-lo:
+ * mvn test -Dtest=OpenApiDocumentTest -Dopenapi.update=true
+ */
+@ActiveProfiles("test")
+@WebMvcTest(properties = "springdoc.writer-with-order-by-keys=true")
+@AutoConfigureMockMvc
+@ImportAutoConfiguration({ SpringDocConfigProperties.class, SpringDocConfiguration.class,
+		SpringDocWebMvcConfiguration.class, SpringDocPageableConfiguration.class, SpringDocSortConfiguration.class })
+public class OpenApiDocumentTest {
+
+	static final Path STATIC_DOCUMENT = Paths.get("src/main/resources/static/openapi.json");
+
+	@Autowired
+	MockMvc mvc;
+
+	@MockBean
+	BookService bookService;
+
+	@MockBean
+	LoanService loanService;
+
+	@MockBean
+	CustomerService customerService;
+
+	@MockBean
+	LoanWriteBehindQueue writeBehindQueue;
+
+	@MockBean
+	ReservationService reservationService;
+
+	@MockBean
+	WaitlistEmitters waitlistEmitters;
+
+	@Test
+	@DisplayName("O documento OpenAPI estático deve corresponder aos controllers")
+	public void staticDocumentMatchesControllersTest() throws Exception {
+		String json = mvc.perform(MockMvcRequestBuilders.get("/v3/api-docs"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		ObjectMapper mapper = new ObjectMapper();
+		ObjectNode generated = (ObjectNode) mapper.readTree(json);
+		generated.remove("servers");
+
+		if (Boolean.getBoolean("openapi.update") || !Files.exists(STATIC_DOCUMENT)) {
+			mapper.writerWithDefaultPrettyPrinter().writeValue(STATIC_DOCUMENT.toFile(), generated);
+		}
+
+		JsonNode current = mapper.readTree(STATIC_DOCUMENT.toFile());
+		assertThat(current)
+				.as("static/openapi.json desatualizado, regenere com -Dopenapi.update=true")
+				.isEqualTo(generated);
+	}
+
+}
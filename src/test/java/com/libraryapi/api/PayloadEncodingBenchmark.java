@@ -0,0 +1,100 @@
+package com.libraryapi.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.libraryapi.api.dto.BookDto;
+import com.libraryapi.api.payload.LoanResponse;
+
+/**
+ * Compara CPU de serialização e bytes trafegados de páginas grandes de
+ * {@link BookDto} e {@link LoanResponse} em JSON, Smile e CBOR, com e sem gzip.
+ * Executar com: mvn test -Dtest=PayloadEncodingBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class PayloadEncodingBenchmark {
+
+	private static final int WARMUP = 200;
+	private static final int ITERATIONS = 1000;
+
+	@Test
+	@DisplayName("Benchmark de codificação das listagens")
+	public void encodingBenchmark() throws Exception {
+		System.out.printf("%-14s %-6s %10s %10s %12s %12s%n",
+				"payload", "enc", "bytes", "gzip", "ser (us)", "gzip (us)");
+		for (int size : new int[] { 100, 1000 }) {
+			report("books x" + size, books(size));
+			report("loans x" + size, loans(size));
+		}
+	}
+
+	private void report(String payload, Object page) throws IOException {
+		ObjectMapper[] mappers = { new ObjectMapper(), new SmileMapper(), new CBORMapper() };
+		String[] names = { "json", "smile", "cbor" };
+		for (int i = 0; i < mappers.length; i++) {
+			ObjectMapper mapper = mappers[i];
+			for (int w = 0; w < WARMUP; w++) {
+				gzip(mapper.writeValueAsBytes(page));
+			}
+			long serialization = 0;
+			long compression = 0;
+			byte[] raw = null;
+			byte[] compressed = null;
+			for (int n = 0; n < ITERATIONS; n++) {
+				long start = System.nanoTime();
+				raw = mapper.writeValueAsBytes(page);
+				long serialized = System.nanoTime();
+				compressed = gzip(raw);
+				compression += System.nanoTime() - serialized;
+				serialization += serialized - start;
+			}
+			System.out.printf("%-14s %-6s %10d %10d %12.1f %12.1f%n", payload, names[i], raw.length,
+					compressed.length, serialization / 1000.0 / ITERATIONS, compression / 1000.0 / ITERATIONS);
+		}
+	}
+
+	private static byte[] gzip(byte[] raw) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(raw);
+		}
+		return out.toByteArray();
+	}
+
+	private static List<BookDto> books(int size) {
+		return IntStream.range(0, size).mapToObj(PayloadEncodingBenchmark::book).collect(Collectors.toList());
+	}
+
+	private static List<LoanResponse> loans(int size) {
+		return IntStream.range(0, size)
+				.mapToObj(i -> LoanResponse.builder()
+						.loan((long) i)
+						.customer("Cliente " + i)
+						.email("cliente" + i + "@email.com")
+						.book(book(i % 50))
+						.returned(i % 3 == 0)
+						.build())
+				.collect(Collectors.toList());
+	}
+
+	private static BookDto book(int i) {
+		return BookDto.builder()
+				.id((long) i)
+				.title("Título do livro número " + i)
+				.author("Autor " + (i % 200))
+				.isbn(String.format("978%010d", i))
+				.build();
+	}
+
+}
@@ -0,0 +1,45 @@
+package com.libraryapi.api.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+	private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+	@Test
+	@DisplayName("Deve recusar requisições acima do limite de concorrência")
+	public void rejectAboveLimitTest() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 2, TARGET);
+
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isFalse();
+		assertThat(limiter.getInFlight()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("Deve reduzir o limite quando a latência passa do alvo e recuperá-lo depois")
+	public void adjustLimitByLatencyTest() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 20, TARGET);
+
+		for (int i = 0; i < 30; i++) {
+			limiter.tryAcquire();
+			limiter.release(TARGET * 2);
+		}
+		assertThat(limiter.getLimit()).isEqualTo(2);
+
+		for (int i = 0; i < 200; i++) {
+			limiter.tryAcquire();
+			limiter.tryAcquire();
+			limiter.release(TARGET / 2);
+			limiter.release(TARGET / 2);
+		}
+		assertThat(limiter.getLimit()).isGreaterThan(2);
+	}
+
+}
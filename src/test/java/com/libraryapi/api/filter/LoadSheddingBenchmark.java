@@ -0,0 +1,129 @@
+package com.libraryapi.api.filter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Gerador de carga em malha aberta contra um backend simulado com 200 threads
+ * (Tomcat) e 10 conexões (pool) de 5 ms cada, ou seja, capacidade de ~2000
+ * req/s. Compara o goodput (respostas 200 dentro do timeout de 1 s do cliente)
+ * com e sem o {@link LoadSheddingFilter} conforme a carga passa da saturação.
+ * Executar com: mvn test -Dtest=LoadSheddingBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class LoadSheddingBenchmark {
+
+	private static final int WORKERS = 200;
+	private static final int CONNECTIONS = 10;
+	private static final long SERVICE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+	private static final long CONNECTION_TIMEOUT_MS = 500;
+	private static final long CLIENT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final int DURATION_SECONDS = 3;
+	private static final int CLIENTS = 100;
+
+	@Test
+	@DisplayName("Benchmark de goodput além da saturação")
+	public void goodputBenchmark() throws Exception {
+		System.out.printf("%-8s %-10s %10s %10s %10s %10s%n", "carga", "filtro", "goodput/s", "timeouts", "429", "503");
+		for (int rate : new int[] { 1000, 2000, 3000, 4000, 8000 }) {
+			run(rate, null);
+			run(rate, filter());
+		}
+	}
+
+	private void run(int rate, LoadSheddingFilter filter) throws Exception {
+		Semaphore pool = new Semaphore(CONNECTIONS, true);
+		HttpServlet backend = new HttpServlet() {
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) {
+				try {
+					if (!pool.tryAcquire(CONNECTION_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+						resp.setStatus(500);
+						return;
+					}
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				try {
+					LockSupport.parkNanos(SERVICE_NANOS);
+				} finally {
+					pool.release();
+				}
+			}
+		};
+
+		ThreadPoolExecutor tomcat = new ThreadPoolExecutor(WORKERS, WORKERS, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>());
+		LongAdder good = new LongAdder();
+		LongAdder late = new LongAdder();
+		LongAdder limited = new LongAdder();
+		LongAdder shed = new LongAdder();
+
+		long start = System.nanoTime();
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+		long total = (long) rate * DURATION_SECONDS;
+		for (long i = 0; i < total; i++) {
+			long scheduled = start + i * intervalNanos;
+			long delay = scheduled - System.nanoTime();
+			if (delay > 0) {
+				LockSupport.parkNanos(delay);
+			}
+			String client = "10.0." + (i % CLIENTS / 256) + "." + (i % CLIENTS % 256);
+			tomcat.execute(() -> {
+				MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1");
+				request.setRemoteAddr(client);
+				MockHttpServletResponse response = new MockHttpServletResponse();
+				try {
+					if (filter != null) {
+						filter.doFilter(request, response, new MockFilterChain(backend));
+					} else {
+						new MockFilterChain(backend).doFilter(request, response);
+					}
+				} catch (Exception ex) {
+					response.setStatus(500);
+				}
+				long latency = System.nanoTime() - scheduled;
+				switch (response.getStatus()) {
+					case 200 -> (latency <= CLIENT_TIMEOUT_NANOS ? good : late).increment();
+					case 429 -> limited.increment();
+					case 503 -> shed.increment();
+					default -> late.increment();
+				}
+			});
+		}
+		tomcat.shutdown();
+		tomcat.awaitTermination(5, TimeUnit.MINUTES);
+
+		System.out.printf("%-8d %-10s %10d %10d %10d %10d%n", rate, filter == null ? "sem" : "com",
+				good.sum() / DURATION_SECONDS, late.sum(), limited.sum(), shed.sum());
+	}
+
+	private LoadSheddingFilter filter() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(CONNECTIONS, WORKERS,
+				TimeUnit.MILLISECONDS.toNanos(50));
+		return new LoadSheddingFilter(Map.of(RequestBudget.READ, new BudgetPolicy(50, 100, CLIENTS * 2, limiter)),
+				Set.of(), new ObjectMapper(), new SimpleMeterRegistry());
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.libraryapi.api.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+public class LoadSheddingFilterTest {
+
+	@Test
+	@DisplayName("Deve classificar as requisições em leitura, listagem e escrita")
+	public void classifyTest() {
+		assertThat(RequestBudget.classify("GET", "/api/books/1")).isEqualTo(RequestBudget.READ);
+		assertThat(RequestBudget.classify("GET", "/api/books")).isEqualTo(RequestBudget.SEARCH);
+		assertThat(RequestBudget.classify("GET", "/api/loans")).isEqualTo(RequestBudget.SEARCH);
+		assertThat(RequestBudget.classify("GET", "/api/books/1/loans")).isEqualTo(RequestBudget.SEARCH);
+		assertThat(RequestBudget.classify("POST", "/api/books/availability")).isEqualTo(RequestBudget.SEARCH);
+		assertThat(RequestBudget.classify("POST", "/api/loans")).isEqualTo(RequestBudget.WRITE);
+	}
+
+	@Test
+	@DisplayName("Deve responder 429 quando o cliente esgota sua cota, sem afetar outros clientes")
+	public void rateLimitPerClientTest() throws Exception {
+		LoadSheddingFilter filter = filter(2, 10);
+
+		assertThat(perform(filter, "GET", "/api/books", "A").getStatus()).isEqualTo(200);
+		assertThat(perform(filter, "GET", "/api/books", "A").getStatus()).isEqualTo(200);
+		MockHttpServletResponse rejected = perform(filter, "GET", "/api/books", "A");
+
+		assertThat(rejected.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+		assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isNotNull();
+		assertThat(rejected.getContentAsString()).contains("Limite de requisições excedido.");
+		assertThat(perform(filter, "GET", "/api/books", "B").getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	@DisplayName("Deve usar cotas separadas para leituras e listagens")
+	public void separateBudgetsTest() throws Exception {
+		LoadSheddingFilter filter = filter(1, 10);
+
+		assertThat(perform(filter, "GET", "/api/books", "A").getStatus()).isEqualTo(200);
+		assertThat(perform(filter, "GET", "/api/books", "A").getStatus()).isEqualTo(429);
+		assertThat(perform(filter, "GET", "/api/books/1", "A").getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	@DisplayName("Deve ignorar chaves de API não configuradas e identificar o cliente pelo IP")
+	public void unknownApiKeyTest() throws Exception {
+		LoadSheddingFilter filter = filter(1, 10);
+
+		assertThat(perform(filter, "GET", "/api/books", "10.0.0.1", "inventada-1").getStatus()).isEqualTo(200);
+		assertThat(perform(filter, "GET", "/api/books", "10.0.0.1", "inventada-2").getStatus()).isEqualTo(429);
+		assertThat(perform(filter, "GET", "/api/books", "10.0.0.1", "parceiro").getStatus()).isEqualTo(200);
+		assertThat(perform(filter, "GET", "/api/books", "10.0.0.2", "parceiro").getStatus()).isEqualTo(429);
+	}
+
+	@Test
+	@DisplayName("Deve colocar os clientes novos em um bucket compartilhado quando não há vaga")
+	public void sharedBucketWhenFullTest() {
+		BudgetPolicy policy = new BudgetPolicy(0.001, 1, 2, new AdaptiveConcurrencyLimiter(1, 10, 1));
+		long now = System.nanoTime();
+
+		assertThat(policy.tryConsume("A", now)).isZero();
+		assertThat(policy.tryConsume("B", now)).isZero();
+		assertThat(policy.tryConsume("C", now)).isZero();
+		assertThat(policy.tryConsume("D", now)).isPositive();
+		assertThat(policy.getTrackedClients()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("Deve responder 503 quando o limite de concorrência está esgotado")
+	public void shedAboveConcurrencyLimitTest() throws Exception {
+		LoadSheddingFilter filter = filter(100, 1);
+		MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+		HttpServlet reentrant = new HttpServlet() {
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) {
+				try {
+					nested[0] = perform(filter, "GET", "/api/books/2", "B");
+				} catch (Exception ex) {
+					throw new IllegalStateException(ex);
+				}
+			}
+		};
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/1");
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(reentrant));
+
+		assertThat(nested[0].getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+		assertThat(nested[0].getContentAsString()).contains("Servidor sobrecarregado");
+	}
+
+	private LoadSheddingFilter filter(double burst, int maxConcurrency) {
+		long target = TimeUnit.SECONDS.toNanos(1);
+		return new LoadSheddingFilter(Map.of(
+				RequestBudget.READ, new BudgetPolicy(0.001, burst, 100,
+						new AdaptiveConcurrencyLimiter(1, maxConcurrency, target)),
+				RequestBudget.SEARCH, new BudgetPolicy(0.001, burst, 100,
+						new AdaptiveConcurrencyLimiter(1, maxConcurrency, target))),
+				Set.of("parceiro"), new ObjectMapper(), new SimpleMeterRegistry());
+	}
+
+	private MockHttpServletResponse perform(LoadSheddingFilter filter, String method, String uri, String client)
+			throws Exception {
+		return perform(filter, method, uri, client, null);
+	}
+
+	private MockHttpServletResponse perform(LoadSheddingFilter filter, String method, String uri, String client,
+			String apiKey) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		request.setRemoteAddr(client);
+		if (apiKey != null) {
+			request.addHeader(LoadSheddingFilter.API_KEY_HEADER, apiKey);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+
+}
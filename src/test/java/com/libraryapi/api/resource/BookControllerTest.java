@@ -1,7 +1,9 @@
 package com.libraryapi.api.resource;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -16,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -25,19 +28,27 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.libraryapi.api.dto.BookDto;
+import com.libraryapi.api.payload.BookAvailabilityRequest;
+import com.libraryapi.api.payload.BookRequestCreate;
+import com.libraryapi.config.MessageConverterConfig;
 import com.libraryapi.exception.BusinessException;
 import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.projection.BookAvailability;
 import com.libraryapi.service.BookService;
 import com.libraryapi.service.LoanService;
 
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
 @AutoConfigureMockMvc
+@Import(MessageConverterConfig.class)
 public class BookControllerTest {
 	
 	static String BOOK_API = "/api/books";
+	static MediaType APPLICATION_CBOR = MediaType.valueOf("application/cbor");
 	
 	@Autowired
 	MockMvc mvc;
@@ -73,6 +84,39 @@ public class BookControllerTest {
 			.andExpect(jsonPath("isbn").value(dto.getIsbn()));
 	}
 	
+	@Test
+	@DisplayName("Deve criar um livro com a quantidade de exemplares informada.")
+	public void createBookWithCopiesTest() throws Exception {
+		String json = new ObjectMapper().writeValueAsString(BookRequestCreate.builder()
+				.title("Catching Fire").author("Suzanne Collins").isbn("001").copies(3).build());
+		Book saveBook = Book.builder().id(10l).author("Suzanne Collins").title("Catching Fire").isbn("001")
+				.copies(3).availableCopies(3).build();
+		BDDMockito.given(service.save(Mockito.any(Book.class))).willReturn(saveBook);
+
+		mvc.perform(MockMvcRequestBuilders.post(BOOK_API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(json))
+			.andExpect(status().isCreated())
+			.andExpect(jsonPath("id").value(10l));
+
+		Mockito.verify(service).save(Mockito.argThat(book -> book.getCopies() == 3));
+	}
+
+	@Test
+	@DisplayName("Deve lançar erro ao criar um livro sem nenhum exemplar.")
+	public void createBookWithoutCopiesTest() throws Exception {
+		String json = new ObjectMapper().writeValueAsString(BookRequestCreate.builder()
+				.title("Catching Fire").author("Suzanne Collins").isbn("001").copies(0).build());
+
+		mvc.perform(MockMvcRequestBuilders.post(BOOK_API)
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(json))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("errors[0]").value("Informe ao menos um exemplar."));
+	}
+
 	@Test
 	@DisplayName("Deve lançar erro quando não houver dados suficiente para criar um livro.")
 	public void createInvalidBookeTest() throws Exception {
@@ -181,12 +225,8 @@ public class BookControllerTest {
     	Long id = 1l;
     	String json = new ObjectMapper().writeValueAsString(createNewBook());
     	
-    	Book updatingBook = Book.builder().id(1l).title("some title").author("some author").isbn("321").build();
-    	BDDMockito.given(service.getById(anyLong()))
-    		.willReturn(Optional.of(updatingBook));
-    	
     	Book updateBook = Book.builder().id(id).author("Suzanne Collins").title("Catching Fire").isbn("321").build();
-    	BDDMockito.given(service.update(updatingBook)).willReturn(updateBook);
+    	BDDMockito.given(service.update(Mockito.any(Book.class))).willReturn(Optional.of(updateBook));
     	
     	MockHttpServletRequestBuilder request = MockMvcRequestBuilders
     			.put(BOOK_API.concat("/" + 1))
@@ -206,7 +246,7 @@ public class BookControllerTest {
     @DisplayName("Deve retornar not found quando não encontrar o livro ao atualizar")
     public void updateInexistentBookTest() throws Exception {
     	String json = new ObjectMapper().writeValueAsString(createNewBook());
-        BDDMockito.given(service.getById(anyLong()))
+        BDDMockito.given(service.update(Mockito.any(Book.class)))
     		.willReturn(Optional.empty());
         
     	MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -219,6 +259,27 @@ public class BookControllerTest {
     		.andExpect(status().isNotFound());
     }
     
+    @Test
+    @DisplayName("Deve sugerir livros pelo prefixo do título ou autor")
+    public void suggestBooksTest() throws Exception {
+        Book book = Book.builder().id(1l).title("Jogos vorazes").author("Suzanne Collins").isbn("9780306406157").build();
+        BDDMockito.given(service.suggest("jog vor", 5)).willReturn(Arrays.asList(book));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/suggest?q=jog vor&limit=5"))
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].title").value("Jogos vorazes"));
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar limite de sugestões fora do intervalo")
+    public void suggestBooksInvalidLimitTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/suggest?q=jog&limit=500"))
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Deve filtrar livros")
     public void findBooksTest() throws Exception{
@@ -250,6 +311,112 @@ public class BookControllerTest {
             .andExpect(jsonPath("$.[0].isbn").value("001"));
     }
     
+    @Test
+    @DisplayName("Deve retornar a lista de livros em CBOR quando solicitado pelo cabeçalho Accept")
+    public void findBooksCborTest() throws Exception{
+        Book book = Book.builder().id(1l).title("Catching Fire").author("Suzanne Collins").isbn("001").build();
+
+        BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0,100), 1));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?page=0&size=100"))
+                .accept(APPLICATION_CBOR);
+
+        byte[] body = mvc
+            .perform(request)
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(APPLICATION_CBOR))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode books = new CBORMapper().readTree(body);
+        assertThat(books.get(0).get("id").asLong()).isEqualTo(1l);
+        assertThat(books.get(0).get("isbn").asText()).isEqualTo("001");
+    }
+    
+    @Test
+    @DisplayName("Deve informar a disponibilidade de um livro")
+    public void bookAvailabilityTest() throws Exception {
+        BDDMockito.given(loanService.isBookAvailable(1l)).willReturn(Optional.of(false));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/1/availability"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+            .perform(request)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("id").value(1))
+            .andExpect(jsonPath("available").value(false));
+    }
+
+    @Test
+    @DisplayName("Deve retornar resource not found ao consultar a disponibilidade de um livro inexistente")
+    public void bookAvailabilityNotFoundTest() throws Exception {
+        BDDMockito.given(loanService.isBookAvailable(Mockito.anyLong())).willReturn(Optional.empty());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("/1/availability"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc
+            .perform(request)
+            .andExpect(status().isNotFound());
+    }
+    
+    @Test
+    @DisplayName("Deve informar a disponibilidade de vários livros em uma requisição")
+    public void batchAvailabilityTest() throws Exception {
+        BookAvailability loaned = availability(1l, "001", 1l, 0);
+        BookAvailability available = availability(2l, "002", 1l, 1);
+        BDDMockito.given(service.getAvailability(Mockito.anyList(), Mockito.anyList()))
+                .willReturn(Arrays.asList(loaned, available));
+
+        String json = new ObjectMapper().writeValueAsString(
+                BookAvailabilityRequest.builder().ids(Arrays.asList(1l)).isbns(Arrays.asList("002")).build());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/availability"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc
+            .perform(request)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].isbn").value("001"))
+            .andExpect(jsonPath("$.[0].available").value(false))
+            .andExpect(jsonPath("$.[0].openLoans").value(1))
+            .andExpect(jsonPath("$.[0].availableCopies").value(0))
+            .andExpect(jsonPath("$.[1].available").value(true))
+            .andExpect(jsonPath("$.[1].availableCopies").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao consultar disponibilidade sem ids nem isbns")
+    public void batchAvailabilityWithoutKeysTest() throws Exception {
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/availability"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("{}");
+
+        mvc
+            .perform(request)
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("errors[0]").value("Informe os ids ou os ISBNs dos livros."));
+    }
+
+    private BookAvailability availability(Long id, String isbn, Long openLoans, Integer availableCopies) {
+        BookAvailability availability = Mockito.mock(BookAvailability.class);
+        BDDMockito.given(availability.getId()).willReturn(id);
+        BDDMockito.given(availability.getIsbn()).willReturn(isbn);
+        BDDMockito.given(availability.getOpenLoans()).willReturn(openLoans);
+        BDDMockito.given(availability.getAvailableCopies()).willReturn(availableCopies);
+        return availability;
+    }
+    
     private BookDto createNewBook() {
         return BookDto.builder().author("Suzanne Collins").title("Catching Fire").isbn("001").build();
     }
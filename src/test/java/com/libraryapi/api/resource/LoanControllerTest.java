@@ -30,12 +30,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.libraryapi.api.dto.LoanDto;
 import com.libraryapi.api.dto.LoanFilterDto;
 import com.libraryapi.api.dto.ReturnedLoanDto;
+import com.libraryapi.api.payload.LoanBatchRequest;
 import com.libraryapi.exception.BusinessException;
 import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.Customer;
 import com.libraryapi.model.entity.Loan;
 import com.libraryapi.service.BookService;
+import com.libraryapi.service.CustomerService;
 import com.libraryapi.service.LoanService;
 import com.libraryapi.service.LoanServiceTest;
+import com.libraryapi.service.writebehind.LoanWriteBehindQueue;
 
 @ActiveProfiles("test")
 @WebMvcTest(controllers = LoanController.class)
@@ -53,6 +57,12 @@ public class LoanControllerTest {
 	@MockBean
 	private LoanService loanService;
 	
+	@MockBean
+	private CustomerService customerService;
+	
+	@MockBean
+	private LoanWriteBehindQueue writeBehindQueue;
+	
     @Test
     @DisplayName("Deve realizar um emprestimo")
     public void createLoanTest() throws Exception {
@@ -62,7 +72,10 @@ public class LoanControllerTest {
         Book book = Book.builder().id(1l).isbn("123").build();
         BDDMockito.given( bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
 
-        Loan loan = Loan.builder().id(1l).customer("Fulano").book(book).loanDate(LocalDate.now()).build();
+        Customer customer = Customer.builder().id(1l).name("Fulano").email("customer@email.com").build();
+        BDDMockito.given(customerService.getOrCreate("Fulano", "customer@email.com")).willReturn(customer);
+
+        Loan loan = Loan.builder().id(1l).customer(customer).book(book).loanDate(LocalDate.now()).build();
         BDDMockito.given(loanService.save(Mockito.any(Loan.class))).willReturn(loan);
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API)
@@ -74,9 +87,46 @@ public class LoanControllerTest {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("loan").value("1"))
                 .andExpect(jsonPath("customer").value("Fulano"))
+                .andExpect(jsonPath("email").value("customer@email.com"))
                 .andExpect(jsonPath("returned").value(false));
     }
 
+    @Test
+    @DisplayName("Deve emprestar vários livros em lote com o resultado de cada ISBN")
+    public void createBatchLoanTest() throws Exception {
+        LoanBatchRequest dto = LoanBatchRequest.builder()
+                .isbns(Arrays.asList("9780306406157", "9788532530783", "0-306-40615-2", "9780804429573"))
+                .customer("Fulano").email("customer@email.com").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        Book available = Book.builder().id(1l).isbn("9780306406157").isbnKey(9780306406157l).title("Jogos vorazes").build();
+        Book loaned = Book.builder().id(2l).isbn("9788532530783").isbnKey(9788532530783l).build();
+        BDDMockito.given(bookService.getBooksByIsbn(dto.getIsbns())).willReturn(Arrays.asList(available, loaned));
+
+        Customer customer = Customer.builder().id(1l).name("Fulano").email("customer@email.com").build();
+        BDDMockito.given(customerService.getOrCreate("Fulano", "customer@email.com")).willReturn(customer);
+
+        Loan loan = Loan.builder().id(10l).customer(customer).book(available).loanDate(LocalDate.now()).build();
+        BDDMockito.given(loanService.saveAll(Mockito.anyList())).willReturn(Arrays.asList(loan));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API.concat("/batch"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("customer").value("Fulano"))
+                .andExpect(jsonPath("items", Matchers.hasSize(4)))
+                .andExpect(jsonPath("items[0].status").value("EMPRESTADO"))
+                .andExpect(jsonPath("items[0].loan").value(10))
+                .andExpect(jsonPath("items[0].book.title").value("Jogos vorazes"))
+                .andExpect(jsonPath("items[1].status").value("INDISPONIVEL"))
+                .andExpect(jsonPath("items[2].status").value("REPETIDO"))
+                .andExpect(jsonPath("items[3].status").value("NAO_ENCONTRADO"));
+        Mockito.verify(loanService).saveAll(Mockito.argThat(loans -> loans.size() == 2));
+    }
+
     @Test
     @DisplayName("Deve retornar erro ao tentar fazer emprestimo de um livro inexistente.")
     public void invalidIsbnCreateLoanTest() throws Exception{
@@ -169,7 +219,7 @@ public class LoanControllerTest {
                 .willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0,10), 1));
 
         String queryString = String.format("?isbn=%s&customer=%s&page=0&size=10",
-                book.getIsbn(), loan.getCustomer());
+                book.getIsbn(), loan.getCustomer().getName());
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .get(LOAN_API.concat(queryString))
@@ -184,4 +234,74 @@ public class LoanControllerTest {
                 .andExpect(jsonPath("$.[0].book.isbn").value("321"));
     }
 
+    @Test
+    @DisplayName("Deve aceitar uma reserva de empréstimo no modo assíncrono")
+    public void reserveLoanTest() throws Exception {
+        LoanDto dto = LoanDto.builder().isbn("123").email("customer@email.com").customer("Fulano").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        Book book = Book.builder().id(1l).isbn("123").build();
+        BDDMockito.given(writeBehindQueue.isEnabled()).willReturn(true);
+        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        BDDMockito.given(writeBehindQueue.reserve(book, "Fulano", "customer@email.com")).willReturn(Optional.of("ref-1"));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API.concat("/reservations"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("reference").value("ref-1"))
+                .andExpect(jsonPath("status").value("PENDENTE"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar indisponível quando a fila de reservas estiver cheia")
+    public void reserveLoanWithFullQueueTest() throws Exception {
+        LoanDto dto = LoanDto.builder().isbn("123").email("customer@email.com").customer("Fulano").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        Book book = Book.builder().id(1l).isbn("123").build();
+        BDDMockito.given(writeBehindQueue.isEnabled()).willReturn(true);
+        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        BDDMockito.given(writeBehindQueue.reserve(book, "Fulano", "customer@email.com")).willReturn(Optional.empty());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(LOAN_API.concat("/reservations"))
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("errors[0]").value("Fila de empréstimos cheia, tente novamente."));
+    }
+
+    @Test
+    @DisplayName("Deve informar o empréstimo criado a partir de uma reserva persistida")
+    public void persistedReservationTest() throws Exception {
+        Loan loan = LoanServiceTest.createLoan();
+        loan.setId(7l);
+        BDDMockito.given(writeBehindQueue.isPending("ref-1")).willReturn(false);
+        BDDMockito.given(loanService.getByReference("ref-1")).willReturn(Optional.of(loan));
+
+        mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("/reservations/ref-1")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("status").value("PERSISTIDO"))
+                .andExpect(jsonPath("loan").value(7));
+    }
+
+    @Test
+    @DisplayName("Deve informar o motivo de uma reserva descartada em vez de não encontrá-la")
+    public void discardedReservationTest() throws Exception {
+        BDDMockito.given(writeBehindQueue.isPending("ref-1")).willReturn(false);
+        BDDMockito.given(writeBehindQueue.discardReason("ref-1")).willReturn(Optional.of("Livro já emprestado."));
+
+        mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("/reservations/ref-1")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("status").value("DESCARTADO"))
+                .andExpect(jsonPath("reason").value("Livro já emprestado."))
+                .andExpect(jsonPath("loan").doesNotExist());
+    }
+
 }
@@ -0,0 +1,146 @@
+package com.libraryapi.api.resource;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.libraryapi.api.dto.LoanDto;
+import com.libraryapi.api.sse.WaitlistEmitters;
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.BookReservation;
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.model.entity.Loan;
+import com.libraryapi.service.BookService;
+import com.libraryapi.service.CustomerService;
+import com.libraryapi.service.ReservationPromotedEvent;
+import com.libraryapi.service.ReservationService;
+
+@ActiveProfiles("test")
+@WebMvcTest(controllers = WaitlistController.class)
+@AutoConfigureMockMvc
+public class WaitlistControllerTest {
+
+    static final String WAITLIST_API = "/api/waitlist";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    private ReservationService reservationService;
+
+    @MockBean
+    private BookService bookService;
+
+    @MockBean
+    private CustomerService customerService;
+
+    @MockBean
+    private WaitlistEmitters emitters;
+
+    @Test
+    @DisplayName("Deve entrar na fila de espera e informar a posição")
+    public void reserveTest() throws Exception {
+        LoanDto dto = LoanDto.builder().isbn("123").email("customer@email.com").customer("Fulano").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        Book book = Book.builder().id(1l).isbn("123").build();
+        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        Customer customer = Customer.builder().id(1l).name("Fulano").email("customer@email.com").build();
+        BDDMockito.given(customerService.getOrCreate("Fulano", "customer@email.com")).willReturn(customer);
+        BookReservation reservation = BookReservation.builder().id(5l).book(book).customer(customer)
+                .createdAt(LocalDateTime.now()).build();
+        BDDMockito.given(reservationService.reserve(book, customer)).willReturn(reservation);
+        BDDMockito.given(reservationService.position(reservation)).willReturn(2l);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(WAITLIST_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("reservation").value(5))
+                .andExpect(jsonPath("status").value("AGUARDANDO"))
+                .andExpect(jsonPath("position").value(3));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao entrar na fila de um livro inexistente")
+    public void reserveInexistentBookTest() throws Exception {
+        LoanDto dto = LoanDto.builder().isbn("123").email("customer@email.com").customer("Fulano").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.empty());
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders.post(WAITLIST_API)
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve informar o empréstimo de uma reserva já atendida")
+    public void getPromotedReservationTest() throws Exception {
+        BDDMockito.given(reservationService.getById(5l)).willReturn(Optional.of(createPromotedReservation()));
+
+        mvc.perform(get(WAITLIST_API + "/5").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("status").value("EMPRESTADO"))
+                .andExpect(jsonPath("loan").value(9))
+                .andExpect(jsonPath("position").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve retornar 404 para uma reserva inexistente, inclusive ao aguardar a vez")
+    public void reservationNotFoundTest() throws Exception {
+        BDDMockito.given(reservationService.getById(5l)).willReturn(Optional.empty());
+
+        mvc.perform(get(WAITLIST_API + "/5").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+        mvc.perform(get(WAITLIST_API + "/5/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNotFound());
+
+        Mockito.verify(emitters).unsubscribe(Mockito.eq(5l), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve avisar na hora quem passa a aguardar uma reserva já atendida")
+    public void eventsForPromotedReservationTest() throws Exception {
+        BDDMockito.given(reservationService.getById(5l)).willReturn(Optional.of(createPromotedReservation()));
+
+        mvc.perform(get(WAITLIST_API + "/5/events").accept(MediaType.TEXT_EVENT_STREAM));
+
+        Mockito.verify(emitters).subscribe(5l);
+        Mockito.verify(emitters).onPromoted(new ReservationPromotedEvent(5l, 9l, 1l));
+    }
+
+    private BookReservation createPromotedReservation() {
+        Book book = Book.builder().id(1l).build();
+        Customer customer = Customer.builder().id(1l).build();
+        Loan loan = Loan.builder().id(9l).book(book).customer(customer).loanDate(LocalDate.now()).build();
+        return BookReservation.builder().id(5l).book(book).customer(customer).createdAt(LocalDateTime.now())
+                .loan(loan).build();
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.libraryapi.config;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+
+/**
+ * Vazão e p99 de requisições simuladas (10 µs de CPU, 200 µs de espera por
+ * I/O e uma linha INFO por requisição) com log desligado, appender de arquivo
+ * síncrono e o mesmo appender atrás de um AsyncAppender configurado como no
+ * logback-spring.xml, informando quantas linhas foram descartadas.
+ * Executar com: mvn test -Dtest=AsyncLoggingBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class AsyncLoggingBenchmark {
+
+	private static final int THREADS = 32;
+	private static final long DURATION_MS = 3000;
+	private static final long CPU_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+	private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+	@Test
+	@DisplayName("Benchmark de vazão com log síncrono, assíncrono e desligado")
+	public void loggingBenchmark() throws Exception {
+		System.out.printf("%-12s %12s %12s %12s%n", "log", "req/s", "p99 (us)", "descartadas");
+		run("desligado", null);
+		run("sincrono", false);
+		run("assincrono", true);
+	}
+
+	private void run(String scenario, Boolean async) throws Exception {
+		LoggerContext context = new LoggerContext();
+		context.setMDCAdapter(new LogbackMDCAdapter());
+		Logger logger = context.getLogger("benchmark");
+		Path file = Files.createTempFile("async-logging", ".log");
+		Appender<ILoggingEvent> appender = null;
+		if (async == null) {
+			logger.setLevel(Level.OFF);
+		} else {
+			appender = async ? asyncAppender(context, fileAppender(context, file)) : fileAppender(context, file);
+			logger.addAppender(appender);
+			logger.setLevel(Level.INFO);
+		}
+
+		LongAdder requests = new LongAdder();
+		long[][] latencies = new long[THREADS][];
+		int[] counts = new int[THREADS];
+		CountDownLatch done = new CountDownLatch(THREADS);
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			latencies[t] = new long[2_000_000];
+			Thread.ofPlatform().start(() -> {
+				long id = 0;
+				while (System.nanoTime() < deadline && counts[thread] < latencies[thread].length) {
+					long start = System.nanoTime();
+					busyWork();
+					logger.info("Obtendo detalhes do livro pelo id: {}", ++id);
+					latencies[thread][counts[thread]++] = System.nanoTime() - start;
+					requests.increment();
+				}
+				done.countDown();
+			});
+		}
+		done.await();
+		if (appender != null) {
+			appender.stop();
+		}
+		context.stop();
+		long written;
+		try (Stream<String> lines = Files.lines(file)) {
+			written = lines.count();
+		}
+		Files.deleteIfExists(file);
+
+		long[] all = new long[Arrays.stream(counts).sum()];
+		int position = 0;
+		for (int t = 0; t < THREADS; t++) {
+			System.arraycopy(latencies[t], 0, all, position, counts[t]);
+			position += counts[t];
+		}
+		Arrays.sort(all);
+		System.out.printf("%-12s %12d %12.1f %12d%n", scenario, requests.sum() * 1000 / DURATION_MS,
+				all[(int) (all.length * 0.99)] / 1e3, async == null ? 0 : requests.sum() - written);
+	}
+
+	private static FileAppender<ILoggingEvent> fileAppender(LoggerContext context, Path file) {
+		PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+		encoder.setContext(context);
+		encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%t] %-40.40logger{39} : %m%n");
+		encoder.start();
+		FileAppender<ILoggingEvent> appender = new FileAppender<>();
+		appender.setContext(context);
+		appender.setFile(file.toString());
+		appender.setEncoder(encoder);
+		appender.start();
+		return appender;
+	}
+
+	private static AsyncAppender asyncAppender(LoggerContext context, Appender<ILoggingEvent> delegate) {
+		AsyncAppender appender = new AsyncAppender();
+		appender.setContext(context);
+		appender.setQueueSize(8192);
+		appender.setDiscardingThreshold(1638);
+		appender.setIncludeCallerData(false);
+		appender.addAppender(delegate);
+		appender.start();
+		return appender;
+	}
+
+	private static void busyWork() {
+		long end = System.nanoTime() + CPU_NANOS;
+		while (System.nanoTime() < end) {
+			Thread.onSpinWait();
+		}
+		LockSupport.parkNanos(WAIT_NANOS);
+	}
+
+}
@@ -0,0 +1,187 @@
+package com.libraryapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Mede o custo do tracing no caminho completo de POST /api/books + POST
+ * /api/loans (um banco H2 em memória por cenário): sem observabilidade, com amostragem 0 e com
+ * amostragem 1. Os spans não são exportados, isolando o custo de criá-los.
+ * Cada cenário sobe seu contexto e faz um aquecimento descartado; depois os
+ * três são medidos em rodadas intercaladas, com a ordem trocada a cada rodada,
+ * para que o JIT e o crescimento das tabelas não favoreçam o cenário que roda
+ * por último.
+ * Executar com: mvn test -Dtest=TracingOverheadBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+public class TracingOverheadBenchmark {
+
+	private static final String MESSAGE = "lateloans.message=Empréstimo atrasado";
+	private static final String REMETENT = "defaultRemetent=mail@library-api.com";
+	private static final String MAIL_HOST = "spring.mail.host=localhost";
+	private static final String NO_LOG_EXPORT = "tracing.logging-exporter=false";
+	private static final String JDBC_SPANS = "jdbc.includes=query,fetch";
+	// management.tracing.enabled=false só desliga os exportadores: o tracer, o de JDBC inclusive, continua criando spans
+	private static final String WITHOUT_TRACER = "spring.autoconfigure.exclude="
+			+ "org.springframework.boot.actuate.autoconfigure.tracing.MicrometerTracingAutoConfiguration,"
+			+ "org.springframework.boot.actuate.autoconfigure.tracing.OpenTelemetryAutoConfiguration,"
+			+ "org.springframework.boot.actuate.autoconfigure.tracing.NoopTracerAutoConfiguration,"
+			+ "net.ttddyy.observation.boot.autoconfigure.DataSourceObservationAutoConfiguration";
+
+	private static final int WARMUP = 2000;
+	private static final int ROUNDS = 12;
+	private static final int ITERATIONS_PER_ROUND = 250;
+
+	private static final Map<String, MockMvc> SCENARIOS = new LinkedHashMap<>();
+	private static final AtomicLong NEXT_ISBN = new AtomicLong(978_000_000_000L);
+
+	@Nested
+	@SpringBootTest(properties = { MESSAGE, REMETENT, MAIL_HOST, NO_LOG_EXPORT, JDBC_SPANS,
+			"spring.datasource.url=jdbc:h2:mem:without-tracing", WITHOUT_TRACER })
+	@AutoConfigureMockMvc
+	@ActiveProfiles("test")
+	@Order(1)
+	class WithoutTracing {
+
+		@Autowired
+		MockMvc mvc;
+
+		@Test
+		@DisplayName("Sem tracing")
+		public void benchmark() throws Exception {
+			warmUp(mvc, "sem tracing");
+		}
+
+	}
+
+	@Nested
+	@SpringBootTest(properties = { MESSAGE, REMETENT, MAIL_HOST, NO_LOG_EXPORT, JDBC_SPANS,
+			"spring.datasource.url=jdbc:h2:mem:no-sampling", "management.tracing.sampling.probability=0.0" })
+	@AutoConfigureMockMvc
+	@AutoConfigureObservability
+	@ActiveProfiles("test")
+	@Order(2)
+	class NoSampling {
+
+		@Autowired
+		MockMvc mvc;
+
+		@Test
+		@DisplayName("Tracing com amostragem 0")
+		public void benchmark() throws Exception {
+			warmUp(mvc, "amostragem 0");
+		}
+
+	}
+
+	@Nested
+	@SpringBootTest(properties = { MESSAGE, REMETENT, MAIL_HOST, NO_LOG_EXPORT, JDBC_SPANS,
+			"spring.datasource.url=jdbc:h2:mem:full-sampling", "management.tracing.sampling.probability=1.0" })
+	@AutoConfigureMockMvc
+	@AutoConfigureObservability
+	@ActiveProfiles("test")
+	@Order(3)
+	class FullSampling {
+
+		@Autowired
+		MockMvc mvc;
+
+		@Test
+		@DisplayName("Tracing com amostragem 1")
+		public void benchmark() throws Exception {
+			warmUp(mvc, "amostragem 1");
+		}
+
+	}
+
+	@Nested
+	@Order(4)
+	class Comparison {
+
+		@Test
+		@DisplayName("Comparação em rodadas intercaladas")
+		public void benchmark() throws Exception {
+			List<String> names = new ArrayList<>(SCENARIOS.keySet());
+			assertThat(names).hasSize(3);
+			Map<String, long[]> latencies = new LinkedHashMap<>();
+			names.forEach(name -> latencies.put(name, new long[ROUNDS * ITERATIONS_PER_ROUND]));
+
+			for (int round = 0; round < ROUNDS; round++) {
+				for (int k = 0; k < names.size(); k++) {
+					String name = names.get((round + k) % names.size());
+					MockMvc mvc = SCENARIOS.get(name);
+					long[] samples = latencies.get(name);
+					for (int i = 0; i < ITERATIONS_PER_ROUND; i++) {
+						long start = System.nanoTime();
+						createLoan(mvc);
+						samples[round * ITERATIONS_PER_ROUND + i] = System.nanoTime() - start;
+					}
+				}
+			}
+
+			latencies.forEach((name, samples) -> {
+				Arrays.sort(samples);
+				System.out.printf("%-14s média=%.3f ms  p50=%.3f ms  p99=%.3f ms%n", name,
+						Arrays.stream(samples).average().orElse(0) / 1e6,
+						samples[samples.length / 2] / 1e6, samples[(int) (samples.length * 0.99)] / 1e6);
+			});
+		}
+
+	}
+
+	private static void warmUp(MockMvc mvc, String scenario) throws Exception {
+		for (int i = 0; i < WARMUP; i++) {
+			createLoan(mvc);
+		}
+		SCENARIOS.put(scenario, mvc);
+	}
+
+	private static void createLoan(MockMvc mvc) throws Exception {
+		String isbn = nextIsbn();
+		mvc.perform(post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\":\"Livro\",\"author\":\"Autor\",\"isbn\":\"" + isbn + "\"}"))
+			.andExpect(status().isCreated());
+		mvc.perform(post("/api/loans")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"isbn\":\"" + isbn + "\",\"customer\":\"Cliente\",\"email\":\"cliente@email.com\"}"))
+			.andExpect(status().isCreated());
+	}
+
+	/** ISBN-13 válido e ainda não usado: 978 seguido de um contador e do dígito verificador. */
+	private static String nextIsbn() {
+		long first12 = NEXT_ISBN.getAndIncrement();
+		int sum = 0;
+		long digits = first12;
+		for (int i = 11; i >= 0; i--) {
+			sum += (int) (digits % 10) * (i % 2 == 0 ? 1 : 3);
+			digits /= 10;
+		}
+		return Long.toString(first12 * 10 + (10 - sum % 10) % 10);
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.libraryapi.config.sqlstats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+public class SqlStatsCollectorTest {
+
+	private static final String FIND_BY_ISBN = "select b.id, b.isbn from book b where b.isbn=?";
+
+	@Test
+	@DisplayName("Deve normalizar espaços, literais e listas IN")
+	public void normalizeTest() {
+		String sql = "select *\n   from loan where id in (?, ?, ?) and customer = 'João' and id_book=10";
+
+		assertThat(SqlStatsCollector.normalize(sql))
+				.isEqualTo("select * from loan where id in (?...) and customer = ? and id_book=?");
+		assertThat(SqlStatsCollector.normalize("select * from loan where id in (?,?)"))
+				.isEqualTo(SqlStatsCollector.normalize("select * from loan where id in (?, ?, ?, ?)"));
+	}
+
+	@Test
+	@DisplayName("Deve agregar contagem e histograma por comando normalizado")
+	public void aggregateStatementsTest() {
+		SqlStatsCollector collector = new SqlStatsCollector(1000, 5, 10);
+
+		execute(collector, FIND_BY_ISBN, "123");
+		execute(collector, FIND_BY_ISBN.replace(" ", "  "), "456");
+
+		assertThat(collector.getStatements()).hasSize(1);
+		SqlStatementStats stats = collector.getStatements().iterator().next();
+		assertThat(stats.getCount()).isEqualTo(2);
+		assertThat(stats.getHistogram().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(2);
+		assertThat(collector.getSlowQueries()).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve registrar comandos lentos com os parâmetros")
+	public void slowQueryTest() {
+		SqlStatsCollector collector = new SqlStatsCollector(0, 5, 1);
+
+		execute(collector, FIND_BY_ISBN, "123");
+		execute(collector, FIND_BY_ISBN, "456");
+
+		assertThat(collector.getSlowQueries()).hasSize(1);
+		assertThat(collector.getSlowQueries().get(0).parameters()).containsExactly(List.of("456"));
+	}
+
+	@Test
+	@DisplayName("Deve apontar SELECTs repetidos na mesma requisição como N+1")
+	public void nPlusOneTest() {
+		SqlStatsCollector collector = new SqlStatsCollector(1000, 3, 10);
+
+		collector.beginRequest();
+		for (int i = 0; i < 3; i++) {
+			execute(collector, "select c.name from customer c where c.id=?", String.valueOf(i));
+		}
+		execute(collector, FIND_BY_ISBN, "123");
+		collector.endRequest("GET /api/loans");
+
+		execute(collector, FIND_BY_ISBN, "123");
+
+		assertThat(collector.getNPlusOneSuspects()).hasSize(1);
+		assertThat(collector.getNPlusOneSuspects().get(0).request()).isEqualTo("GET /api/loans");
+		assertThat(collector.getNPlusOneSuspects().get(0).executions()).isEqualTo(3);
+	}
+
+	private void execute(SqlStatsCollector collector, String sql, String parameter) {
+		QueryInfo query = new QueryInfo(sql);
+		ParameterSetOperation setParameter = new ParameterSetOperation(setString(), new Object[] { 1, parameter });
+		query.getParametersList().add(Arrays.asList(setParameter));
+		ExecutionInfo execution = new ExecutionInfo();
+		collector.beforeQuery(execution, List.of(query));
+		collector.afterQuery(execution, List.of(query));
+	}
+
+	private static Method setString() {
+		try {
+			return PreparedStatement.class.getMethod("setString", int.class, String.class);
+		} catch (NoSuchMethodException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
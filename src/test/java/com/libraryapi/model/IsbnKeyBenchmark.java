@@ -0,0 +1,138 @@
+package com.libraryapi.model;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Índice único do ISBN em texto contra o da chave numérica, em um H2 em arquivo
+ * com 1 milhão de livros: tamanho do índice (diferença do arquivo compactado) e
+ * latência de consultas pontuais. Informa também o custo da normalização.
+ * No PostgreSQL, a mesma comparação é feita por scripts/isbn-key-index.sql.
+ * Executar com: mvn test -Dtest=IsbnKeyBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class IsbnKeyBenchmark {
+
+	private static final int BOOKS = 1_000_000;
+	private static final int LOOKUPS = 200_000;
+
+	@Test
+	@DisplayName("Benchmark da chave numérica do ISBN")
+	public void isbnKeyBenchmark() throws Exception {
+		Path dir = Files.createTempDirectory("isbn-key");
+		try {
+			long base = databaseSize(dir, "base", null);
+			long textIndex = databaseSize(dir, "text", "CREATE UNIQUE INDEX uk_isbn ON book (isbn)");
+			long keyIndex = databaseSize(dir, "key", "CREATE UNIQUE INDEX uk_isbn_key ON book (isbn_key)");
+
+			System.out.printf("%-8s %14s %12s %10s %10s%n", "indice", "tamanho (KB)", "bytes/ISBN", "p50 (us)", "p99 (us)");
+			report(dir, "text", "SELECT id FROM book WHERE isbn = ?", textIndex - base, true);
+			report(dir, "key", "SELECT id FROM book WHERE isbn_key = ?", keyIndex - base, false);
+
+			String[] inputs = new String[LOOKUPS];
+			for (int i = 0; i < LOOKUPS; i++) {
+				inputs[i] = display(ThreadLocalRandom.current().nextInt(BOOKS));
+			}
+			long sink = 0;
+			long start = System.nanoTime();
+			for (int round = 0; round < 5; round++) {
+				for (String input : inputs) {
+					sink += Isbn.toKey(input).orElse(0);
+				}
+			}
+			double nanos = (System.nanoTime() - start) / (5.0 * LOOKUPS);
+			if (sink == 42) {
+				System.out.println();
+			}
+			System.out.printf("%nnormalizacao: %.0f ns por ISBN%n", nanos);
+		} finally {
+			FileSystemUtils.deleteRecursively(dir);
+		}
+	}
+
+	private long databaseSize(Path dir, String name, String index) throws SQLException {
+		try (Connection connection = connect(dir, name); Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE book (id BIGINT PRIMARY KEY, isbn VARCHAR(255), isbn_key BIGINT)");
+			connection.setAutoCommit(false);
+			try (PreparedStatement insert = connection.prepareStatement("INSERT INTO book VALUES (?, ?, ?)")) {
+				for (int i = 0; i < BOOKS; i++) {
+					String isbn = display(i);
+					insert.setLong(1, i);
+					insert.setString(2, isbn);
+					insert.setLong(3, Isbn.toKey(isbn).getAsLong());
+					insert.addBatch();
+					if (i % 10_000 == 9_999) {
+						insert.executeBatch();
+					}
+				}
+			}
+			connection.commit();
+			connection.setAutoCommit(true);
+			if (index != null) {
+				statement.execute(index);
+			}
+			statement.execute("SHUTDOWN COMPACT");
+		}
+		try {
+			return Files.size(dir.resolve(name + ".mv.db"));
+		} catch (java.io.IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private void report(Path dir, String name, String query, long indexBytes, boolean text) throws SQLException {
+		long[] latencies = new long[LOOKUPS];
+		try (Connection connection = connect(dir, name); PreparedStatement select = connection.prepareStatement(query)) {
+			for (int round = 0; round < 2; round++) {
+				for (int i = 0; i < LOOKUPS; i++) {
+					int book = ThreadLocalRandom.current().nextInt(BOOKS);
+					long start = System.nanoTime();
+					if (text) {
+						select.setString(1, display(book));
+					} else {
+						select.setLong(1, Isbn.toKey(display(book)).getAsLong());
+					}
+					try (ResultSet rs = select.executeQuery()) {
+						rs.next();
+					}
+					latencies[i] = System.nanoTime() - start;
+				}
+			}
+		}
+		Arrays.sort(latencies);
+		System.out.printf("%-8s %14d %12.1f %10.1f %10.1f%n", name, indexBytes / 1024, (double) indexBytes / BOOKS,
+				latencies[LOOKUPS / 2] / 1e3, latencies[(int) (LOOKUPS * 0.99)] / 1e3);
+	}
+
+	private static Connection connect(Path dir, String name) throws SQLException {
+		return DriverManager.getConnection("jdbc:h2:file:" + dir.resolve(name).toAbsolutePath());
+	}
+
+	/** ISBN-13 válido, com hífens, do livro de número {@code n}. */
+	private static String display(int n) {
+		long first12 = 978_000_000_000L + n;
+		int sum = 0;
+		long rest = first12;
+		for (int i = 11; i >= 0; i--) {
+			sum += (int) (rest % 10) * (i % 2 == 0 ? 1 : 3);
+			rest /= 10;
+		}
+		String digits = Long.toString(first12 * 10 + (10 - sum % 10) % 10);
+		return digits.substring(0, 3) + "-" + digits.substring(3, 5) + "-" + digits.substring(5, 9) + "-"
+				+ digits.substring(9, 12) + "-" + digits.substring(12);
+	}
+
+}
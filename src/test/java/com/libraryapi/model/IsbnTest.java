@@ -0,0 +1,40 @@
+package com.libraryapi.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class IsbnTest {
+
+	@Test
+	@DisplayName("Deve normalizar ISBN-13 com ou sem hífens e espaços para a mesma chave")
+	public void isbn13Test() {
+		assertThat(Isbn.toKey("9780306406157")).hasValue(9780306406157l);
+		assertThat(Isbn.toKey("978-0-306-40615-7")).hasValue(9780306406157l);
+		assertThat(Isbn.toKey("978 0 306 40615 7")).hasValue(9780306406157l);
+		assertThat(Isbn.toKey("979-12-345-6789-6")).hasValue(9791234567896l);
+	}
+
+	@Test
+	@DisplayName("Deve converter ISBN-10 para a chave do ISBN-13 equivalente")
+	public void isbn10Test() {
+		assertThat(Isbn.toKey("0-306-40615-2")).hasValue(9780306406157l);
+		assertThat(Isbn.toKey("080442957X")).hasValue(9780804429573l);
+		assertThat(Isbn.toKey("0-8044-2957-x")).hasValue(9780804429573l);
+	}
+
+	@Test
+	@DisplayName("Deve rejeitar ISBNs com dígito verificador, tamanho ou caracteres inválidos")
+	public void invalidIsbnTest() {
+		assertThat(Isbn.toKey("978-0-306-40615-8")).isEmpty();
+		assertThat(Isbn.toKey("0-306-40615-3")).isEmpty();
+		assertThat(Isbn.toKey("1234567890128")).isEmpty();
+		assertThat(Isbn.toKey("08044X9573")).isEmpty();
+		assertThat(Isbn.toKey("123")).isEmpty();
+		assertThat(Isbn.toKey("978-0-306-40615-7-1")).isEmpty();
+		assertThat(Isbn.toKey("ISBN 9780306406157")).isEmpty();
+		assertThat(Isbn.toKey(null)).isEmpty();
+	}
+
+}
@@ -1,8 +1,21 @@
 package com.libraryapi.model.repository;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,8 +23,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.libraryapi.model.Isbn;
 import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.projection.BookAvailability;
 
 @ActiveProfiles("test")
 @DataJpaTest
@@ -26,11 +43,10 @@ public class BookRepositoryTest {
 	@Test
 	@DisplayName("Deve retornar verdadeiro quando existir um livro na base com o isbn informado")
 	public void returnTrueWhenIsbnExists() {
-		String isbn = "123";
-		Book book = createNewBook(isbn);
+		Book book = createNewBook("978-0-306-40615-7");
 		entityManager.persist(book);
 		
-		boolean exists = repository.existsByIsbn(isbn);
+		boolean exists = repository.existsByIsbnKey(9780306406157l);
 		
 		assertThat(exists).isTrue();
 	}
@@ -38,12 +54,22 @@ public class BookRepositoryTest {
 	@Test
 	@DisplayName("Deve retornar false quando não existir um livro na base com o isbn informado")
 	public void returnFalseWhenIsbnNotExists() {
-		String isbn = "123";
-		
-		boolean exists = repository.existsByIsbn(isbn);
+		boolean exists = repository.existsByIsbnKey(9780306406157l);
 		
 		assertThat(exists).isFalse();
 	}
+
+	@Test
+	@DisplayName("Deve obter um livro pela chave do isbn")
+	public void findByIsbnKeyTest() {
+		Book book = createNewBook("0-306-40615-2");
+		entityManager.persist(book);
+
+		Optional<Book> foundBook = repository.findByIsbnKey(9780306406157l);
+
+		assertThat(foundBook).isPresent();
+		assertThat(foundBook.get().getIsbn()).isEqualTo("0-306-40615-2");
+	}
 	
 	
 	@Test
@@ -82,7 +108,226 @@ public class BookRepositoryTest {
 		assertThat(deletedBook).isNull();
 	}
 	
+	@Test
+	@DisplayName("Deve obter a disponibilidade de vários livros por id ou isbn em uma consulta")
+	public void findAvailabilityTest() {
+		Book loaned = createNewBook("9780306406157");
+		loaned.setCopies(2);
+		loaned.setAvailableCopies(1);
+		entityManager.persist(loaned);
+		Book available = createNewBook("9788532530783");
+		entityManager.persist(available);
+
+		List<BookAvailability> result = repository.findAvailability(Arrays.asList(loaned.getId()),
+				Arrays.asList(9788532530783l, 9780804429573l));
+
+		assertThat(result).hasSize(2);
+		assertThat(result).anySatisfy(a -> {
+			assertThat(a.getIsbn()).isEqualTo("9780306406157");
+			assertThat(a.getOpenLoans()).isEqualTo(1);
+			assertThat(a.getAvailableCopies()).isEqualTo(1);
+		});
+		assertThat(result).anySatisfy(a -> {
+			assertThat(a.getIsbn()).isEqualTo("9788532530783");
+			assertThat(a.getOpenLoans()).isZero();
+			assertThat(a.getAvailableCopies()).isEqualTo(1);
+		});
+	}
+
+	@Test
+	@DisplayName("Deve aceitar lista vazia de ids ou isbns na consulta de disponibilidade")
+	public void findAvailabilityWithEmptyListTest() {
+		Book book = createNewBook("9780306406157");
+		entityManager.persist(book);
+
+		List<BookAvailability> result = repository.findAvailability(Collections.emptyList(), Arrays.asList(9780306406157l));
+
+		assertThat(result).extracting(BookAvailability::getId).containsExactly(book.getId());
+	}
+	
+	@Test
+	@DisplayName("Deve inserir um livro em um único comando quando o isbn não existe")
+	public void insertIfAbsentTest() {
+		Optional<Book> saved = repository.insertIfAbsent(createNewBook("9780306406157"));
+
+		assertThat(saved).isPresent();
+		assertThat(saved.get().getId()).isNotNull();
+		assertThat(entityManager.find(Book.class, saved.get().getId()).getIsbnKey()).isEqualTo(9780306406157l);
+	}
+
+	@Test
+	@DisplayName("Deve inserir o livro com todos os exemplares livres")
+	public void insertIfAbsentWithCopiesTest() {
+		Book book = createNewBook("9780306406157");
+		book.setCopies(3);
+
+		Optional<Book> saved = repository.insertIfAbsent(book);
+
+		assertThat(saved.get().getCopies()).isEqualTo(3);
+		assertThat(saved.get().getAvailableCopies()).isEqualTo(3);
+	}
+
+	@Test
+	@DisplayName("Deve retornar vazio ao inserir um livro com isbn já cadastrado em outro formato")
+	public void insertIfAbsentDuplicateIsbnTest() {
+		entityManager.persist(createNewBook("978-0-306-40615-7"));
+
+		Optional<Book> saved = repository.insertIfAbsent(createNewBook("0306406152"));
+
+		assertThat(saved).isEmpty();
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	@DisplayName("Deve cadastrar o isbn uma única vez com inserções concorrentes")
+	public void concurrentInsertIfAbsentTest() throws Exception {
+		int threads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		Callable<Optional<Book>> insert = () -> {
+			start.await();
+			return repository.insertIfAbsent(createNewBook("9780975229804"));
+		};
+		try {
+			List<Future<Optional<Book>>> results = IntStream.range(0, threads)
+					.mapToObj(i -> executor.submit(insert))
+					.collect(Collectors.toList());
+			start.countDown();
+
+			long inserted = 0;
+			for (Future<Optional<Book>> result : results) {
+				inserted += result.get().isPresent() ? 1 : 0;
+			}
+
+			assertThat(inserted).isEqualTo(1);
+			assertThat(repository.findAll()).filteredOn(b -> Long.valueOf(9780975229804l).equals(b.getIsbnKey())).hasSize(1);
+		} finally {
+			executor.shutdown();
+			repository.deleteAll();
+		}
+	}
+
+	@Test
+	@DisplayName("Deve emprestar e devolver exemplares sem passar do acervo nem ficar negativo")
+	public void takeAndReturnCopyTest() {
+		Book book = createNewBook("9780306406157");
+		book.setCopies(2);
+		book.setAvailableCopies(2);
+		entityManager.persist(book);
+		entityManager.flush();
+
+		assertThat(repository.takeCopy(book.getId())).hasValue(1);
+		assertThat(repository.takeCopy(book.getId())).hasValue(0);
+		assertThat(repository.takeCopy(book.getId())).isEmpty();
+		assertThat(repository.findAvailableCopies(book.getId())).contains(0);
+		assertThat(repository.findBookIdsWithoutAvailableCopies()).containsExactly(book.getId());
+
+		assertThat(repository.returnCopy(book.getId())).hasValue(1);
+		assertThat(repository.returnCopy(book.getId())).hasValue(2);
+		assertThat(repository.returnCopy(book.getId())).isEmpty();
+		assertThat(repository.findAvailableCopies(book.getId())).contains(2);
+	}
+
+	@Test
+	@DisplayName("Deve emprestar em um único comando um exemplar de cada livro que ainda tiver exemplar livre")
+	public void takeCopiesTest() {
+		Book single = createNewBook("9780306406157");
+		entityManager.persist(single);
+		Book loaned = createNewBook("9788532530783");
+		loaned.setAvailableCopies(0);
+		entityManager.persist(loaned);
+		Book several = createNewBook("9780975229804");
+		several.setCopies(3);
+		several.setAvailableCopies(3);
+		entityManager.persist(several);
+		entityManager.flush();
+
+		Map<Long, Integer> remaining = repository.takeCopies(Arrays.asList(single.getId(), loaned.getId(),
+				several.getId(), 999l));
+
+		assertThat(remaining).containsOnly(entry(single.getId(), 0), entry(several.getId(), 2));
+		assertThat(repository.findBookIdsWithoutAvailableCopies()).containsExactlyInAnyOrder(single.getId(),
+				loaned.getId());
+	}
+
+	@Test
+	@DisplayName("Deve retirar vários exemplares do mesmo livro em um comando, só quando há exemplares suficientes")
+	public void takeSeveralCopiesTest() {
+		Book several = createNewBook("9780975229804");
+		several.setCopies(3);
+		several.setAvailableCopies(3);
+		entityManager.persist(several);
+		Book single = createNewBook("9780306406157");
+		entityManager.persist(single);
+		entityManager.flush();
+
+		Map<Long, Integer> remaining = repository.takeCopies(Map.of(several.getId(), 2, single.getId(), 2));
+
+		assertThat(remaining).containsOnly(entry(several.getId(), 1));
+		assertThat(repository.findAvailableCopies(several.getId())).contains(1);
+		assertThat(repository.findAvailableCopies(single.getId())).contains(1);
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	@DisplayName("Não deve emprestar mais exemplares do que o acervo com pedidos concorrentes")
+	public void concurrentTakeCopyTest() throws Exception {
+		int copies = 5;
+		int threads = 32;
+		int attempts = 200;
+		Book book = createNewBook("9780975229804");
+		book.setCopies(copies);
+		book.setAvailableCopies(copies);
+		Long id = repository.save(book).getId();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		Callable<Boolean> take = () -> {
+			start.await();
+			return repository.takeCopy(id).isPresent();
+		};
+		try {
+			List<Future<Boolean>> results = IntStream.range(0, attempts)
+					.mapToObj(i -> executor.submit(take))
+					.collect(Collectors.toList());
+			start.countDown();
+
+			long taken = 0;
+			for (Future<Boolean> result : results) {
+				taken += result.get() ? 1 : 0;
+			}
+
+			assertThat(taken).isEqualTo(copies);
+			assertThat(repository.findAvailableCopies(id)).contains(0);
+		} finally {
+			executor.shutdown();
+			repository.deleteAll();
+		}
+	}
+
+	@Test
+	@DisplayName("Deve atualizar título e autor em um único comando")
+	public void updateDetailsTest() {
+		Book book = createNewBook("123");
+		entityManager.persist(book);
+
+		Optional<Book> updated = repository.updateDetails(book.getId(), "O Ladrão de Raios", "Rick Riordan");
+
+		assertThat(updated).isPresent();
+		assertThat(updated.get().getTitle()).isEqualTo("O Ladrão de Raios");
+		assertThat(updated.get().getIsbn()).isEqualTo("123");
+	}
+
+	@Test
+	@DisplayName("Deve retornar vazio ao atualizar um livro inexistente")
+	public void updateDetailsNotFoundTest() {
+		Optional<Book> updated = repository.updateDetails(999l, "O Ladrão de Raios", "Rick Riordan");
+
+		assertThat(updated).isEmpty();
+	}
+	
     public static Book createNewBook(String isbn) {
-        return Book.builder().title("Percy Jackson").author("Rick Riordan").isbn(isbn).build();
+        OptionalLong isbnKey = Isbn.toKey(isbn);
+        return Book.builder().title("Percy Jackson").author("Rick Riordan").isbn(isbn)
+                .isbnKey(isbnKey.isPresent() ? isbnKey.getAsLong() : null).build();
     }
 }
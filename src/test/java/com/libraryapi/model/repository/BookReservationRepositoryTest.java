@@ -0,0 +1,76 @@
+package com.libraryapi.model.repository;
+
+import static com.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.BookReservation;
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.model.entity.Loan;
+
+@ActiveProfiles("test")
+@DataJpaTest
+public class BookReservationRepositoryTest {
+
+	@Autowired
+	private BookReservationRepository repository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Test
+	@DisplayName("Deve obter a reserva mais antiga ainda não atendida do livro")
+	public void findFirstWaitingTest() {
+		Book book = entityManager.persist(createNewBook("978-0-306-40615-7"));
+		LocalDateTime now = LocalDateTime.now();
+		BookReservation served = createAndPersistReservation(book, "Ana", now.minusHours(2));
+		served.setLoan(entityManager.persist(Loan.builder().book(book).customer(served.getCustomer())
+				.loanDate(LocalDate.now()).returned(false).build()));
+		BookReservation first = createAndPersistReservation(book, "Bia", now.minusHours(1));
+		createAndPersistReservation(book, "Caio", now);
+
+		assertThat(repository.findFirstByBookIdAndLoanIsNullOrderByCreatedAtAscIdAsc(book.getId())).contains(first);
+		assertThat(repository.findBookIdsWithWaitlist()).containsExactly(book.getId());
+	}
+
+	@Test
+	@DisplayName("Deve contar as reservas à frente na fila, desempatando pelo id")
+	public void countAheadTest() {
+		Book book = entityManager.persist(createNewBook("978-0-306-40615-7"));
+		LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+		createAndPersistReservation(book, "Ana", now.minusHours(1));
+		BookReservation second = createAndPersistReservation(book, "Bia", now);
+		BookReservation third = createAndPersistReservation(book, "Caio", now);
+
+		assertThat(repository.countAhead(book.getId(), second.getCreatedAt(), second.getId())).isEqualTo(1);
+		assertThat(repository.countAhead(book.getId(), third.getCreatedAt(), third.getId())).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("Deve verificar se o cliente já aguarda o livro")
+	public void existsWaitingTest() {
+		Book book = entityManager.persist(createNewBook("978-0-306-40615-7"));
+		BookReservation reservation = createAndPersistReservation(book, "Ana", LocalDateTime.now());
+
+		assertThat(repository.existsByBookIdAndCustomerIdAndLoanIsNull(book.getId(),
+				reservation.getCustomer().getId())).isTrue();
+		assertThat(repository.existsByBookIdAndCustomerIdAndLoanIsNull(book.getId(), -1l)).isFalse();
+	}
+
+	private BookReservation createAndPersistReservation(Book book, String name, LocalDateTime createdAt) {
+		Customer customer = entityManager.persist(Customer.builder().name(name).email(name + "@email.com").build());
+		return entityManager.persist(BookReservation.builder().book(book).customer(customer).createdAt(createdAt).build());
+	}
+
+}
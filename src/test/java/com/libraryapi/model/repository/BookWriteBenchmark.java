@@ -0,0 +1,102 @@
+package com.libraryapi.model.repository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.libraryapi.model.entity.Book;
+import com.zaxxer.hikari.HikariDataSource;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Cadastro e atualização de livros contra um H2 em memória com latência de rede
+ * simulada (0,3 ms por comando, pool de 10 conexões): consulta prévia + escrita,
+ * como antes, contra o comando único de {@link BookWriteRepositoryImpl}. Informa
+ * vazão, comandos por operação e p99.
+ * Executar com: mvn test -Dtest=BookWriteBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class BookWriteBenchmark {
+
+	private static final int THREADS = 16;
+	private static final int OPERATIONS_PER_THREAD = 500;
+	private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(300);
+
+	@Test
+	@DisplayName("Benchmark de escrita de livros em comando único")
+	public void bookWriteBenchmark() throws Exception {
+		AtomicLong statements = new AtomicLong();
+		try (HikariDataSource pool = new HikariDataSource()) {
+			pool.setJdbcUrl("jdbc:h2:mem:bookwrite;DB_CLOSE_DELAY=-1");
+			pool.setMaximumPoolSize(10);
+			DataSource dataSource = ProxyDataSourceBuilder.create(pool)
+					.afterQuery((execInfo, queries) -> {
+						statements.incrementAndGet();
+						LockSupport.parkNanos(ROUND_TRIP_NANOS);
+					})
+					.build();
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+			new JdbcTemplate(pool).execute("CREATE TABLE book (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+					+ "title VARCHAR(255), author VARCHAR(255), isbn VARCHAR(255), CONSTRAINT uk_book_isbn UNIQUE (isbn))");
+			BookWriteRepositoryImpl repository = new BookWriteRepositoryImpl(jdbcTemplate);
+
+			System.out.printf("%-22s %10s %12s %10s%n", "operacao", "ops/s", "comandos/op", "p99 (ms)");
+			run("cadastro consulta+ins", statements, sequence -> {
+				String isbn = "A" + sequence;
+				List<Integer> found = jdbcTemplate.queryForList("SELECT 1 FROM book WHERE isbn = ? LIMIT 1", Integer.class, isbn);
+				if (found.isEmpty()) {
+					jdbcTemplate.update("INSERT INTO book (title, author, isbn) VALUES (?, ?, ?)", "Livro", "Autor", isbn);
+				}
+			});
+			run("cadastro comando unico", statements, sequence ->
+					repository.insertIfAbsent(Book.builder().title("Livro").author("Autor").isbn("B" + sequence).build()));
+			run("atualiz. leitura+upd", statements, sequence -> {
+				long id = sequence % 1000 + 1;
+				Book book = jdbcTemplate.queryForObject("SELECT id, title, author, isbn FROM book WHERE id = ?",
+						(rs, rowNum) -> Book.builder().id(rs.getLong(1)).isbn(rs.getString(4)).build(), id);
+				jdbcTemplate.update("UPDATE book SET title = ?, author = ?, isbn = ? WHERE id = ?", "Titulo " + sequence,
+						"Autor", book.getIsbn(), id);
+			});
+			run("atualiz. comando unico", statements, sequence ->
+					repository.updateDetails(sequence % 1000 + 1, "Titulo " + sequence, "Autor"));
+		}
+	}
+
+	private void run(String label, AtomicLong statements, LongConsumer operation) throws InterruptedException {
+		long[] latencies = new long[THREADS * OPERATIONS_PER_THREAD];
+		CountDownLatch done = new CountDownLatch(THREADS);
+		long statementsBefore = statements.get();
+		long start = System.nanoTime();
+		for (int t = 0; t < THREADS; t++) {
+			int offset = t * OPERATIONS_PER_THREAD;
+			Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+					long begin = System.nanoTime();
+					operation.accept(offset + i);
+					latencies[offset + i] = System.nanoTime() - begin;
+				}
+				done.countDown();
+			});
+		}
+		done.await();
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		Arrays.sort(latencies);
+		System.out.printf("%-22s %10.0f %12.2f %10.2f%n", label, latencies.length / seconds,
+				(double) (statements.get() - statementsBefore) / latencies.length,
+				latencies[(int) (latencies.length * 0.99)] / 1e6);
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.libraryapi.model.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.libraryapi.model.entity.Customer;
+
+@ActiveProfiles("test")
+@DataJpaTest
+public class CustomerRepositoryTest {
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	@Autowired
+	CustomerRepository repository;
+
+	@Test
+	@DisplayName("Deve obter um cliente pelo e-mail")
+	public void findByEmailTest() {
+		Customer customer = Customer.builder().name("João").email("joao@email.com").build();
+		entityManager.persist(customer);
+
+		Optional<Customer> result = repository.findByEmail("joao@email.com");
+
+		assertThat(result).contains(customer);
+	}
+
+	@Test
+	@DisplayName("Não deve permitir dois clientes com o mesmo e-mail")
+	public void uniqueEmailTest() {
+		repository.saveAndFlush(Customer.builder().name("João").email("joao@email.com").build());
+
+		Throwable exception = catchThrowable(() ->
+				repository.saveAndFlush(Customer.builder().name("João Silva").email("joao@email.com").build()));
+
+		assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.libraryapi.model.repository;
+
+import static com.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.model.entity.Loan;
+import com.libraryapi.model.entity.LoanArchive;
+
+@ActiveProfiles("test")
+@DataJpaTest
+public class LoanArchiveRepositoryTest {
+
+	@Autowired
+	private LoanArchiveRepository archiveRepository;
+
+	@Autowired
+	private LoanRepository loanRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Test
+	@DisplayName("Deve mover para o arquivo somente os empréstimos devolvidos antes da data de corte")
+	public void archiveReturnedLoansTest() {
+		Book book = createNewBook("123");
+		entityManager.persist(book);
+		Customer customer = Customer.builder().name("João").email("joao@email.com").build();
+		entityManager.persist(customer);
+		Loan old = persistLoan(book, customer, LocalDate.now().minusMonths(13), true);
+		Loan recent = persistLoan(book, customer, LocalDate.now().minusMonths(1), true);
+		Loan open = persistLoan(book, customer, LocalDate.now().minusMonths(13), false);
+		LocalDate before = LocalDate.now().minusMonths(12);
+
+		int copied = archiveRepository.copyReturnedLoansBefore(before);
+		int deleted = loanRepository.deleteReturnedLoansBefore(before);
+		entityManager.clear();
+
+		assertThat(copied).isEqualTo(1);
+		assertThat(deleted).isEqualTo(1);
+		LoanArchive archived = archiveRepository.findById(old.getId()).get();
+		assertThat(archived.getBookId()).isEqualTo(book.getId());
+		assertThat(archived.getCustomerId()).isEqualTo(customer.getId());
+		assertThat(archived.getArchivedAt()).isEqualTo(LocalDate.now());
+		assertThat(loanRepository.findAll()).extracting(Loan::getId).containsExactlyInAnyOrder(recent.getId(), open.getId());
+	}
+
+	private Loan persistLoan(Book book, Customer customer, LocalDate loanDate, boolean returned) {
+		Loan loan = Loan.builder().book(book).customer(customer).loanDate(loanDate).returned(returned).build();
+		return entityManager.persist(loan);
+	}
+
+}
@@ -0,0 +1,171 @@
+package com.libraryapi.model.repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.model.entity.Loan;
+import com.zaxxer.hikari.HikariDataSource;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Empréstimo de 5 livros contra um H2 em memória com latência de rede simulada
+ * (0,3 ms por comando e por commit, pool de 10 conexões): 5 empréstimos
+ * individuais (consulta do livro pelo ISBN, contagem de empréstimos em aberto e
+ * insert, cada um em auto-commit) contra o lote (uma consulta IN dos livros, uma
+ * consulta IN dos empréstimos em aberto e o insert em batch de
+ * {@link LoanWriteRepositoryImpl}, em uma transação). Informa vazão de
+ * livros emprestados, idas ao banco por pedido e p99.
+ * Executar com: mvn test -Dtest=LoanBatchBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class LoanBatchBenchmark {
+
+	private static final int THREADS = 16;
+	private static final int REQUESTS_PER_THREAD = 100;
+	private static final int BOOKS_PER_REQUEST = 5;
+	private static final int RUNS = 4;
+	private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(300);
+
+	private final AtomicLong nextIsbnKey = new AtomicLong(9_780_000_000_000l);
+
+	@Test
+	@DisplayName("Benchmark do empréstimo de vários livros em lote")
+	public void loanBatchBenchmark() throws Exception {
+		AtomicLong roundTrips = new AtomicLong();
+		try (HikariDataSource pool = new HikariDataSource()) {
+			pool.setJdbcUrl("jdbc:h2:mem:loanbatch;DB_CLOSE_DELAY=-1");
+			pool.setMaximumPoolSize(10);
+			DataSource dataSource = ProxyDataSourceBuilder.create(pool)
+					.afterQuery((execInfo, queries) -> {
+						roundTrips.incrementAndGet();
+						LockSupport.parkNanos(ROUND_TRIP_NANOS);
+					})
+					.afterMethod(execution -> {
+						if ("commit".equals(execution.getMethod().getName())) {
+							roundTrips.incrementAndGet();
+							LockSupport.parkNanos(ROUND_TRIP_NANOS);
+						}
+					})
+					.build();
+			createSchema(new JdbcTemplate(pool));
+
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+			NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+			TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+			LoanWriteRepositoryImpl repository = new LoanWriteRepositoryImpl(jdbcTemplate);
+			Customer customer = Customer.builder().id(1l).build();
+
+			Runnable single = () -> {
+				for (long isbnKey : isbnKeys()) {
+					Long bookId = jdbcTemplate.queryForObject("SELECT id FROM book WHERE isbn_key = ?", Long.class, isbnKey);
+					Long open = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan WHERE id_book = ? "
+							+ "AND (returned IS NULL OR returned IS FALSE)", Long.class, bookId);
+					if (open == 0) {
+						jdbcTemplate.update("INSERT INTO loan (id_customer, id_book, loan_date, returned) VALUES (?, ?, ?, false)",
+								1l, bookId, LocalDate.now());
+					}
+				}
+			};
+			Runnable batch = () -> transactionTemplate.executeWithoutResult(status -> {
+				List<Long> bookIds = namedTemplate.queryForList("SELECT id FROM book WHERE isbn_key IN (:keys)",
+						Map.of("keys", isbnKeys()), Long.class);
+				Set<Long> loaned = new HashSet<>(namedTemplate.queryForList("SELECT DISTINCT id_book FROM loan "
+						+ "WHERE id_book IN (:ids) AND (returned IS NULL OR returned IS FALSE)",
+						Map.of("ids", bookIds), Long.class));
+				List<Loan> loans = new ArrayList<>();
+				for (Long bookId : bookIds) {
+					if (!loaned.contains(bookId)) {
+						loans.add(Loan.builder().customer(customer).book(Book.builder().id(bookId).build())
+								.loanDate(LocalDate.now()).returned(false).build());
+					}
+				}
+				repository.insertAll(loans);
+			});
+
+			// primeira rodada de cada modo só aquece o JIT e o pool
+			run(null, roundTrips, single);
+			run(null, roundTrips, batch);
+			System.out.printf("%-20s %12s %14s %10s%n", "modo", "livros/s", "idas/pedido", "p99 (ms)");
+			run("5 individuais", roundTrips, single);
+			run("lote", roundTrips, batch);
+		}
+	}
+
+	private static void createSchema(JdbcTemplate jdbcTemplate) {
+		jdbcTemplate.execute("CREATE TABLE customer (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+				+ "name VARCHAR(255), email VARCHAR(255))");
+		jdbcTemplate.execute("CREATE TABLE book (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+				+ "title VARCHAR(255), author VARCHAR(255), isbn VARCHAR(255), isbn_key BIGINT UNIQUE)");
+		jdbcTemplate.execute("CREATE TABLE loan (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+				+ "id_customer BIGINT REFERENCES customer (id), id_book BIGINT REFERENCES book (id), loan_date DATE, "
+				+ "returned BOOLEAN, reference VARCHAR(36) UNIQUE)");
+		jdbcTemplate.execute("CREATE INDEX idx_loan_book ON loan (id_book)");
+		jdbcTemplate.update("INSERT INTO customer (name, email) VALUES ('Fulano', 'fulano@email.com')");
+		List<Object[]> books = new ArrayList<>();
+		for (long i = 0; i < RUNS * THREADS * REQUESTS_PER_THREAD * BOOKS_PER_REQUEST; i++) {
+			books.add(new Object[] { "Livro " + i, "Autor", String.valueOf(i), 9_780_000_000_000l + i });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO book (title, author, isbn, isbn_key) VALUES (?, ?, ?, ?)", books);
+	}
+
+	/** Cada pedido empresta livros ainda não usados, para que todos estejam disponíveis. */
+	private List<Long> isbnKeys() {
+		long first = nextIsbnKey.getAndAdd(BOOKS_PER_REQUEST);
+		List<Long> keys = new ArrayList<>(BOOKS_PER_REQUEST);
+		for (int i = 0; i < BOOKS_PER_REQUEST; i++) {
+			keys.add(first + i);
+		}
+		return keys;
+	}
+
+	private void run(String label, AtomicLong roundTrips, Runnable operation) throws InterruptedException {
+		long[] latencies = new long[THREADS * REQUESTS_PER_THREAD];
+		CountDownLatch done = new CountDownLatch(THREADS);
+		long roundTripsBefore = roundTrips.get();
+		long start = System.nanoTime();
+		for (int t = 0; t < THREADS; t++) {
+			int offset = t * REQUESTS_PER_THREAD;
+			Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+					long begin = System.nanoTime();
+					operation.run();
+					latencies[offset + i] = System.nanoTime() - begin;
+				}
+				done.countDown();
+			});
+		}
+		done.await();
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		if (label == null) {
+			return;
+		}
+		Arrays.sort(latencies);
+		System.out.printf("%-20s %12.0f %14.2f %10.2f%n", label, latencies.length * BOOKS_PER_REQUEST / seconds,
+				(double) (roundTrips.get() - roundTripsBefore) / latencies.length,
+				latencies[(int) (latencies.length * 0.99)] / 1e6);
+	}
+
+}
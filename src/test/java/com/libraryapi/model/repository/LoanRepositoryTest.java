@@ -4,6 +4,7 @@ import static com.libraryapi.model.repository.BookRepositoryTest.createNewBook;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.DisplayName;
@@ -16,6 +17,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 
 import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.Customer;
 import com.libraryapi.model.entity.Loan;
 
 @ActiveProfiles("test")
@@ -29,14 +31,15 @@ public class LoanRepositoryTest {
 	private TestEntityManager entityManager;
 
 	@Test
-	@DisplayName("Deve verificar se existe empréstimo não devolvido para o livro")
-	public void existsByBookAndNotReturnedTest() {
+	@DisplayName("Deve mudar a situação de devolução somente quando ela for diferente da atual")
+	public void updateReturnedTest() {
 		Loan loan = createAndPersistLoan(LocalDate.now());
-		Book book = loan.getBook();
+		entityManager.flush();
 
-		boolean exists = repository.existsByBookAndNotReturned(book);
-
-		assertThat(exists).isTrue();
+		assertThat(repository.updateReturned(loan.getId(), true)).isTrue();
+		assertThat(repository.updateReturned(loan.getId(), true)).isFalse();
+		assertThat(repository.updateReturned(loan.getId(), false)).isTrue();
+		assertThat(repository.updateReturned(loan.getId(), false)).isFalse();
 	}
 
 	@Test
@@ -44,7 +47,7 @@ public class LoanRepositoryTest {
 	public void findByBookIsbnOrCustomerTest() {
 		Loan loan = createAndPersistLoan(LocalDate.now());
 
-		Page<Loan> result = repository.findByBookIsbnOrCustomer("123", "João", PageRequest.of(0, 10));
+		Page<Loan> result = repository.findByBookIsbnOrCustomer(9780306406157l, "João", PageRequest.of(0, 10));
 
 		assertThat(result.getContent()).hasSize(1);
 		assertThat(result.getContent()).contains(loan);
@@ -63,6 +66,18 @@ public class LoanRepositoryTest {
 		assertThat(result).hasSize(1).contains(loan);
 	}
 
+	@Test
+	@DisplayName("Deve obter os clientes com empréstimos atrasados")
+	public void findCustomersWithLoanDateLessThanAndNotReturnedTest() {
+		Loan loan = createAndPersistLoan(LocalDate.now().minusDays(6));
+		entityManager.persist(Loan.builder().book(loan.getBook()).customer(loan.getCustomer())
+				.loanDate(LocalDate.now().minusDays(5)).build());
+
+		List<Customer> result = repository.findCustomersWithLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+
+		assertThat(result).containsExactly(loan.getCustomer());
+	}
+
 	@Test
 	@DisplayName("Deve retornar vazio quando não houver emprestimos atrasados")
 	public void notFindByLoanDateLessThanAndNotReturnedTest() {
@@ -73,11 +88,32 @@ public class LoanRepositoryTest {
 		assertThat(result).isEmpty();
 	}
 
+	@Test
+	@DisplayName("Deve inserir empréstimos em lote devolvendo os ids gerados na ordem")
+	public void insertAllTest() {
+		Loan loan = createAndPersistLoan(LocalDate.now());
+		Book other = createNewBook("9788532530783");
+		entityManager.persist(other);
+		entityManager.flush();
+
+		List<Long> ids = repository.insertAll(Arrays.asList(
+				Loan.builder().book(other).customer(loan.getCustomer()).loanDate(LocalDate.now()).returned(false).build(),
+				Loan.builder().book(loan.getBook()).customer(loan.getCustomer()).loanDate(LocalDate.now()).build()));
+
+		assertThat(ids).hasSize(2);
+		assertThat(repository.findById(ids.get(0)).get().getBook().getId()).isEqualTo(other.getId());
+		assertThat(repository.findById(ids.get(0)).get().getReturned()).isFalse();
+		assertThat(repository.findById(ids.get(1)).get().getBook().getId()).isEqualTo(loan.getBook().getId());
+	}
+
 	public Loan createAndPersistLoan(LocalDate loanDate) {
-		Book book = createNewBook("123");
+		Book book = createNewBook("978-0-306-40615-7");
 		entityManager.persist(book);
 
-		Loan loan = Loan.builder().book(book).customer("João").loanDate(loanDate).build();
+		Customer customer = Customer.builder().name("João").email("joao@email.com").build();
+		entityManager.persist(customer);
+
+		Loan loan = Loan.builder().book(book).customer(customer).loanDate(loanDate).build();
 		entityManager.persist(loan);
 
 		return loan;
@@ -0,0 +1,68 @@
+package com.libraryapi.service;
+
+import static com.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.repository.BookRepository;
+import com.libraryapi.service.cache.BookSearchCache;
+import com.libraryapi.service.concurrent.BookLookupCoalescer;
+import com.libraryapi.service.impl.BookServiceImpl;
+import com.libraryapi.service.index.BookSuggestIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/** Busca do catálogo contra o banco, para que o filtro por exemplo seja de fato executado. */
+@ActiveProfiles("test")
+@DataJpaTest
+public class BookSearchTest {
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    BookService service;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new BookServiceImpl(repository, new BookLookupCoalescer(false, new SimpleMeterRegistry()),
+                new BookSuggestIndex(repository, transactionManager, false, 5000, 20000),
+                new BookSearchCache(false, 100000, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    @DisplayName("Deve encontrar na busca e no autocompletar um livro com vários exemplares, um deles emprestado")
+    public void findBookWithSeveralCopiesTest() {
+        Book book = createNewBook("9780306406157");
+        book.setCopies(3);
+        book.setAvailableCopies(3);
+        entityManager.persist(book);
+        entityManager.flush();
+        repository.takeCopy(book.getId());
+
+        Page<Book> found = service.find(Book.builder().title("percy").build(), PageRequest.of(0, 10));
+        List<Book> suggested = service.suggest("Percy", 10);
+
+        assertThat(found.getContent()).extracting(Book::getId).containsExactly(book.getId());
+        assertThat(suggested).extracting(Book::getId).containsExactly(book.getId());
+    }
+
+}
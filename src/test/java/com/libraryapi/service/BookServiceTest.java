@@ -8,6 +8,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,7 +30,12 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import com.libraryapi.exception.BusinessException;
 import com.libraryapi.model.entity.Book;
 import com.libraryapi.model.repository.BookRepository;
+import com.libraryapi.service.cache.BookSearchCache;
+import com.libraryapi.service.concurrent.BookLookupCoalescer;
 import com.libraryapi.service.impl.BookServiceImpl;
+import com.libraryapi.service.index.BookSuggestIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -40,21 +46,24 @@ public class BookServiceTest {
     @MockBean
     BookRepository repository;
 
+    @MockBean
+    BookSuggestIndex suggestIndex;
+
     @BeforeEach
     public void setUp() {
-        this.service = new BookServiceImpl(repository);
+        this.service = new BookServiceImpl(repository, new BookLookupCoalescer(false, new SimpleMeterRegistry()), suggestIndex,
+                new BookSearchCache(false, 100000, new SimpleMeterRegistry()));
     }
 
     @Test
     @DisplayName("Deve salvar um livro")
     public void saveBookTest() {
         Book book = createValidBook();
-        when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
-        when(repository.save(book)).thenReturn(
+        when(repository.insertIfAbsent(book)).thenReturn(Optional.of(
                 Book.builder().id(1L)
                         .isbn("3344")
                         .author("Suzanne Collins")
-                        .title("Jogos vorazes").build());
+                        .title("Jogos vorazes").build()));
 
         Book savedBook = service.save(book);
 
@@ -68,15 +77,41 @@ public class BookServiceTest {
 	@DisplayName("Deve lançar erro de negocio ao cadastrar um livro com isbn que já cadastrado")
 	public void shouldNotSaveBookWithDuplicaeteIsbn() throws Exception {
 		Book book = createValidBook();
-		when(repository.existsByIsbn(Mockito.anyString())).thenReturn(true);
+		when(repository.insertIfAbsent(book)).thenReturn(Optional.empty());
 		
 		Throwable exception = Assertions.catchThrowable(() -> service.save(book));
 		
 		assertThat(exception)
 			.isInstanceOf(BusinessException.class)
 			.hasMessage("ISBN já cadastrado.");
+		verify(repository, Mockito.never()).existsByIsbnKey(Mockito.anyLong());
 	}
 	
+    @Test
+    @DisplayName("Deve salvar o livro com a chave do isbn normalizada")
+    public void saveBookWithNormalizedIsbnTest() {
+        Book book = createValidBook();
+        book.setIsbn("0-306-40615-2");
+        when(repository.insertIfAbsent(book)).thenReturn(Optional.of(book));
+
+        service.save(book);
+
+        assertThat(book.getIsbnKey()).isEqualTo(9780306406157l);
+        assertThat(book.getIsbn()).isEqualTo("0-306-40615-2");
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negocio ao cadastrar um livro com isbn inválido")
+    public void shouldNotSaveBookWithInvalidIsbn() {
+        Book book = createValidBook();
+        book.setIsbn("978-0-306-40615-8");
+
+        Throwable exception = Assertions.catchThrowable(() -> service.save(book));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("ISBN inválido.");
+        verify(repository, Mockito.never()).insertIfAbsent(Mockito.any());
+    }
+
 	@Test
 	@DisplayName("Deve obter um livro por id")
 	public void getByIdTest() {
@@ -132,14 +167,15 @@ public class BookServiceTest {
     public void updateBookTest() {
         long id = 1l;
 
-        Book updatingBook = Book.builder().id(id).build();
+        Book updatingBook = Book.builder().id(id).title("Jogos vorazes").author("Suzanne Collins").build();
 
         Book updatedBook = createValidBook();
         updatedBook.setId(id);
-        when(repository.save(updatingBook)).thenReturn(updatedBook);
+        when(repository.updateDetails(id, "Jogos vorazes", "Suzanne Collins")).thenReturn(Optional.of(updatedBook));
 
-        Book book = service.update(updatingBook);
+        Book book = service.update(updatingBook).get();
 
+        verify(repository, Mockito.never()).findById(id);
         assertThat(book.getId()).isEqualTo(updatedBook.getId());
         assertThat(book.getTitle()).isEqualTo(updatedBook.getTitle());
         assertThat(book.getIsbn()).isEqualTo(updatedBook.getIsbn());
@@ -179,20 +215,75 @@ public class BookServiceTest {
     @Test
     @DisplayName("Deve obter um livro pelo isbn")
     public void getBookByIsbnTest() {
-        String isbn = "1230";
-        when(repository.findByIsbn(isbn)).thenReturn(Optional.of(Book.builder().id(1l).isbn(isbn).build()));
+        String isbn = "978-0-306-40615-7";
+        when(repository.findByIsbnKey(9780306406157l)).thenReturn(Optional.of(Book.builder().id(1l).isbn(isbn).build()));
 
-        Optional<Book> book = service.getBookByIsbn(isbn);
+        Optional<Book> book = service.getBookByIsbn("0-306-40615-2");
 
         assertThat(book.isPresent()).isTrue();
         assertThat(book.get().getId()).isEqualTo(1l);
         assertThat(book.get().getIsbn()).isEqualTo(isbn);
 
-        verify(repository, times(1)).findByIsbn(isbn);
+        verify(repository, times(1)).findByIsbnKey(9780306406157l);
+    }
+
+    @Test
+    @DisplayName("Deve retornar vazio sem consultar a base ao buscar um isbn inválido")
+    public void getBookByInvalidIsbnTest() {
+        Optional<Book> book = service.getBookByIsbn("978-0-306-40615-8");
+
+        assertThat(book.isPresent()).isFalse();
+        verify(repository, Mockito.never()).findByIsbnKey(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve obter vários livros em uma consulta, ignorando ISBNs inválidos e repetidos")
+    public void getBooksByIsbnTest() {
+        Book book = Book.builder().id(1l).isbn("9780306406157").isbnKey(9780306406157l).build();
+        when(repository.findByIsbnKeyIn(Arrays.asList(9780306406157l))).thenReturn(Arrays.asList(book));
+
+        List<Book> books = service.getBooksByIsbn(Arrays.asList("978-0-306-40615-7", "0-306-40615-2", "978-0-306-40615-8"));
+
+        assertThat(books).containsExactly(book);
+        verify(repository, times(1)).findByIsbnKeyIn(Mockito.anyCollection());
     }
 	
+    @Test
+    @DisplayName("Deve obter a disponibilidade de vários livros tratando listas nulas como vazias")
+    public void getAvailabilityTest() {
+        List<Long> ids = Arrays.asList(1l, 2l);
+
+        service.getAvailability(ids, null);
+
+        verify(repository).findAvailability(ids, Collections.emptyList());
+    }
+
+    @Test
+    @DisplayName("Deve consultar a disponibilidade pelas chaves dos isbns válidos")
+    public void getAvailabilityByIsbnTest() {
+        service.getAvailability(null, Arrays.asList("0-306-40615-2", "123"));
+
+        verify(repository).findAvailability(Collections.emptyList(), Arrays.asList(9780306406157l));
+    }
+
+    @Test
+    @DisplayName("Deve sugerir livros pelo índice em memória e atualizá-lo ao salvar")
+    public void suggestTest() {
+        Book book = createValidBook();
+        when(repository.insertIfAbsent(book)).thenReturn(Optional.of(book));
+        when(suggestIndex.isEnabled()).thenReturn(true);
+        when(suggestIndex.suggest("herois", 5)).thenReturn(Arrays.asList(book));
+
+        service.save(book);
+        List<Book> result = service.suggest("herois", 5);
+
+        assertThat(result).containsExactly(book);
+        verify(suggestIndex).put(book);
+        verify(repository, Mockito.never()).findAll(Mockito.<Example<Book>>any(), Mockito.<Pageable>any());
+    }
+
     private Book createValidBook() {
-        return Book.builder().isbn("123").author("Rick Riordan").title("Herois do Olimpo").build();
+        return Book.builder().isbn("978-0-306-40615-7").author("Rick Riordan").title("Herois do Olimpo").build();
     }
 
 }
@@ -0,0 +1,83 @@
+package com.libraryapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.model.repository.CustomerRepository;
+import com.libraryapi.service.impl.CustomerServiceImpl;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class CustomerServiceTest {
+
+    CustomerService service;
+
+    @MockBean
+    CustomerRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new CustomerServiceImpl(repository);
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar o cliente já cadastrado com o e-mail informado")
+    public void getExistingCustomerTest() {
+        Customer customer = Customer.builder().id(1l).name("Giovani").email("giovani@email.com").build();
+        when(repository.findByEmail("giovani@email.com")).thenReturn(Optional.of(customer));
+
+        Customer result = service.getOrCreate("Giovani", " Giovani@Email.com ");
+
+        assertThat(result).isEqualTo(customer);
+        verify(repository, never()).saveAndFlush(Mockito.any(Customer.class));
+    }
+
+    @Test
+    @DisplayName("Deve cadastrar o cliente quando o e-mail não existir")
+    public void createCustomerTest() {
+        when(repository.findByEmail("giovani@email.com")).thenReturn(Optional.empty());
+        when(repository.saveAndFlush(Mockito.any(Customer.class)))
+                .thenAnswer(invocation -> {
+                    Customer saved = invocation.getArgument(0);
+                    saved.setId(1l);
+                    return saved;
+                });
+
+        Customer result = service.getOrCreate("Giovani", "giovani@email.com");
+
+        assertThat(result.getId()).isEqualTo(1l);
+        assertThat(result.getName()).isEqualTo("Giovani");
+        assertThat(result.getEmail()).isEqualTo("giovani@email.com");
+    }
+
+    @Test
+    @DisplayName("Deve obter o cliente cadastrado concorrentemente quando a inserção violar o e-mail único")
+    public void concurrentCustomerCreationTest() {
+        Customer customer = Customer.builder().id(1l).name("Giovani").email("giovani@email.com").build();
+        when(repository.findByEmail("giovani@email.com"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(customer));
+        when(repository.saveAndFlush(Mockito.any(Customer.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_customer_email"));
+
+        Customer result = service.getOrCreate("Giovani", "giovani@email.com");
+
+        assertThat(result).isEqualTo(customer);
+    }
+
+}
@@ -7,9 +7,17 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -21,14 +29,20 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import com.libraryapi.api.dto.LoanFilterDto;
 import com.libraryapi.exception.BusinessException;
 import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.Customer;
 import com.libraryapi.model.entity.Loan;
+import com.libraryapi.model.repository.BookRepository;
+import com.libraryapi.model.repository.LoanArchiveRepository;
 import com.libraryapi.model.repository.LoanRepository;
+import com.libraryapi.service.concurrent.BookLockManager;
 import com.libraryapi.service.impl.LoanServiceImpl;
+import com.libraryapi.service.index.BookAvailabilityIndex;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -39,16 +53,30 @@ public class LoanServiceTest {
     @MockBean
     LoanRepository repository;
 
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    LoanArchiveRepository archiveRepository;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @MockBean
+    ReservationService reservationService;
+
     @BeforeEach
     public void setUp(){
-        this.service = new LoanServiceImpl(repository);
+        this.service = new LoanServiceImpl(repository, bookRepository, archiveRepository,
+                new BookAvailabilityIndex(bookRepository, false), new BookLockManager(16), transactionManager,
+                reservationService);
     }
 
     @Test
     @DisplayName("Deve salvar um empréstimo")
     public void saveLoanTest() {
         Book book = Book.builder().id(1l).build();
-        String customer = "Giovani";
+        Customer customer = createCustomer();
 
         Loan savingLoan =
                 Loan.builder()
@@ -64,7 +92,7 @@ public class LoanServiceTest {
                     .book(book).build();
 
 
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(false);
+        when(bookRepository.takeCopy(1l)).thenReturn(OptionalInt.of(0));
         when(repository.save(savingLoan)).thenReturn(savedLoan);
 
         Loan loan = service.save(savingLoan);
@@ -75,11 +103,30 @@ public class LoanServiceTest {
         assertThat(loan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
     }
 
+    @Test
+    @DisplayName("Deve salvar em lote somente os empréstimos de livros disponíveis")
+    public void saveAllLoansTest() {
+        Customer customer = createCustomer();
+        List<Loan> loans = Arrays.asList(
+                Loan.builder().book(Book.builder().id(1l).build()).customer(customer).loanDate(LocalDate.now()).build(),
+                Loan.builder().book(Book.builder().id(2l).build()).customer(customer).loanDate(LocalDate.now()).build(),
+                Loan.builder().book(Book.builder().id(3l).build()).customer(customer).loanDate(LocalDate.now()).build());
+        when(bookRepository.takeCopies(Arrays.asList(1l, 2l, 3l))).thenReturn(Map.of(1l, 0, 3l, 2));
+        when(repository.insertAll(Mockito.anyList())).thenReturn(Arrays.asList(10l, 11l));
+
+        List<Loan> saved = service.saveAll(loans);
+
+        assertThat(saved).extracting(loan -> loan.getBook().getId()).containsExactly(1l, 3l);
+        assertThat(saved).extracting(Loan::getId).containsExactly(10l, 11l);
+        verify(repository).insertAll(Arrays.asList(loans.get(0), loans.get(2)));
+        verify(transactionManager).commit(Mockito.any());
+    }
+
     @Test
     @DisplayName("Deve lançar erro de negócio ao salvar um empréstimo com livro já emprestado")
     public void loanedBookSaveTest() {
         Book book = Book.builder().id(1l).build();
-        String customer = "Giovani";
+        Customer customer = createCustomer();
 
         Loan savingLoan =
                 Loan.builder()
@@ -88,7 +135,7 @@ public class LoanServiceTest {
                         .loanDate(LocalDate.now())
                         .build();
 
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(true);
+        when(bookRepository.takeCopy(1l)).thenReturn(OptionalInt.empty());
 
         Throwable exception = catchThrowable(() -> service.save(savingLoan));
 
@@ -126,18 +173,39 @@ public class LoanServiceTest {
         loan.setId(1l);
         loan.setReturned(true);
 
+        when(repository.updateReturned(1l, true)).thenReturn(true);
+        when(bookRepository.returnCopy(1l)).thenReturn(OptionalInt.of(1));
         when(repository.save(loan)).thenReturn(loan);
 
         Loan updatedLoan = service.update(loan);
 
         assertThat(updatedLoan.getReturned()).isTrue();
         verify(repository).save(loan);
+        verify(bookRepository).returnCopy(1l);
+    }
+
+    @Test
+    @DisplayName("Deve devolver o exemplar uma única vez quando a devolução se repete")
+    public void repeatedReturnTest() {
+        Loan loan = createLoan();
+        loan.setId(1l);
+        loan.setReturned(true);
+
+        when(repository.updateReturned(1l, true)).thenReturn(true, false);
+        when(bookRepository.returnCopy(1l)).thenReturn(OptionalInt.of(1));
+        when(repository.save(loan)).thenReturn(loan);
+
+        service.update(loan);
+        service.update(loan);
+
+        verify(repository, Mockito.times(2)).save(loan);
+        verify(bookRepository, Mockito.times(1)).returnCopy(1l);
     }
 
     @Test
     @DisplayName("Deve filtrar empréstimos pelas propriedades")
     public void findLoanTest() {
-        LoanFilterDto loanFilterDTO = LoanFilterDto.builder().customer("Giovani").isbn("321").build();
+        LoanFilterDto loanFilterDTO = LoanFilterDto.builder().customer("Giovani").isbn("978-0-306-40615-7").build();
 
         Loan loan = createLoan();
         loan.setId(1l);
@@ -146,7 +214,7 @@ public class LoanServiceTest {
 
         Page<Loan> page = new PageImpl<Loan>(lista, pageRequest, lista.size());
         when(repository.findByBookIsbnOrCustomer(
-                    Mockito.anyString(),
+                    Mockito.eq(9780306406157l),
                     Mockito.anyString(),
                     Mockito.any(PageRequest.class)))
                 .thenReturn(page);
@@ -159,9 +227,177 @@ public class LoanServiceTest {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve consultar a disponibilidade no banco quando o índice estiver desabilitado")
+    public void bookAvailabilityFromRepositoryTest() {
+        when(bookRepository.findAvailableCopies(1l)).thenReturn(Optional.of(0));
+        when(bookRepository.findAvailableCopies(2l)).thenReturn(Optional.of(3));
+
+        assertThat(service.isBookAvailable(1l)).contains(false);
+        assertThat(service.isBookAvailable(2l)).contains(true);
+        assertThat(service.isBookAvailable(3l)).isEmpty();
+        verify(bookRepository).findAvailableCopies(1l);
+    }
+
+    @Test
+    @DisplayName("Deve consultar a disponibilidade no índice em memória quando habilitado")
+    public void bookAvailabilityFromIndexTest() {
+        BookAvailabilityIndex index = new BookAvailabilityIndex(bookRepository, true);
+        when(bookRepository.findBookIdsWithoutAvailableCopies()).thenReturn(Arrays.asList(1l));
+        index.warmUp();
+        service = new LoanServiceImpl(repository, bookRepository, archiveRepository, index, new BookLockManager(16),
+                transactionManager, reservationService);
+
+        when(bookRepository.existsById(2l)).thenReturn(true);
+
+        assertThat(service.isBookAvailable(1l)).contains(false);
+        assertThat(service.isBookAvailable(2l)).contains(true);
+        assertThat(service.isBookAvailable(3l)).isEmpty();
+        assertThat(service.isBookAvailable(-1l)).isEmpty();
+        verify(bookRepository, never()).existsById(1l);
+        verify(bookRepository, never()).findAvailableCopies(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve manter o índice coerente ao emprestar e devolver um livro")
+    public void indexCoherentOnSaveAndUpdateTest() {
+        BookAvailabilityIndex index = new BookAvailabilityIndex(bookRepository, true);
+        when(bookRepository.findBookIdsWithoutAvailableCopies()).thenReturn(Arrays.asList());
+        index.warmUp();
+        service = new LoanServiceImpl(repository, bookRepository, archiveRepository, index, new BookLockManager(16),
+                transactionManager, reservationService);
+
+        Loan loan = createLoan();
+        loan.setId(1l);
+        when(bookRepository.takeCopy(1l)).thenReturn(OptionalInt.of(0));
+        when(repository.save(loan)).thenReturn(loan);
+
+        service.save(loan);
+        assertThat(service.isBookAvailable(1l)).contains(false);
+
+        Throwable exception = catchThrowable(() -> service.save(createLoan()));
+        assertThat(exception).isInstanceOf(BusinessException.class);
+        verify(bookRepository, Mockito.times(1)).takeCopy(1l);
+
+        loan.setReturned(true);
+        when(repository.updateReturned(1l, true)).thenReturn(true);
+        when(bookRepository.returnCopy(1l)).thenReturn(OptionalInt.of(1));
+        when(bookRepository.existsById(1l)).thenReturn(true);
+        service.update(loan);
+        assertThat(service.isBookAvailable(1l)).contains(true);
+        verify(bookRepository, never()).findAvailableCopies(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve manter o livro emprestado quando a devolução o passa ao próximo da fila")
+    public void handOffOnReturnTest() {
+        BookAvailabilityIndex index = new BookAvailabilityIndex(bookRepository, true);
+        when(bookRepository.findBookIdsWithoutAvailableCopies()).thenReturn(Arrays.asList(1l));
+        index.warmUp();
+        service = new LoanServiceImpl(repository, bookRepository, archiveRepository, index, new BookLockManager(16),
+                transactionManager, reservationService);
+
+        Loan loan = createLoan();
+        loan.setId(1l);
+        loan.setReturned(true);
+        when(repository.updateReturned(1l, true)).thenReturn(true);
+        when(repository.save(loan)).thenReturn(loan);
+        when(reservationService.promoteNext(loan.getBook())).thenReturn(Optional.of(createLoan()));
+
+        service.update(loan);
+
+        assertThat(service.isBookAvailable(1l)).contains(false);
+        verify(reservationService).promoteNext(loan.getBook());
+        verify(bookRepository, never()).returnCopy(1l);
+        verify(transactionManager).commit(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve permitir somente um empréstimo quando vários pedidos do mesmo livro concorrem")
+    public void concurrentSaveSameBookTest() throws Exception {
+        BookAvailabilityIndex index = new BookAvailabilityIndex(bookRepository, true);
+        when(bookRepository.findBookIdsWithoutAvailableCopies()).thenReturn(Arrays.asList());
+        index.warmUp();
+        service = new LoanServiceImpl(repository, bookRepository, archiveRepository, index, new BookLockManager(16),
+                transactionManager, reservationService);
+        // um único exemplar; o mock não é atômico, quem garante a exclusão aqui é o lock por livro
+        AtomicInteger copies = new AtomicInteger(1);
+        when(bookRepository.takeCopy(1l)).thenAnswer(invocation -> copies.get() > 0
+                ? OptionalInt.of(copies.decrementAndGet()) : OptionalInt.empty());
+        when(repository.save(Mockito.any(Loan.class))).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            return invocation.getArgument(0);
+        });
+
+        int requests = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            tasks.add(() -> {
+                try {
+                    service.save(createLoan());
+                    return true;
+                } catch (BusinessException ex) {
+                    return false;
+                }
+            });
+        }
+
+        long succeeded = 0;
+        for (Future<Boolean> result : executor.invokeAll(tasks)) {
+            succeeded += result.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertThat(succeeded).isEqualTo(1);
+        verify(repository, Mockito.times(1)).save(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve arquivar os empréstimos devolvidos antes da data informada")
+    public void archiveReturnedLoansTest() {
+        LocalDate before = LocalDate.now().minusMonths(12);
+        when(archiveRepository.copyReturnedLoansBefore(before)).thenReturn(3);
+        when(repository.deleteReturnedLoansBefore(before)).thenReturn(3);
+
+        int archived = service.archiveReturnedLoans(before);
+
+        assertThat(archived).isEqualTo(3);
+        verify(archiveRepository).copyReturnedLoansBefore(before);
+        verify(repository).deleteReturnedLoansBefore(before);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro quando a quantidade arquivada divergir da removida")
+    public void inconsistentArchiveTest() {
+        LocalDate before = LocalDate.now().minusMonths(12);
+        when(archiveRepository.copyReturnedLoansBefore(before)).thenReturn(3);
+        when(repository.deleteReturnedLoansBefore(before)).thenReturn(2);
+
+        Throwable exception = catchThrowable(() -> service.archiveReturnedLoans(before));
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Deve obter os clientes com empréstimos atrasados")
+    public void getCustomersWithLateLoansTest() {
+        Customer customer = createCustomer();
+        when(repository.findCustomersWithLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4)))
+                .thenReturn(Arrays.asList(customer));
+
+        List<Customer> result = service.getCustomersWithLateLoans();
+
+        assertThat(result).containsExactly(customer);
+    }
+
+    public static Customer createCustomer() {
+        return Customer.builder().id(1l).name("Giovani").email("giovani@email.com").build();
+    }
+
     public static Loan createLoan() {
         Book book = Book.builder().id(1l).build();
-        String customer = "Giovani";
+        Customer customer = createCustomer();
 
         return Loan.builder()
                         .book(book)
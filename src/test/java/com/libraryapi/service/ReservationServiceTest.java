@@ -0,0 +1,163 @@
+package com.libraryapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.libraryapi.exception.BusinessException;
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.BookReservation;
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.model.entity.Loan;
+import com.libraryapi.model.repository.BookRepository;
+import com.libraryapi.model.repository.BookReservationRepository;
+import com.libraryapi.model.repository.LoanRepository;
+import com.libraryapi.service.concurrent.BookLockManager;
+import com.libraryapi.service.impl.ReservationServiceImpl;
+import com.libraryapi.service.index.BookAvailabilityIndex;
+import com.libraryapi.service.index.WaitlistHeadIndex;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ReservationServiceTest {
+
+    ReservationService service;
+
+    WaitlistHeadIndex headIndex;
+
+    @MockBean
+    BookReservationRepository repository;
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    public void setUp() {
+        when(repository.findBookIdsWithWaitlist()).thenReturn(Arrays.asList());
+        headIndex = new WaitlistHeadIndex(repository, true);
+        headIndex.warmUp();
+        service = new ReservationServiceImpl(repository, loanRepository, bookRepository,
+                new BookAvailabilityIndex(bookRepository, false), headIndex, new BookLockManager(16), eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Deve entrar na fila de um livro emprestado")
+    public void reserveTest() {
+        Book book = Book.builder().id(1l).build();
+        Customer customer = Customer.builder().id(2l).build();
+        when(bookRepository.findAvailableCopies(1l)).thenReturn(Optional.of(0));
+        when(repository.save(Mockito.any(BookReservation.class))).thenAnswer(invocation -> {
+            BookReservation reservation = invocation.getArgument(0);
+            reservation.setId(10l);
+            return reservation;
+        });
+
+        BookReservation reservation = service.reserve(book, customer);
+
+        assertThat(reservation.getId()).isEqualTo(10l);
+        assertThat(reservation.getCreatedAt()).isNotNull();
+        assertThat(headIndex.knownHead(1l)).isEqualTo(10l);
+    }
+
+    @Test
+    @DisplayName("Deve recusar a reserva de um livro disponível ou de quem já está na fila")
+    public void reserveRejectedTest() {
+        Book book = Book.builder().id(1l).build();
+        Customer customer = Customer.builder().id(2l).build();
+        when(bookRepository.findAvailableCopies(1l)).thenReturn(Optional.of(1));
+
+        Throwable available = catchThrowable(() -> service.reserve(book, customer));
+
+        when(bookRepository.findAvailableCopies(1l)).thenReturn(Optional.of(0));
+        when(repository.existsByBookIdAndCustomerIdAndLoanIsNull(1l, 2l)).thenReturn(true);
+        Throwable waiting = catchThrowable(() -> service.reserve(book, customer));
+
+        assertThat(available).isInstanceOf(BusinessException.class).hasMessage("Livro disponível para empréstimo.");
+        assertThat(waiting).isInstanceOf(BusinessException.class).hasMessage("Cliente já está na fila deste livro.");
+        verify(repository, never()).save(Mockito.any(BookReservation.class));
+    }
+
+    @Test
+    @DisplayName("Deve emprestar o livro à reserva da vez, lida pela chave primária, e avançar a fila")
+    public void promoteNextTest() {
+        Book book = Book.builder().id(1l).build();
+        BookReservation head = createReservation(10l, book);
+        BookReservation next = createReservation(11l, book);
+        headIndex.enqueued(1l, 10l);
+        when(repository.findById(10l)).thenReturn(Optional.of(head));
+        when(repository.findFirstByBookIdAndLoanIsNullOrderByCreatedAtAscIdAsc(1l)).thenReturn(Optional.of(next));
+        when(loanRepository.save(Mockito.any(Loan.class))).thenAnswer(invocation -> {
+            Loan loan = invocation.getArgument(0);
+            loan.setId(100l);
+            return loan;
+        });
+
+        Optional<Loan> loan = service.promoteNext(book);
+
+        assertThat(loan).isPresent();
+        assertThat(loan.get().getCustomer()).isEqualTo(head.getCustomer());
+        assertThat(loan.get().getReturned()).isFalse();
+        assertThat(head.getLoan()).isEqualTo(loan.get());
+        assertThat(headIndex.knownHead(1l)).isEqualTo(11l);
+        verify(eventPublisher).publishEvent(new ReservationPromotedEvent(10l, 100l, 1l));
+    }
+
+    @Test
+    @DisplayName("Não deve consultar as reservas na devolução de um livro sem fila")
+    public void promoteNextWithoutWaitlistTest() {
+        Book book = Book.builder().id(1l).build();
+
+        Optional<Loan> loan = service.promoteNext(book);
+
+        assertThat(loan).isEmpty();
+        verify(repository, never()).findFirstByBookIdAndLoanIsNullOrderByCreatedAtAscIdAsc(1l);
+        verify(loanRepository, never()).save(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve consultar a fila no banco quando o índice está desligado, como em várias réplicas")
+    public void promoteNextWithoutHeadIndexTest() {
+        service = new ReservationServiceImpl(repository, loanRepository, bookRepository,
+                new BookAvailabilityIndex(bookRepository, false), new WaitlistHeadIndex(repository, false),
+                new BookLockManager(16), eventPublisher);
+        Book book = Book.builder().id(1l).build();
+        BookReservation elsewhere = createReservation(10l, book);
+        when(repository.findFirstByBookIdAndLoanIsNullOrderByCreatedAtAscIdAsc(1l))
+                .thenReturn(Optional.of(elsewhere)).thenReturn(Optional.empty());
+        when(loanRepository.save(Mockito.any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Optional<Loan> loan = service.promoteNext(book);
+
+        assertThat(loan).isPresent();
+        assertThat(loan.get().getCustomer()).isEqualTo(elsewhere.getCustomer());
+        assertThat(elsewhere.getLoan()).isEqualTo(loan.get());
+    }
+
+    private BookReservation createReservation(Long id, Book book) {
+        Customer customer = Customer.builder().id(id).name("Fulano").build();
+        return BookReservation.builder().id(id).book(book).customer(customer).createdAt(LocalDateTime.now()).build();
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.libraryapi.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.libraryapi.exception.BusinessException;
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.BookReservation;
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.model.entity.Loan;
+import com.libraryapi.model.repository.BookRepository;
+
+/**
+ * Pico de procura por um livro emprestado (50 clientes, H2 em memória, cada
+ * empréstimo devolvido 20 ms depois de feito): clientes tentando emprestar a
+ * cada 50 ms até conseguir, contra a fila de espera, em que cada cliente faz
+ * a reserva, abre uma conexão de aviso e recebe o livro na devolução anterior.
+ * Informa pedidos por empréstimo e o tempo até o empréstimo (p50 e p99).
+ * Executar com: mvn test -Dtest=WaitlistBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = { "lateloans.message=Empréstimo atrasado", "defaultRemetent=mail@library-api.com",
+		"spring.mail.host=localhost", "spring.datasource.url=jdbc:h2:mem:waitlist",
+		"waitlist.head-index.enabled=true" })
+@ActiveProfiles("test")
+public class WaitlistBenchmark {
+
+	private static final int CLIENTS = 50;
+	private static final long HOLD_MILLIS = 20;
+	private static final long POLL_MILLIS = 50;
+
+	@Autowired
+	BookRepository bookRepository;
+
+	@Autowired
+	CustomerService customerService;
+
+	@Autowired
+	LoanService loanService;
+
+	@Autowired
+	ReservationService reservationService;
+
+	@Autowired
+	Promotions promotions;
+
+	private final AtomicLong nextBook = new AtomicLong();
+
+	@Test
+	@DisplayName("Benchmark da fila de espera contra tentativas repetidas de empréstimo")
+	public void waitlistBenchmark() throws Exception {
+		// primeira rodada de cada modo só aquece o JIT e o pool
+		run(null, false);
+		run(null, true);
+		System.out.printf("%-16s %10s %14s %10s %10s%n", "modo", "pedidos", "pedidos/empr.", "p50 (ms)", "p99 (ms)");
+		run("tentativas", false);
+		run("fila de espera", true);
+	}
+
+	private void run(String label, boolean waitlist) throws Exception {
+		long n = nextBook.incrementAndGet();
+		Book book = bookRepository.save(Book.builder().title("Livro " + n).author("Autor")
+				.isbn(String.valueOf(n)).isbnKey(9_780_000_000_000l + n).build());
+		Customer holder = customerService.getOrCreate("Dono " + n, "dono" + n + "@email.com");
+		AtomicReference<Loan> current = new AtomicReference<>(loanService.save(newLoan(book, holder)));
+		List<Customer> customers = new ArrayList<>();
+		for (int i = 0; i < CLIENTS; i++) {
+			customers.add(customerService.getOrCreate("Cliente " + n + "-" + i, "cliente" + n + "-" + i + "@email.com"));
+		}
+
+		AtomicLong requests = new AtomicLong();
+		long[] latencies = new long[CLIENTS];
+		CountDownLatch started = new CountDownLatch(CLIENTS);
+		CountDownLatch done = new CountDownLatch(CLIENTS);
+		long start = System.nanoTime();
+		for (int i = 0; i < CLIENTS; i++) {
+			int client = i;
+			Thread.ofPlatform().start(() -> {
+				Loan loan = waitlist
+						? viaWaitlist(book, customers.get(client), requests, started)
+						: viaPolling(book, customers.get(client), requests, started);
+				latencies[client] = System.nanoTime() - start;
+				current.set(loan);
+				done.countDown();
+			});
+		}
+
+		// devoluções começam com todos os clientes já na disputa
+		started.await();
+		for (int returned = 0; returned < CLIENTS; returned++) {
+			Loan loan;
+			while ((loan = current.getAndSet(null)) == null) {
+				Thread.sleep(1);
+			}
+			Thread.sleep(HOLD_MILLIS);
+			loan.setReturned(true);
+			loanService.update(loan);
+		}
+		done.await();
+
+		if (label == null) {
+			return;
+		}
+		Arrays.sort(latencies);
+		System.out.printf("%-16s %10d %14.1f %10.0f %10.0f%n", label, requests.get(), (double) requests.get() / CLIENTS,
+				latencies[CLIENTS / 2] / 1e6, latencies[(int) (CLIENTS * 0.99)] / 1e6);
+	}
+
+	private Loan viaPolling(Book book, Customer customer, AtomicLong requests, CountDownLatch started) {
+		boolean first = true;
+		while (true) {
+			requests.incrementAndGet();
+			try {
+				return loanService.save(newLoan(book, customer));
+			} catch (BusinessException ex) {
+				if (first) {
+					started.countDown();
+					first = false;
+				}
+				sleep(POLL_MILLIS);
+			}
+		}
+	}
+
+	private Loan viaWaitlist(Book book, Customer customer, AtomicLong requests, CountDownLatch started) {
+		// POST /api/waitlist e GET /api/waitlist/{id}/events
+		requests.addAndGet(2);
+		BookReservation reservation = reservationService.reserve(book, customer);
+		CompletableFuture<Long> promoted = promotions.of(reservation.getId());
+		started.countDown();
+		return loanService.getById(promoted.join()).orElseThrow();
+	}
+
+	private static Loan newLoan(Book book, Customer customer) {
+		return Loan.builder().book(book).customer(customer).loanDate(LocalDate.now()).returned(false).build();
+	}
+
+	private static void sleep(long millis) {
+		try {
+			TimeUnit.MILLISECONDS.sleep(millis);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/** Faz o papel da conexão SSE: completa o futuro de cada reserva promovida. */
+	static class Promotions {
+
+		private final Map<Long, CompletableFuture<Long>> futures = new ConcurrentHashMap<>();
+
+		CompletableFuture<Long> of(Long reservationId) {
+			return futures.computeIfAbsent(reservationId, id -> new CompletableFuture<>());
+		}
+
+		@TransactionalEventListener(fallbackExecution = true)
+		public void onPromoted(ReservationPromotedEvent event) {
+			of(event.reservationId()).complete(event.loanId());
+		}
+
+	}
+
+	@TestConfiguration
+	static class PromotionsConfig {
+
+		@Bean
+		Promotions promotions() {
+			return new Promotions();
+		}
+
+	}
+
+}
@@ -0,0 +1,200 @@
+package com.libraryapi.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.service.index.BookSuggestIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BookChangeListenerTest {
+
+	private BookSearchCache searchCache;
+	private BookSuggestIndex suggestIndex;
+	private AtomicInteger queries;
+
+	@BeforeEach
+	public void setUp() {
+		searchCache = new BookSearchCache(true, 100, new SimpleMeterRegistry());
+		suggestIndex = mock(BookSuggestIndex.class);
+		queries = new AtomicInteger();
+	}
+
+	@Test
+	@DisplayName("Deve esvaziar o cache da busca e atualizar o índice de sugestões a cada aviso")
+	public void applyNotificationsTest() {
+		BookChangeListener listener = listener(new DataSourceProperties());
+
+		search(searchCache);
+		listener.apply(new String[] { "7:U:1", "8:D:2" });
+		search(searchCache);
+
+		assertThat(queries.get()).isEqualTo(2);
+		verify(suggestIndex).refresh(1l);
+		verify(suggestIndex).remove(2l);
+	}
+
+	@Test
+	@DisplayName("Deve recarregar os caches quando a sequência segue à frente dos avisos por duas verificações")
+	public void resyncOnMissedNotificationTest() {
+		BookChangeListener listener = listener(new DataSourceProperties());
+		when(suggestIndex.isEnabled()).thenReturn(true);
+		listener.apply(new String[] { "3:I:1" });
+
+		// alteração ainda sem commit: o aviso chega antes da próxima verificação
+		listener.checkVersion(4);
+		listener.apply(new String[] { "4:U:1" });
+		listener.checkVersion(4);
+		verify(suggestIndex, never()).reload();
+
+		// o aviso 5 nunca chega
+		listener.checkVersion(5);
+		verify(suggestIndex, never()).reload();
+		listener.checkVersion(5);
+		verify(suggestIndex).reload();
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+	@DisplayName("Deve invalidar os caches de todas as instâncias ao alterar um livro no PostgreSQL")
+	public void invalidateAcrossInstancesTest() throws Exception {
+		DataSourceProperties properties = migratedPostgres();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(properties.getUrl(),
+				properties.getUsername(), properties.getPassword()));
+
+		List<BookChangeListener> listeners = new ArrayList<>();
+		List<BookSearchCache> caches = new ArrayList<>();
+		List<BookSuggestIndex> indexes = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			BookSearchCache cache = new BookSearchCache(true, 100, new SimpleMeterRegistry());
+			BookSuggestIndex index = mock(BookSuggestIndex.class);
+			BookChangeListener listener = new BookChangeListener(properties, cache, index, new SimpleMeterRegistry(),
+					true, 200);
+			listener.start();
+			listeners.add(listener);
+			caches.add(cache);
+			indexes.add(index);
+		}
+		try {
+			long deadline = System.currentTimeMillis() + 5000;
+			while (!listeners.stream().allMatch(BookChangeListener::isListening)) {
+				assertThat(System.currentTimeMillis()).isLessThan(deadline);
+				Thread.sleep(20);
+			}
+			caches.forEach(this::search);
+
+			Long id = jdbcTemplate.queryForObject("INSERT INTO book (title, author, isbn, isbn_key) "
+					+ "VALUES ('Jogos vorazes', 'Suzanne Collins', '9780975229804', 9780975229804) RETURNING id",
+					Long.class);
+			jdbcTemplate.update("UPDATE book SET title = 'Em chamas' WHERE id = ?", id);
+			jdbcTemplate.update("DELETE FROM book WHERE id = ?", id);
+
+			for (BookSuggestIndex index : indexes) {
+				verify(index, timeout(1000).times(2)).refresh(id);
+				verify(index, timeout(1000)).remove(id);
+			}
+			int before = queries.get();
+			caches.forEach(this::search);
+			assertThat(queries.get()).isEqualTo(before + caches.size());
+		} finally {
+			for (BookChangeListener listener : listeners) {
+				listener.stop();
+			}
+		}
+	}
+
+	@Test
+	@EnabledIfSystemProperty(named = "postgres.url", matches = ".+")
+	@DisplayName("Não deve recarregar os caches por causa de uma alteração de livro desfeita com rollback")
+	public void rollbackDoesNotResyncTest() throws Exception {
+		DataSourceProperties properties = migratedPostgres();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(properties.getUrl(),
+				properties.getUsername(), properties.getPassword()));
+		when(suggestIndex.isEnabled()).thenReturn(true);
+		BookChangeListener listener = listener(properties);
+		listener.start();
+		Long id = null;
+		try {
+			long deadline = System.currentTimeMillis() + 5000;
+			while (!listener.isListening()) {
+				assertThat(System.currentTimeMillis()).isLessThan(deadline);
+				Thread.sleep(20);
+			}
+			id = jdbcTemplate.queryForObject("INSERT INTO book (title, author, isbn, isbn_key) "
+					+ "VALUES ('Jogos vorazes', 'Suzanne Collins', '9780975229804', 9780975229804) RETURNING id",
+					Long.class);
+			verify(suggestIndex, timeout(1000)).refresh(id);
+
+			try (Connection connection = DriverManager.getConnection(properties.getUrl(), properties.getUsername(),
+					properties.getPassword())) {
+				connection.setAutoCommit(false);
+				try (PreparedStatement update = connection
+						.prepareStatement("UPDATE book SET title = 'Em chamas' WHERE id = ?")) {
+					update.setLong(1, id);
+					update.executeUpdate();
+				}
+				connection.rollback();
+			}
+
+			// várias verificações de versão (a cada 200 ms) sem aviso pendente
+			Thread.sleep(1000);
+			verify(suggestIndex, never()).reload();
+			verify(suggestIndex, times(1)).refresh(id);
+		} finally {
+			listener.stop();
+			if (id != null) {
+				jdbcTemplate.update("DELETE FROM book WHERE id = ?", id);
+			}
+		}
+	}
+
+	private DataSourceProperties migratedPostgres() {
+		DataSourceProperties properties = new DataSourceProperties();
+		properties.setUrl(System.getProperty("postgres.url"));
+		properties.setUsername(System.getProperty("postgres.username", "postgres"));
+		properties.setPassword(System.getProperty("postgres.password", "postgres"));
+		Flyway.configure()
+				.dataSource(properties.getUrl(), properties.getUsername(), properties.getPassword())
+				.baselineOnMigrate(true)
+				.baselineVersion("1")
+				.load()
+				.migrate();
+		return properties;
+	}
+
+	private BookChangeListener listener(DataSourceProperties properties) {
+		return new BookChangeListener(properties, searchCache, suggestIndex, new SimpleMeterRegistry(), true, 200);
+	}
+
+	private void search(BookSearchCache cache) {
+		cache.find(Book.builder().title("jogos").build(), PageRequest.of(0, 10), () -> {
+			queries.incrementAndGet();
+			return new PageImpl<>(List.of(), PageRequest.of(0, 10), 0);
+		});
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.libraryapi.service.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.libraryapi.model.entity.Book;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Buscas repetidas do catálogo (2.000 filtros distintos em distribuição Zipf,
+ * páginas de 20 livros, consulta simulada de 2 ms) com 8 threads, sem cache e
+ * com cache sob 0, 1, 10 e 100 escritas por segundo. Informa vazão, taxa de
+ * acerto, p50 e p99.
+ * Executar com: mvn test -Dtest=BookSearchCacheBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class BookSearchCacheBenchmark {
+
+	private static final int THREADS = 8;
+	private static final int FILTERS = 2_000;
+	private static final int PAGE_SIZE = 20;
+	private static final long QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+	private static final long DURATION_NANOS = TimeUnit.SECONDS.toNanos(3);
+
+	@Test
+	@DisplayName("Benchmark do cache da busca do catálogo")
+	public void bookSearchCacheBenchmark() throws Exception {
+		System.out.printf("%-18s %10s %8s %10s %10s%n", "cenario", "buscas/s", "acerto", "p50 (us)", "p99 (us)");
+		run("sem cache", false, 0);
+		for (int writesPerSecond : new int[] { 0, 1, 10, 100 }) {
+			run("cache " + writesPerSecond + " escr/s", true, writesPerSecond);
+		}
+	}
+
+	private void run(String label, boolean enabled, int writesPerSecond) throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		BookSearchCache cache = new BookSearchCache(enabled, 100_000, registry);
+		Zipf zipf = new Zipf(FILTERS, 1.0);
+		AtomicBoolean running = new AtomicBoolean(true);
+		CountDownLatch done = new CountDownLatch(THREADS);
+		List<long[]> latencies = new ArrayList<>();
+		int[] counts = new int[THREADS];
+
+		Thread writer = new Thread(() -> {
+			while (running.get() && writesPerSecond > 0) {
+				LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1) / writesPerSecond);
+				cache.invalidate();
+			}
+		});
+		writer.start();
+
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			long[] samples = new long[2_000_000];
+			latencies.add(samples);
+			new Thread(() -> {
+				Random random = new Random(thread);
+				long end = System.nanoTime() + DURATION_NANOS;
+				int count = 0;
+				while (System.nanoTime() < end && count < samples.length) {
+					Book filter = Book.builder().title("titulo " + zipf.next(random)).build();
+					Pageable pageable = PageRequest.of(0, PAGE_SIZE);
+					long start = System.nanoTime();
+					cache.find(filter, pageable, () -> query(pageable));
+					samples[count++] = System.nanoTime() - start;
+				}
+				counts[thread] = count;
+				done.countDown();
+			}).start();
+		}
+		done.await();
+		running.set(false);
+		writer.join();
+
+		int total = Arrays.stream(counts).sum();
+		long[] all = new long[total];
+		int offset = 0;
+		for (int t = 0; t < THREADS; t++) {
+			System.arraycopy(latencies.get(t), 0, all, offset, counts[t]);
+			offset += counts[t];
+		}
+		Arrays.sort(all);
+		double hits = registry.get("book.search.cache").tag("result", "hit").counter().count();
+		System.out.printf("%-18s %10.0f %7.1f%% %10.1f %10.1f%n", label,
+				total / (DURATION_NANOS / 1e9), total == 0 ? 0 : 100 * hits / total,
+				all[total / 2] / 1e3, all[(int) (total * 0.99)] / 1e3);
+	}
+
+	private static Page<Book> query(Pageable pageable) {
+		LockSupport.parkNanos(QUERY_NANOS);
+		List<Book> books = new ArrayList<>(PAGE_SIZE);
+		for (long id = 1; id <= PAGE_SIZE; id++) {
+			books.add(Book.builder().id(id).title("Livro " + id).author("Autor").isbn("9780306406157").build());
+		}
+		return new PageImpl<>(books, pageable, 500);
+	}
+
+	private static final class Zipf {
+
+		private final double[] cumulative;
+
+		Zipf(int size, double skew) {
+			cumulative = new double[size];
+			double sum = 0;
+			for (int rank = 1; rank <= size; rank++) {
+				sum += 1 / Math.pow(rank, skew);
+				cumulative[rank - 1] = sum;
+			}
+			for (int i = 0; i < size; i++) {
+				cumulative[i] /= sum;
+			}
+		}
+
+		long next(Random random) {
+			int index = Arrays.binarySearch(cumulative, random.nextDouble());
+			return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+		}
+
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.libraryapi.service.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import com.libraryapi.model.entity.Book;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BookSearchCacheTest {
+
+	private SimpleMeterRegistry registry;
+	private AtomicInteger queries;
+
+	@BeforeEach
+	public void setUp() {
+		registry = new SimpleMeterRegistry();
+		queries = new AtomicInteger();
+	}
+
+	@Test
+	@DisplayName("Deve reaproveitar a página de buscas com o mesmo filtro, sem diferenciar maiúsculas")
+	public void cacheHitTest() {
+		BookSearchCache cache = new BookSearchCache(true, 100, registry);
+		cache.bindTo(registry);
+		Pageable pageable = PageRequest.of(0, 10);
+
+		Page<Book> first = cache.find(Book.builder().title("Jogos").build(), pageable, query(pageable));
+		Page<Book> second = cache.find(Book.builder().title("JOGOS").build(), pageable, query(pageable));
+		cache.find(Book.builder().title("Jogos").build(), PageRequest.of(1, 10), query(PageRequest.of(1, 10)));
+
+		assertThat(queries.get()).isEqualTo(2);
+		assertThat(second.getTotalElements()).isEqualTo(first.getTotalElements());
+		assertThat(second.getContent()).extracting(Book::getTitle).containsExactly("Jogos vorazes", "Em chamas");
+		assertThat(second.getContent().get(0)).isNotSameAs(first.getContent().get(0));
+		assertThat(second.getContent().get(0).getCopies()).isEqualTo(3);
+		assertThat(second.getContent().get(0).getAvailableCopies()).isZero();
+		assertThat(registry.get("book.search.cache").tag("result", "hit").counter().count()).isEqualTo(1);
+		assertThat(registry.get("book.search.cache").tag("result", "miss").counter().count()).isEqualTo(2);
+		assertThat(registry.get("book.search.cache.hit.ratio").gauge().value()).isEqualTo(1.0 / 3);
+	}
+
+	@Test
+	@DisplayName("Deve consultar de novo após uma escrita no catálogo")
+	public void invalidateTest() {
+		BookSearchCache cache = new BookSearchCache(true, 100, registry);
+		Pageable pageable = PageRequest.of(0, 10);
+		Book filter = Book.builder().author("collins").build();
+
+		cache.find(filter, pageable, query(pageable));
+		cache.invalidate();
+		cache.find(filter, pageable, query(pageable));
+
+		assertThat(queries.get()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("Não deve guardar o resultado de uma consulta que rodou durante uma escrita")
+	public void discardStaleResultTest() {
+		BookSearchCache cache = new BookSearchCache(true, 100, registry);
+		Pageable pageable = PageRequest.of(0, 10);
+		Book filter = Book.builder().author("collins").build();
+
+		cache.find(filter, pageable, () -> {
+			cache.invalidate();
+			return query(pageable).get();
+		});
+		cache.find(filter, pageable, query(pageable));
+
+		assertThat(queries.get()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("Deve descartar as páginas usadas há mais tempo ao atingir o limite de livros")
+	public void evictLeastRecentlyUsedTest() {
+		BookSearchCache cache = new BookSearchCache(true, 6, registry);
+		cache.bindTo(registry);
+		Pageable pageable = PageRequest.of(0, 10);
+		Book first = Book.builder().title("a").build();
+		Book second = Book.builder().title("b").build();
+		Book third = Book.builder().title("c").build();
+
+		cache.find(first, pageable, query(pageable));
+		cache.find(second, pageable, query(pageable));
+		cache.find(first, pageable, query(pageable));
+		cache.find(third, pageable, query(pageable));
+		cache.find(first, pageable, query(pageable));
+		cache.find(second, pageable, query(pageable));
+
+		assertThat(queries.get()).isEqualTo(4);
+		assertThat(registry.get("book.search.cache.books").gauge().value()).isEqualTo(6);
+	}
+
+	@Test
+	@DisplayName("Deve consultar sempre quando o cache estiver desligado")
+	public void disabledTest() {
+		BookSearchCache cache = new BookSearchCache(false, 100, registry);
+		Pageable pageable = PageRequest.of(0, 10);
+
+		cache.find(Book.builder().build(), pageable, query(pageable));
+		cache.find(Book.builder().build(), pageable, query(pageable));
+
+		assertThat(queries.get()).isEqualTo(2);
+	}
+
+	private Supplier<Page<Book>> query(Pageable pageable) {
+		return () -> {
+			queries.incrementAndGet();
+			return new PageImpl<>(Arrays.asList(
+					Book.builder().id(1l).title("Jogos vorazes").author("Suzanne Collins").copies(3).availableCopies(0)
+							.build(),
+					Book.builder().id(2l).title("Em chamas").author("Suzanne Collins").build()), pageable, 12);
+		};
+	}
+
+}
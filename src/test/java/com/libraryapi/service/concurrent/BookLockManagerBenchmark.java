@@ -0,0 +1,101 @@
+package com.libraryapi.service.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Mede a vazão de operações de empréstimo simuladas (seção crítica de ~50 µs)
+ * com lock global e com locks por faixa, variando a assimetria da
+ * popularidade dos livros (Zipf) e a quantidade de threads.
+ * Executar com: mvn test -Dtest=BookLockManagerBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class BookLockManagerBenchmark {
+
+	private static final int BOOKS = 100_000;
+	private static final long CRITICAL_SECTION_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+	private static final long DURATION_MS = 1000;
+
+	@Test
+	@DisplayName("Benchmark de contenção por livro")
+	public void contentionBenchmark() throws Exception {
+		System.out.printf("%-6s %-8s %16s %16s%n", "zipf", "threads", "global (op/s)", "striped (op/s)");
+		for (double skew : new double[] { 0.0, 0.8, 1.2 }) {
+			ZipfGenerator zipf = new ZipfGenerator(BOOKS, skew);
+			for (int threads : new int[] { 1, 4, 16, 64 }) {
+				ReentrantLock global = new ReentrantLock();
+				BookLockManager striped = new BookLockManager(256);
+				long globalOps = run(threads, zipf, book -> global);
+				long stripedOps = run(threads, zipf, striped::lockFor);
+				System.out.printf("%-6.1f %-8d %16d %16d%n", skew, threads, globalOps, stripedOps);
+			}
+		}
+	}
+
+	private long run(int threads, ZipfGenerator zipf, LongFunction<ReentrantLock> locks)
+			throws InterruptedException {
+		LongAdder operations = new LongAdder();
+		CountDownLatch done = new CountDownLatch(threads);
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+		for (int i = 0; i < threads; i++) {
+			Thread.ofPlatform().start(() -> {
+				while (System.nanoTime() < deadline) {
+					ReentrantLock lock = locks.apply(zipf.next());
+					lock.lock();
+					try {
+						LockSupport.parkNanos(CRITICAL_SECTION_NANOS);
+					} finally {
+						lock.unlock();
+					}
+					operations.increment();
+				}
+				done.countDown();
+			});
+		}
+		done.await();
+		return operations.sum() * 1000 / DURATION_MS;
+	}
+
+	/** Amostragem Zipf por busca binária na distribuição acumulada. */
+	static class ZipfGenerator {
+
+		private final double[] cumulative;
+
+		ZipfGenerator(int size, double skew) {
+			cumulative = new double[size];
+			double sum = 0;
+			for (int rank = 1; rank <= size; rank++) {
+				sum += 1 / Math.pow(rank, skew);
+				cumulative[rank - 1] = sum;
+			}
+			for (int i = 0; i < size; i++) {
+				cumulative[i] /= sum;
+			}
+		}
+
+		long next() {
+			double value = ThreadLocalRandom.current().nextDouble();
+			int low = 0, high = cumulative.length - 1;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (cumulative[mid] < value) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			return low + 1;
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.libraryapi.service.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BookLockManagerTest {
+
+	@Test
+	@DisplayName("Deve arredondar a quantidade de faixas para potência de dois")
+	public void stripeCountTest() {
+		assertThat(new BookLockManager(100).getStripeCount()).isEqualTo(128);
+		assertThat(new BookLockManager(256).getStripeCount()).isEqualTo(256);
+	}
+
+	@Test
+	@DisplayName("Deve usar sempre o mesmo lock para o mesmo livro e distribuir livros diferentes")
+	public void sameBookSameLockTest() {
+		BookLockManager manager = new BookLockManager(64);
+
+		assertThat(manager.lockFor(42l)).isSameAs(manager.lockFor(42l));
+		long distinctLocks = LongStream.rangeClosed(1, 64)
+				.mapToObj(manager::lockFor)
+				.distinct()
+				.count();
+		assertThat(distinctLocks).isGreaterThan(32);
+	}
+
+	@Test
+	@DisplayName("Deve serializar operações concorrentes sobre o mesmo livro")
+	public void serializeSameBookTest() throws Exception {
+		BookLockManager manager = new BookLockManager(8);
+		long[] counters = new long[4];
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		List<Future<?>> futures = new ArrayList<>();
+		for (int thread = 0; thread < 8; thread++) {
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					int book = i % counters.length;
+					manager.withLock((long) book, () -> counters[book]++);
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		assertThat(counters).containsOnly(20_000);
+	}
+
+	@Test
+	@DisplayName("Deve travar vários livros sem deadlock entre pedidos em ordens diferentes")
+	public void multipleLocksTest() throws Exception {
+		BookLockManager manager = new BookLockManager(8);
+		long[] counter = new long[1];
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		List<Future<?>> futures = new ArrayList<>();
+		for (int thread = 0; thread < 8; thread++) {
+			List<Long> books = thread % 2 == 0 ? List.of(1l, 2l, 3l) : List.of(3l, 2l, 1l);
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < 10_000; i++) {
+					manager.withLocks(books, () -> counter[0]++);
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertThat(counter[0]).isEqualTo(80_000);
+		assertThat(manager.lockFor(1l).isLocked()).isFalse();
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.libraryapi.service.concurrent;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.libraryapi.model.entity.Book;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Consultas de livro com chaves em distribuição Zipf contra um banco simulado
+ * (pool de 10 conexões, 2 ms por consulta), com e sem single-flight. Informa
+ * consultas executadas no banco e latência p50/p99.
+ * Executar com: mvn test -Dtest=BookLookupCoalescerBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class BookLookupCoalescerBenchmark {
+
+	private static final int BOOKS = 10_000;
+	private static final int THREADS = 64;
+	private static final int LOOKUPS_PER_THREAD = 500;
+	private static final long QUERY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+	@Test
+	@DisplayName("Benchmark de single-flight com chaves quentes")
+	public void hotKeyBenchmark() throws Exception {
+		System.out.printf("%-6s %-14s %10s %10s %10s%n", "zipf", "single-flight", "consultas", "p50 (ms)", "p99 (ms)");
+		for (double skew : new double[] { 0.8, 1.2, 1.5 }) {
+			BookLockManagerBenchmark.ZipfGenerator zipf = new BookLockManagerBenchmark.ZipfGenerator(BOOKS, skew);
+			run(skew, zipf, false);
+			run(skew, zipf, true);
+		}
+	}
+
+	private void run(double skew, BookLockManagerBenchmark.ZipfGenerator zipf, boolean enabled)
+			throws InterruptedException {
+		BookLookupCoalescer coalescer = new BookLookupCoalescer(enabled, new SimpleMeterRegistry());
+		Semaphore pool = new Semaphore(10, true);
+		AtomicLong queries = new AtomicLong();
+		long[] latencies = new long[THREADS * LOOKUPS_PER_THREAD];
+		CountDownLatch done = new CountDownLatch(THREADS);
+
+		for (int t = 0; t < THREADS; t++) {
+			int offset = t * LOOKUPS_PER_THREAD;
+			Thread.ofPlatform().start(() -> {
+				for (int i = 0; i < LOOKUPS_PER_THREAD; i++) {
+					long id = zipf.next();
+					long start = System.nanoTime();
+					coalescer.byId(id, () -> {
+						pool.acquireUninterruptibly();
+						try {
+							queries.incrementAndGet();
+							LockSupport.parkNanos(QUERY_NANOS);
+							return Optional.of(Book.builder().id(id).isbn(String.valueOf(id)).build());
+						} finally {
+							pool.release();
+						}
+					});
+					latencies[offset + i] = System.nanoTime() - start;
+				}
+				done.countDown();
+			});
+		}
+		done.await();
+
+		Arrays.sort(latencies);
+		System.out.printf("%-6.1f %-14s %10d %10.2f %10.2f%n", skew, enabled ? "ligado" : "desligado", queries.get(),
+				latencies[latencies.length / 2] / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6);
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.libraryapi.service.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.libraryapi.model.entity.Book;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BookLookupCoalescerTest {
+
+	private static final int CALLERS = 8;
+
+	@Test
+	@DisplayName("Deve executar uma única consulta para chamadas concorrentes do mesmo livro")
+	public void coalesceConcurrentLookupsTest() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		BookLookupCoalescer coalescer = new BookLookupCoalescer(true, registry);
+		Book book = Book.builder().id(1l).title("Jogos vorazes").author("Suzanne Collins").isbn("9780306406157").isbnKey(9780306406157l)
+				.copies(3).availableCopies(2).build();
+		AtomicInteger queries = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		List<Optional<Book>> results = runConcurrently(() -> coalescer.byIsbn(9780306406157l, () -> {
+			queries.incrementAndGet();
+			await(release);
+			return Optional.of(book);
+		}), () -> registry.get("book.lookup.calls").tag("result", "coalesced").counter().count() < CALLERS - 1,
+				release);
+
+		assertThat(queries.get()).isEqualTo(1);
+		assertThat(results).allSatisfy(result -> {
+			assertThat(result).isPresent();
+			assertThat(result.get().getIsbnKey()).isEqualTo(9780306406157l);
+			assertThat(result.get().getTitle()).isEqualTo("Jogos vorazes");
+			assertThat(result.get().getCopies()).isEqualTo(3);
+			assertThat(result.get().getAvailableCopies()).isEqualTo(2);
+		});
+		assertThat(results.stream().filter(result -> result.get() == book)).hasSize(1);
+		assertThat(registry.get("book.lookup.calls").tag("result", "executed").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Deve repassar o erro da consulta para todas as chamadas que aguardavam")
+	public void propagateFailureTest() {
+		BookLookupCoalescer coalescer = new BookLookupCoalescer(true, new SimpleMeterRegistry());
+
+		assertThrows(IllegalStateException.class, () -> coalescer.byId(1l, () -> {
+			throw new IllegalStateException("falha");
+		}));
+		assertThat(coalescer.byId(1l, () -> Optional.empty())).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve consultar o banco em todas as chamadas quando desabilitado")
+	public void disabledTest() {
+		BookLookupCoalescer coalescer = new BookLookupCoalescer(false, new SimpleMeterRegistry());
+		AtomicInteger queries = new AtomicInteger();
+
+		Supplier<Optional<Book>> query = () -> {
+			queries.incrementAndGet();
+			return Optional.empty();
+		};
+		coalescer.byId(1l, query);
+		coalescer.byId(1l, query);
+
+		assertThat(queries.get()).isEqualTo(2);
+	}
+
+	private List<Optional<Book>> runConcurrently(Supplier<Optional<Book>> call, Supplier<Boolean> waiting,
+			CountDownLatch release) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+		List<Future<Optional<Book>>> futures = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			futures.add(executor.submit(call::get));
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (waiting.get() && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		release.countDown();
+
+		List<Optional<Book>> results = new ArrayList<>();
+		for (Future<Optional<Book>> future : futures) {
+			results.add(future.get(5, TimeUnit.SECONDS));
+		}
+		executor.shutdown();
+		return results;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.libraryapi.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.libraryapi.model.repository.BookRepository;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class BookAvailabilityIndexTest {
+
+	@MockBean
+	BookRepository repository;
+
+	@Test
+	@DisplayName("Deve carregar os livros sem exemplar livre a partir do banco na inicialização")
+	public void warmUpTest() {
+		when(repository.findBookIdsWithoutAvailableCopies()).thenReturn(Arrays.asList(3l, 70l, 100_000l));
+		BookAvailabilityIndex index = new BookAvailabilityIndex(repository, true);
+
+		index.warmUp();
+
+		assertThat(index.isEnabled()).isTrue();
+		assertThat(index.isLoaned(3l)).isTrue();
+		assertThat(index.isLoaned(70l)).isTrue();
+		assertThat(index.isLoaned(100_000l)).isTrue();
+		assertThat(index.isLoaned(4l)).isFalse();
+		assertThat(index.isLoaned(Integer.MAX_VALUE)).isFalse();
+	}
+
+	@Test
+	@DisplayName("Deve ignorar ids negativos ou além da capacidade do índice")
+	public void outOfRangeIdTest() {
+		when(repository.findBookIdsWithoutAvailableCopies()).thenReturn(Arrays.asList(-1l, Long.MAX_VALUE, 7l));
+		BookAvailabilityIndex index = new BookAvailabilityIndex(repository, true);
+		index.warmUp();
+
+		index.markLoaned(-5l);
+		index.markLoaned(Long.MAX_VALUE - 1);
+
+		assertThat(index.isLoaned(-1l)).isFalse();
+		assertThat(index.isLoaned(-5l)).isFalse();
+		assertThat(index.isLoaned(Long.MAX_VALUE)).isFalse();
+		assertThat(index.isLoaned(Long.MAX_VALUE - 1)).isFalse();
+		assertThat(index.isLoaned(7l)).isTrue();
+	}
+
+	@Test
+	@DisplayName("Deve marcar e desmarcar livros emprestados, inclusive além da capacidade inicial")
+	public void markLoanedAndAvailableTest() {
+		when(repository.findBookIdsWithoutAvailableCopies()).thenReturn(Arrays.asList());
+		BookAvailabilityIndex index = new BookAvailabilityIndex(repository, true);
+		index.warmUp();
+
+		index.markLoaned(5_000_000l);
+		assertThat(index.isLoaned(5_000_000l)).isTrue();
+
+		index.markAvailable(5_000_000l);
+		assertThat(index.isLoaned(5_000_000l)).isFalse();
+	}
+
+	@Test
+	@DisplayName("Deve substituir o conteúdo do índice pelo estado do banco na reconciliação")
+	public void reconcileTest() {
+		when(repository.findBookIdsWithoutAvailableCopies()).thenReturn(Arrays.asList(1l));
+		BookAvailabilityIndex index = new BookAvailabilityIndex(repository, true);
+		index.warmUp();
+		index.markLoaned(2l);
+
+		when(repository.findBookIdsWithoutAvailableCopies()).thenReturn(Arrays.asList(2l));
+		index.reconcile();
+
+		assertThat(index.isLoaned(1l)).isFalse();
+		assertThat(index.isLoaned(2l)).isTrue();
+	}
+
+	@Test
+	@DisplayName("Não deve ser usado quando desabilitado")
+	public void disabledIndexTest() {
+		BookAvailabilityIndex index = new BookAvailabilityIndex(repository, false);
+
+		index.warmUp();
+		index.markLoaned(1l);
+
+		assertThat(index.isEnabled()).isFalse();
+		assertThat(index.isLoaned(1l)).isFalse();
+	}
+
+}
@@ -0,0 +1,151 @@
+package com.libraryapi.service.index;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.projection.BookSummary;
+import com.libraryapi.model.repository.BookRepository;
+
+/**
+ * Índice de sugestões com 1 milhão de títulos sintéticos (3 a 6 palavras de um
+ * vocabulário de 50 mil, com distribuição Zipf): memória ocupada (heap após GC),
+ * tempo de carga e de compactação, e latência p50/p99 de consultas com prefixos
+ * de 1 a 6 letras.
+ * Executar com: mvn test -Dtest=BookSuggestIndexBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class BookSuggestIndexBenchmark {
+
+	private static final int TITLES = 1_000_000;
+	private static final int VOCABULARY = 50_000;
+	private static final int QUERIES = 20_000;
+
+	@Test
+	@DisplayName("Benchmark do índice de sugestões")
+	public void suggestBenchmark() throws Exception {
+		String[] words = vocabulary();
+		Zipf zipf = new Zipf(VOCABULARY, 1.0);
+
+		BookRepository repository = mock(BookRepository.class);
+		when(repository.streamSummaries()).thenAnswer(invocation -> {
+			Random random = new Random(42);
+			return LongStream.rangeClosed(1, TITLES).mapToObj(id -> summary(id, phrase(words, zipf, random, 3 + random.nextInt(4)),
+					phrase(words, zipf, random, 2), String.format("978%010d", id)));
+		});
+
+		long before = usedHeap();
+		long start = System.nanoTime();
+		BookSuggestIndex index = new BookSuggestIndex(repository, mock(PlatformTransactionManager.class), true, 5000, 20000);
+		index.warmUp();
+		long loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		long after = usedHeap();
+
+		for (int i = 0; i < 1000; i++) {
+			index.put(Book.builder().id((long) TITLES + i).title("Novo titulo " + i).author("Autor").build());
+		}
+		start = System.nanoTime();
+		index.compact();
+		long compactMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		System.out.printf("titulos: %d, memoria: %d MB (%d bytes/titulo), carga: %d ms, compactacao: %d ms%n", index.size(),
+				(after - before) / (1024 * 1024), (after - before) / TITLES, loadMillis, compactMillis);
+
+		System.out.printf("%-8s %10s %10s %10s%n", "prefixo", "p50 (us)", "p99 (us)", "max (us)");
+		Random random = new Random(7);
+		for (int length = 1; length <= 6; length++) {
+			long[] latencies = new long[QUERIES];
+			for (int round = 0; round < 2; round++) {
+				for (int i = 0; i < QUERIES; i++) {
+					String word = words[(int) zipf.next(random)];
+					String query = word.substring(0, Math.min(length, word.length()));
+					long begin = System.nanoTime();
+					index.suggest(query, 10);
+					latencies[i] = System.nanoTime() - begin;
+				}
+			}
+			Arrays.sort(latencies);
+			System.out.printf("%-8d %10.1f %10.1f %10.1f%n", length, latencies[QUERIES / 2] / 1e3,
+					latencies[(int) (QUERIES * 0.99)] / 1e3, latencies[QUERIES - 1] / 1e3);
+		}
+	}
+
+	private static long usedHeap() throws InterruptedException {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			Thread.sleep(200);
+		}
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/** Palavras pseudoaleatórias de 3 a 10 letras. */
+	private static String[] vocabulary() {
+		Random random = new Random(1);
+		String[] words = new String[VOCABULARY];
+		for (int i = 0; i < VOCABULARY; i++) {
+			char[] chars = new char[3 + random.nextInt(8)];
+			for (int j = 0; j < chars.length; j++) {
+				chars[j] = (char) ('a' + random.nextInt(26));
+			}
+			words[i] = new String(chars);
+		}
+		return words;
+	}
+
+	private static String phrase(String[] words, Zipf zipf, Random random, int size) {
+		StringBuilder phrase = new StringBuilder();
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				phrase.append(' ');
+			}
+			String word = words[(int) zipf.next(random)];
+			phrase.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+		}
+		return phrase.toString();
+	}
+
+	/** Índices de 0 a size - 1 com distribuição Zipf, sorteados por busca binária na distribuição acumulada. */
+	private static final class Zipf {
+
+		private final double[] cumulative;
+
+		Zipf(int size, double skew) {
+			cumulative = new double[size];
+			double sum = 0;
+			for (int rank = 1; rank <= size; rank++) {
+				sum += 1 / Math.pow(rank, skew);
+				cumulative[rank - 1] = sum;
+			}
+			for (int i = 0; i < size; i++) {
+				cumulative[i] /= sum;
+			}
+		}
+
+		long next(Random random) {
+			int index = Arrays.binarySearch(cumulative, random.nextDouble());
+			return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+		}
+
+	}
+
+	private static BookSummary summary(long id, String title, String author, String isbn) {
+		return new BookSummary() {
+			public Long getId() { return id; }
+			public String getTitle() { return title; }
+			public String getAuthor() { return author; }
+			public String getIsbn() { return isbn; }
+		};
+	}
+
+}
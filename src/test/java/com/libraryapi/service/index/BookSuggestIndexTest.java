@@ -0,0 +1,109 @@
+package com.libraryapi.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.projection.BookSummary;
+import com.libraryapi.model.repository.BookRepository;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class BookSuggestIndexTest {
+
+	@MockBean
+	BookRepository repository;
+
+	@MockBean
+	PlatformTransactionManager transactionManager;
+
+	BookSuggestIndex index;
+
+	@BeforeEach
+	public void setUp() {
+		when(repository.streamSummaries()).thenReturn(Stream.of(
+				summary(1l, "Jogos Vorazes", "Suzanne Collins"),
+				summary(2l, "A Esperança", "Suzanne Collins"),
+				summary(3l, "O Ladrão de Raios", "Rick Riordan"),
+				summary(4l, "Jogador Número Um", "Ernest Cline")));
+		index = new BookSuggestIndex(repository, transactionManager, true, 5000, 20000);
+		index.warmUp();
+	}
+
+	@Test
+	@DisplayName("Deve sugerir livros pelo prefixo, ignorando acentos e maiúsculas")
+	public void suggestByPrefixTest() {
+		assertThat(index.isEnabled()).isTrue();
+		assertThat(index.suggest("jog", 10)).extracting(Book::getId).containsExactly(1l, 4l);
+		assertThat(index.suggest("ESPERANCA", 10)).extracting(Book::getId).containsExactly(2l);
+		assertThat(index.suggest("ladrao rai", 10)).extracting(Book::getId).containsExactly(3l);
+		assertThat(index.suggest("xyz", 10)).isEmpty();
+		assertThat(index.suggest("  ", 10)).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve sugerir pelo prefixo do último termo em ordem alfabética")
+	public void suggestByLastTermTest() {
+		assertThat(index.suggest("vor", 10)).extracting(Book::getId).containsExactly(1l);
+		assertThat(index.suggest("vorazes", 10)).extracting(Book::getId).containsExactly(1l);
+	}
+
+	@Test
+	@DisplayName("Deve ordenar títulos antes de autores e limitar o resultado")
+	public void rankingTest() {
+		index.put(Book.builder().id(5l).title("Collins: uma biografia").author("Fulano").build());
+
+		assertThat(index.suggest("collins", 10)).extracting(Book::getId).containsExactly(5l, 2l, 1l);
+		assertThat(index.suggest("collins", 1)).extracting(Book::getId).containsExactly(5l);
+	}
+
+	@Test
+	@DisplayName("Deve refletir cadastros, alterações e exclusões antes e depois da compactação")
+	public void incrementalUpdateTest() {
+		index.put(Book.builder().id(6l).title("Jornada nas Estrelas").author("Gene").build());
+		index.put(Book.builder().id(1l).title("Em Chamas").author("Suzanne Collins").build());
+		index.remove(4l);
+
+		assertThat(index.suggest("jo", 10)).extracting(Book::getId).containsExactly(6l);
+		assertThat(index.suggest("chamas", 10)).extracting(Book::getId).containsExactly(1l);
+
+		index.compact();
+
+		assertThat(index.suggest("jo", 10)).extracting(Book::getId).containsExactly(6l);
+		assertThat(index.suggest("chamas", 10)).extracting(Book::getId).containsExactly(1l);
+		assertThat(index.size()).isEqualTo(4);
+	}
+
+	@Test
+	@DisplayName("Deve ficar inativo quando desabilitado")
+	public void disabledTest() {
+		BookSuggestIndex disabled = new BookSuggestIndex(repository, transactionManager, false, 5000, 20000);
+
+		disabled.warmUp();
+		disabled.put(Book.builder().id(1l).title("Jogos Vorazes").build());
+
+		assertThat(disabled.isEnabled()).isFalse();
+		assertThat(disabled.suggest("jogos", 10)).isEmpty();
+	}
+
+	private static BookSummary summary(Long id, String title, String author) {
+		return new BookSummary() {
+			public Long getId() { return id; }
+			public String getTitle() { return title; }
+			public String getAuthor() { return author; }
+			public String getIsbn() { return null; }
+		};
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.libraryapi.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.libraryapi.model.repository.BookReservationRepository;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class WaitlistHeadIndexTest {
+
+	@MockBean
+	BookReservationRepository repository;
+
+	@Test
+	@DisplayName("Deve carregar os livros com fila na inicialização, sem conhecer a cabeça")
+	public void warmUpTest() {
+		when(repository.findBookIdsWithWaitlist()).thenReturn(Arrays.asList(3l));
+		WaitlistHeadIndex index = new WaitlistHeadIndex(repository, true);
+
+		index.warmUp();
+
+		assertThat(index.mayHaveWaitlist(3l)).isTrue();
+		assertThat(index.knownHead(3l)).isNull();
+		assertThat(index.mayHaveWaitlist(4l)).isFalse();
+	}
+
+	@Test
+	@DisplayName("Deve manter a primeira reserva como cabeça e avançar a cada promoção")
+	public void enqueueAndAdvanceTest() {
+		when(repository.findBookIdsWithWaitlist()).thenReturn(Arrays.asList());
+		WaitlistHeadIndex index = new WaitlistHeadIndex(repository, true);
+		index.warmUp();
+
+		index.enqueued(1l, 10l);
+		index.enqueued(1l, 11l);
+		assertThat(index.knownHead(1l)).isEqualTo(10l);
+
+		index.advanced(1l, 11l);
+		assertThat(index.knownHead(1l)).isEqualTo(11l);
+
+		index.advanced(1l, null);
+		assertThat(index.mayHaveWaitlist(1l)).isFalse();
+	}
+
+	@Test
+	@DisplayName("Deve preservar as alterações feitas durante a reconciliação")
+	public void reconcileTest() {
+		when(repository.findBookIdsWithWaitlist()).thenReturn(Arrays.asList(1l));
+		WaitlistHeadIndex index = new WaitlistHeadIndex(repository, true);
+		index.warmUp();
+		index.advanced(1l, 10l);
+
+		when(repository.findBookIdsWithWaitlist()).thenAnswer(invocation -> {
+			index.enqueued(2l, 20l);
+			return Arrays.asList(1l, 3l);
+		});
+		index.reconcile();
+
+		assertThat(index.knownHead(1l)).isEqualTo(10l);
+		assertThat(index.knownHead(2l)).isEqualTo(20l);
+		assertThat(index.mayHaveWaitlist(3l)).isTrue();
+	}
+
+	@Test
+	@DisplayName("Não deve descartar nenhuma fila quando desabilitado")
+	public void disabledIndexTest() {
+		WaitlistHeadIndex index = new WaitlistHeadIndex(repository, false);
+
+		index.warmUp();
+		index.enqueued(1l, 10l);
+
+		assertThat(index.isEnabled()).isFalse();
+		assertThat(index.mayHaveWaitlist(2l)).isTrue();
+		assertThat(index.knownHead(1l)).isNull();
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.libraryapi.service.writebehind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LoanJournalTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	@DisplayName("Deve recuperar somente as reservas sem confirmação de persistência")
+	public void recoverUncommittedTest() throws Exception {
+		Path path = directory.resolve("journal.log");
+		try (LoanJournal journal = new LoanJournal(path, false)) {
+			journal.recover();
+			journal.append(pending("a", 1l));
+			journal.append(pending("b", 2l));
+			journal.commit(Arrays.asList("a"));
+		}
+
+		try (LoanJournal journal = new LoanJournal(path, false)) {
+			List<PendingLoan> recovered = journal.recover();
+
+			assertThat(recovered).extracting(PendingLoan::getReference).containsExactly("b");
+			assertThat(recovered.get(0).getBookId()).isEqualTo(2l);
+			assertThat(recovered.get(0).getCustomer()).isEqualTo("Fulano de Tal");
+			assertThat(recovered.get(0).getLoanDate()).isEqualTo(LocalDate.of(2024, 3, 1));
+		}
+	}
+
+	@Test
+	@DisplayName("Deve reescrever o journal mantendo apenas as reservas pendentes")
+	public void compactTest() throws Exception {
+		Path path = directory.resolve("journal.log");
+		try (LoanJournal journal = new LoanJournal(path, true)) {
+			journal.recover();
+			journal.append(pending("a", 1l));
+			journal.append(pending("b", 2l));
+			journal.commit(Arrays.asList("a"));
+
+			journal.compact(Arrays.asList(pending("b", 2l)));
+			journal.append(pending("c", 3l));
+		}
+
+		assertThat(Files.readAllLines(path)).hasSize(2);
+		try (LoanJournal journal = new LoanJournal(path, false)) {
+			assertThat(journal.recover()).extracting(PendingLoan::getReference).containsExactly("b", "c");
+		}
+	}
+
+	@Test
+	@DisplayName("Deve sincronizar as reservas gravadas concorrentemente sem perder nenhuma")
+	public void concurrentAppendAndSyncTest() throws Exception {
+		Path path = directory.resolve("journal.log");
+		int threads = 8;
+		int perThread = 50;
+		try (LoanJournal journal = new LoanJournal(path, true)) {
+			journal.recover();
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				int thread = t;
+				results.add(executor.submit(() -> {
+					for (int i = 0; i < perThread; i++) {
+						journal.sync(journal.append(pending(thread + "-" + i, (long) i)));
+					}
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get();
+			}
+			executor.shutdown();
+		}
+
+		try (LoanJournal journal = new LoanJournal(path, false)) {
+			assertThat(journal.recover()).hasSize(threads * perThread);
+		}
+	}
+
+	@Test
+	@DisplayName("Deve considerar sincronizada a reserva gravada antes de uma compactação")
+	public void syncAfterCompactTest() throws Exception {
+		Path path = directory.resolve("journal.log");
+		try (LoanJournal journal = new LoanJournal(path, true)) {
+			journal.recover();
+			long sequence = journal.append(pending("a", 1l));
+			journal.compact(Arrays.asList(pending("a", 1l)));
+
+			journal.sync(sequence);
+		}
+
+		try (LoanJournal journal = new LoanJournal(path, false)) {
+			assertThat(journal.recover()).extracting(PendingLoan::getReference).containsExactly("a");
+		}
+	}
+
+	private PendingLoan pending(String reference, Long bookId) {
+		return PendingLoan.builder()
+				.reference(reference)
+				.bookId(bookId)
+				.customer("Fulano\tde Tal")
+				.email("fulano@email.com")
+				.loanDate(LocalDate.of(2024, 3, 1))
+				.build();
+	}
+
+}
@@ -0,0 +1,272 @@
+package com.libraryapi.service.writebehind;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.libraryapi.exception.BusinessException;
+import com.libraryapi.model.entity.Book;
+import com.libraryapi.model.entity.Customer;
+import com.libraryapi.model.entity.Loan;
+import com.libraryapi.model.repository.BookRepository;
+import com.libraryapi.model.repository.LoanRepository;
+import com.libraryapi.service.CustomerService;
+import com.libraryapi.service.concurrent.BookLockManager;
+import com.libraryapi.service.index.BookAvailabilityIndex;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class LoanWriteBehindQueueTest {
+
+	@TempDir
+	Path directory;
+
+	@MockBean
+	LoanRepository loanRepository;
+
+	@MockBean
+	BookRepository bookRepository;
+
+	@MockBean
+	CustomerService customerService;
+
+	@MockBean
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	@DisplayName("Deve reservar o livro em memória e persistir a reserva em lote")
+	@SuppressWarnings("unchecked")
+	public void reserveAndPersistTest() throws Exception {
+		Book book = Book.builder().id(1l).isbn("123").build();
+		Customer customer = Customer.builder().id(1l).name("Fulano").email("fulano@email.com").build();
+		// depois de persistida a reserva, o banco passa a mostrar o livro emprestado
+		when(bookRepository.findAvailableCopies(1l)).thenReturn(Optional.of(1), Optional.of(0));
+		when(customerService.getOrCreate("Fulano", "fulano@email.com")).thenReturn(customer);
+		when(bookRepository.getReferenceById(1l)).thenReturn(book);
+		when(bookRepository.takeCopies(Map.of(1l, 1))).thenReturn(Map.of(1l, 0));
+
+		LoanWriteBehindQueue queue = createQueue(10);
+		queue.start();
+
+		Optional<String> reference = queue.reserve(book, "Fulano", "fulano@email.com");
+
+		assertThat(reference).isPresent();
+		Throwable exception = catchThrowable(() -> queue.reserve(book, "Beltrano", "beltrano@email.com"));
+		assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Livro já emprestado.");
+
+		queue.stop();
+
+		ArgumentCaptor<List<Loan>> saved = ArgumentCaptor.forClass(List.class);
+		verify(loanRepository).saveAll(saved.capture());
+		assertThat(saved.getValue()).hasSize(1);
+		assertThat(saved.getValue().get(0).getReference()).isEqualTo(reference.get());
+		assertThat(saved.getValue().get(0).getCustomer()).isEqualTo(customer);
+		assertThat(queue.isPending(reference.get())).isFalse();
+	}
+
+	@Test
+	@DisplayName("Deve recusar a reserva quando a fila estiver cheia")
+	public void fullQueueTest() throws Exception {
+		CountDownLatch databaseBlocked = new CountDownLatch(1);
+		when(bookRepository.findAvailableCopies(Mockito.anyLong())).thenReturn(Optional.of(1));
+		when(customerService.getOrCreate(Mockito.anyString(), Mockito.anyString())).thenAnswer(invocation -> {
+			databaseBlocked.await();
+			return Customer.builder().id(1l).build();
+		});
+		LoanWriteBehindQueue queue = createQueue(1);
+		queue.start();
+
+		assertThat(queue.reserve(Book.builder().id(1l).build(), "Fulano", "fulano@email.com")).isPresent();
+		assertThat(queue.reserve(Book.builder().id(2l).build(), "Fulano", "fulano@email.com")).isEmpty();
+
+		databaseBlocked.countDown();
+		queue.stop();
+	}
+
+	@Test
+	@DisplayName("Deve parar com o banco indisponível mantendo as reservas no journal")
+	public void stopWhileDatabaseDownTest() throws Exception {
+		CountDownLatch attempted = new CountDownLatch(1);
+		when(bookRepository.findAvailableCopies(1l)).thenReturn(Optional.of(1));
+		when(customerService.getOrCreate("Fulano", "fulano@email.com")).thenReturn(Customer.builder().id(1l).build());
+		when(bookRepository.takeCopies(Mockito.<Long, Integer>anyMap())).thenAnswer(invocation -> {
+			attempted.countDown();
+			throw new DataAccessResourceFailureException("sem conexão");
+		});
+		LoanWriteBehindQueue queue = createQueue(10);
+		queue.start();
+
+		Optional<String> reference = queue.reserve(Book.builder().id(1l).build(), "Fulano", "fulano@email.com");
+		attempted.await();
+
+		assertTimeoutPreemptively(Duration.ofSeconds(5), queue::stop);
+		try (LoanJournal journal = new LoanJournal(directory.resolve("journal.log"), false)) {
+			assertThat(journal.recover()).extracting(PendingLoan::getReference).containsExactly(reference.get());
+		}
+	}
+
+	@Test
+	@DisplayName("Deve tentar de novo as falhas passageiras e descartar só as reservas recusadas pelo banco")
+	public void retryTransientAndDiscardRejectedTest() throws Exception {
+		when(bookRepository.findAvailableCopies(Mockito.anyLong())).thenReturn(Optional.of(1));
+		when(customerService.getOrCreate("Fulano", "fulano@email.com")).thenReturn(Customer.builder().id(1l).build());
+		when(bookRepository.takeCopies(Map.of(1l, 1)))
+				.thenThrow(new CannotAcquireLockException("timeout de lock"))
+				.thenReturn(Map.of(1l, 0));
+		when(bookRepository.takeCopies(Map.of(2l, 1))).thenReturn(Map.of(2l, 0));
+		when(loanRepository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+			List<Loan> loans = invocation.getArgument(0);
+			if (loans.get(0).getBook() == null) {
+				throw new DataIntegrityViolationException("fk_loan_book");
+			}
+			return loans;
+		});
+		when(bookRepository.getReferenceById(1l)).thenReturn(Book.builder().id(1l).build());
+		LoanWriteBehindQueue queue = createQueue(10);
+		queue.start();
+
+		String retried = queue.reserve(Book.builder().id(1l).build(), "Fulano", "fulano@email.com").get();
+		String rejected = queue.reserve(Book.builder().id(2l).build(), "Fulano", "fulano@email.com").get();
+		// a nova tentativa espera RETRY_DELAY_MS
+		long deadline = System.currentTimeMillis() + 5000;
+		while ((queue.isPending(retried) || queue.isPending(rejected)) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		queue.stop();
+
+		assertThat(queue.isPending(retried)).isFalse();
+		assertThat(queue.discardReason(retried)).isEmpty();
+		assertThat(queue.isPending(rejected)).isFalse();
+		assertThat(queue.discardReason(rejected)).contains("Reserva recusada pelo banco de dados.");
+	}
+
+	@Test
+	@DisplayName("Deve aceitar reservas pendentes do mesmo livro até o número de exemplares livres")
+	public void reservePendingUpToAvailableCopiesTest() throws Exception {
+		CountDownLatch databaseBlocked = new CountDownLatch(1);
+		when(bookRepository.findAvailableCopies(1l)).thenReturn(Optional.of(2));
+		when(customerService.getOrCreate(Mockito.anyString(), Mockito.anyString())).thenAnswer(invocation -> {
+			databaseBlocked.await();
+			return Customer.builder().id(1l).build();
+		});
+		LoanWriteBehindQueue queue = createQueue(10);
+		queue.start();
+		Book book = Book.builder().id(1l).build();
+
+		assertThat(queue.reserve(book, "Fulano", "fulano@email.com")).isPresent();
+		assertThat(queue.reserve(book, "Beltrano", "beltrano@email.com")).isPresent();
+		Throwable exception = catchThrowable(() -> queue.reserve(book, "Sicrano", "sicrano@email.com"));
+
+		assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Livro já emprestado.");
+		databaseBlocked.countDown();
+		queue.stop();
+	}
+
+	@Test
+	@DisplayName("Deve persistir no mesmo lote duas reservas do mesmo livro, retirando dois exemplares")
+	@SuppressWarnings("unchecked")
+	public void batchWithTwoCopiesOfSameBookTest() throws Exception {
+		CountDownLatch workerBusy = new CountDownLatch(1);
+		CountDownLatch databaseBlocked = new CountDownLatch(1);
+		when(bookRepository.findAvailableCopies(1l)).thenReturn(Optional.of(2));
+		when(bookRepository.findAvailableCopies(2l)).thenReturn(Optional.of(1));
+		when(customerService.getOrCreate(Mockito.anyString(), Mockito.anyString())).thenAnswer(invocation -> {
+			if ("Bloqueio".equals(invocation.getArgument(0))) {
+				workerBusy.countDown();
+				databaseBlocked.await();
+			}
+			return Customer.builder().id(1l).build();
+		});
+		when(bookRepository.takeCopies(Mockito.<Long, Integer>anyMap())).thenAnswer(invocation -> {
+			Map<Long, Integer> countByBook = invocation.getArgument(0);
+			return countByBook.keySet().stream().collect(Collectors.toMap(id -> id, id -> 0));
+		});
+		when(bookRepository.getReferenceById(Mockito.anyLong()))
+				.thenAnswer(invocation -> Book.builder().id(invocation.getArgument(0)).build());
+		LoanWriteBehindQueue queue = createQueue(10);
+		queue.start();
+
+		// o primeiro lote segura o worker até as duas reservas do livro 1 estarem na fila
+		queue.reserve(Book.builder().id(2l).build(), "Bloqueio", "bloqueio@email.com");
+		workerBusy.await();
+		String first = queue.reserve(Book.builder().id(1l).build(), "Fulano", "fulano@email.com").get();
+		String second = queue.reserve(Book.builder().id(1l).build(), "Beltrano", "beltrano@email.com").get();
+		databaseBlocked.countDown();
+		queue.stop();
+
+		verify(bookRepository).takeCopies(Map.of(1l, 2));
+		verify(bookRepository, never()).takeCopies(Map.of(1l, 1));
+		ArgumentCaptor<List<Loan>> saved = ArgumentCaptor.forClass(List.class);
+		verify(loanRepository, times(2)).saveAll(saved.capture());
+		assertThat(saved.getAllValues().get(1)).extracting(Loan::getReference).containsExactly(first, second);
+		assertThat(queue.discardReason(first)).isEmpty();
+		assertThat(queue.discardReason(second)).isEmpty();
+	}
+
+	@Test
+	@DisplayName("Deve aceitar reservas só depois de reenfileirar as reservas recuperadas do journal")
+	public void acceptAfterRecoveryTest() throws Exception {
+		try (LoanJournal journal = new LoanJournal(directory.resolve("journal.log"), false)) {
+			journal.recover();
+			journal.append(PendingLoan.builder().reference("recuperada").bookId(1l)
+					.customer("Fulano").email("fulano@email.com").loanDate(LocalDate.now()).build());
+		}
+		CountDownLatch databaseBlocked = new CountDownLatch(1);
+		when(bookRepository.findAvailableCopies(1l)).thenReturn(Optional.of(1));
+		when(customerService.getOrCreate(Mockito.anyString(), Mockito.anyString())).thenAnswer(invocation -> {
+			databaseBlocked.await();
+			return Customer.builder().id(1l).build();
+		});
+		LoanWriteBehindQueue queue = createQueue(10);
+		List<Boolean> enabledDuringRecovery = new ArrayList<>();
+		when(loanRepository.findExistingReferences(List.of("recuperada"))).thenAnswer(invocation -> {
+			enabledDuringRecovery.add(queue.isEnabled());
+			return List.of();
+		});
+
+		queue.start();
+
+		assertThat(enabledDuringRecovery).containsExactly(false);
+		assertThat(queue.isEnabled()).isTrue();
+		assertThat(queue.isPending("recuperada")).isTrue();
+		Throwable exception = catchThrowable(() -> queue.reserve(Book.builder().id(1l).build(), "Beltrano", "beltrano@email.com"));
+		assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Livro já emprestado.");
+		databaseBlocked.countDown();
+		queue.stop();
+	}
+
+	private LoanWriteBehindQueue createQueue(int capacity) {
+		return new LoanWriteBehindQueue(loanRepository, bookRepository, customerService,
+				new BookAvailabilityIndex(bookRepository, false), new BookLockManager(16), transactionManager,
+				true, capacity, 100, directory.resolve("journal.log").toString(), false);
+	}
+
+}